@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.DeclarationSnippet;
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.SourceCodeAnalysis;
+
+/**
+ * Tracks the declarations each cell of a notebook defined in the kernel, so
+ * that after an edit only the edited cell and the cells depending on it need
+ * to be re-run.
+ *
+ * A later cell depends on an edited cell when it references a name declared
+ * by it, or when the kernel reports one of its declarations as a dependent
+ * of such a declaration. Dependencies are followed transitively in notebook
+ * order.
+ */
+public class CellDependencyGraph {
+
+    private static final Logger LOG = Logger.getLogger(CellDependencyGraph.class.getName());
+
+    private final Map<String, List<DeclarationSnippet>> cellDeclarations = new HashMap<>();
+    private final Map<String, String> snippetCells = new HashMap<>();
+
+    /**
+     * Records the snippets defined by an evaluation of the cell. Declarations
+     * from earlier evaluations of the cell stay recorded for as long as they
+     * are active in the kernel.
+     */
+    public synchronized void recordEvaluation(JShell jshell, String cellId, List<SnippetEvent> events) {
+        List<DeclarationSnippet> declarations = new ArrayList<>();
+        for (DeclarationSnippet previous : cellDeclarations.getOrDefault(cellId, Collections.emptyList())) {
+            if (isActive(jshell, previous)) {
+                declarations.add(previous);
+            } else {
+                snippetCells.remove(previous.id());
+            }
+        }
+        for (SnippetEvent event : events) {
+            if (event.causeSnippet() == null
+                    && event.snippet() instanceof DeclarationSnippet
+                    && event.status().isActive()) {
+                DeclarationSnippet declaration = (DeclarationSnippet) event.snippet();
+                declarations.add(declaration);
+                snippetCells.put(declaration.id(), cellId);
+            }
+        }
+        cellDeclarations.put(cellId, declarations);
+    }
+
+    public synchronized void clear() {
+        cellDeclarations.clear();
+        snippetCells.clear();
+    }
+
+    /**
+     * Computes the cells to re-run after an edit of the given cell.
+     *
+     * @param jshell kernel of the notebook
+     * @param cellId edited cell
+     * @param cellsOrder cell URIs in notebook order
+     * @param cellContent current source of a code cell, {@code null} for cells
+     * that cannot be executed
+     * @return the edited cell followed by the cells depending on it, in
+     * notebook order
+     */
+    public synchronized List<String> getDownstreamCells(JShell jshell, String cellId, List<String> cellsOrder, Function<String, String> cellContent) {
+        List<String> result = new ArrayList<>();
+        result.add(cellId);
+        int start = cellsOrder.indexOf(cellId);
+        if (start < 0) {
+            return result;
+        }
+        SourceCodeAnalysis analysis = jshell.sourceCodeAnalysis();
+        Set<String> changedNames = new HashSet<>(getDeclaredNames(analysis, cellId, cellContent.apply(cellId)));
+        Set<String> dependentCells = new HashSet<>(getKernelDependents(analysis, cellId));
+
+        for (int i = start + 1; i < cellsOrder.size(); i++) {
+            String candidate = cellsOrder.get(i);
+            String content = cellContent.apply(candidate);
+            if (content == null) {
+                continue;
+            }
+            if (dependentCells.contains(candidate)
+                    || !Collections.disjoint(getReferencedIdentifiers(content), changedNames)) {
+                result.add(candidate);
+                changedNames.addAll(getDeclaredNames(analysis, candidate, content));
+                dependentCells.addAll(getKernelDependents(analysis, candidate));
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getDeclaredNames(SourceCodeAnalysis analysis, String cellId, String content) {
+        Set<String> names = new HashSet<>();
+        for (DeclarationSnippet declaration : cellDeclarations.getOrDefault(cellId, Collections.emptyList())) {
+            names.add(declaration.name());
+        }
+        if (content != null) {
+            try {
+                for (String snippet : NotebookUtils.getCodeSnippets(analysis, content)) {
+                    for (Snippet parsed : analysis.sourceToSnippets(snippet)) {
+                        if (parsed instanceof DeclarationSnippet) {
+                            names.add(((DeclarationSnippet) parsed).name());
+                        }
+                    }
+                }
+            } catch (IllegalStateException ex) {
+                LOG.log(Level.FINE, "Unable to analyze declarations of cell {0}: {1}", new Object[]{cellId, ex.getMessage()});
+            }
+        }
+        return names;
+    }
+
+    private Set<String> getKernelDependents(SourceCodeAnalysis analysis, String cellId) {
+        Set<String> cells = new HashSet<>();
+        for (DeclarationSnippet declaration : cellDeclarations.getOrDefault(cellId, Collections.emptyList())) {
+            try {
+                for (Snippet dependent : analysis.dependents(declaration)) {
+                    String dependentCell = snippetCells.get(dependent.id());
+                    if (dependentCell != null) {
+                        cells.add(dependentCell);
+                    }
+                }
+            } catch (IllegalStateException | IllegalArgumentException ex) {
+                LOG.log(Level.FINE, "Unable to fetch dependents of {0}: {1}", new Object[]{declaration.name(), ex.getMessage()});
+            }
+        }
+        return cells;
+    }
+
+    private static boolean isActive(JShell jshell, Snippet snippet) {
+        try {
+            return jshell.status(snippet).isActive();
+        } catch (IllegalStateException | IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Collects the Java identifiers used in the source, ignoring comments,
+     * string, text block and character literals.
+     */
+    // Made package-private for easy unit test
+    static Set<String> getReferencedIdentifiers(String source) {
+        Set<String> identifiers = new HashSet<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                int end = source.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '"' && source.startsWith("\"\"\"", i)) {
+                int end = source.indexOf("\"\"\"", i + 3);
+                while (end > 0 && source.charAt(end - 1) == '\\') {
+                    end = source.indexOf("\"\"\"", end + 1);
+                }
+                i = end < 0 ? length : end + 3;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && source.charAt(i) != c && source.charAt(i) != '\n') {
+                    i += source.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                identifiers.add(source.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_' || source.charAt(i) == '.')) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return identifiers;
+    }
+}
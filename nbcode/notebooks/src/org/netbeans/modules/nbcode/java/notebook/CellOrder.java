@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order of the cells of a notebook, as an immutable balanced tree of the cell
+ * URIs, each node knowing the size of its subtree.
+ *
+ * The cells are also labeled with increasing numbers, so that the tree is a
+ * search tree by label as well: the cell at an index and the index of a cell
+ * are found in logarithmic time. Inserted cells are labeled between their
+ * neighbours, all the cells being labeled again when there is no room left.
+ *
+ * Changes replace the tree, copying the nodes on the paths to the changes
+ * only; readers take {@link #snapshot() snapshots} of the current tree
+ * without locking.
+ */
+final class CellOrder {
+
+    private static final long LABEL_SPACING = 1L << 32;
+
+    private final Map<String, Long> labels = new ConcurrentHashMap<>();
+    private volatile Node root;
+
+    CellOrder(List<String> uris) {
+        root = rebuild(uris);
+    }
+
+    /**
+     * @return unmodifiable list of the cell URIs in notebook order, not
+     * affected by later changes
+     */
+    List<String> snapshot() {
+        return new Snapshot(root);
+    }
+
+    /**
+     * Removes cells from the index and inserts the given ones there.
+     *
+     * @return URIs of the removed cells
+     */
+    synchronized List<String> splice(int start, int deleteCount, List<String> inserted) {
+        Node current = root;
+        start = Math.max(0, Math.min(start, size(current)));
+        List<String> removed = new ArrayList<>();
+        for (int i = 0; i < deleteCount && start < size(current); i++) {
+            String uri = select(current, start).uri;
+            current = removeAt(current, start);
+            labels.remove(uri);
+            removed.add(uri);
+        }
+        if (!inserted.isEmpty()) {
+            long low = start > 0 ? select(current, start - 1).label : 0;
+            long high = start < size(current) ? select(current, start).label : low + LABEL_SPACING * (inserted.size() + 1);
+            long step = high > low ? (high - low) / (inserted.size() + 1) : 0;
+            if (step == 0) {
+                List<String> uris = new Snapshot(current).toList();
+                uris.addAll(start, inserted);
+                current = rebuild(uris);
+            } else {
+                for (int i = 0; i < inserted.size(); i++) {
+                    long label = low + step * (i + 1);
+                    current = insert(current, label, inserted.get(i));
+                    labels.put(inserted.get(i), label);
+                }
+            }
+        }
+        root = current;
+        return removed;
+    }
+
+    /**
+     * Labels all the cells again, evenly spaced.
+     */
+    private Node rebuild(List<String> uris) {
+        labels.clear();
+        for (int i = 0; i < uris.size(); i++) {
+            labels.put(uris.get(i), LABEL_SPACING * (i + 1));
+        }
+        return build(uris, 0, uris.size());
+    }
+
+    private static Node build(List<String> uris, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(build(uris, from, middle), uris.get(middle), LABEL_SPACING * (middle + 1), build(uris, middle + 1, to));
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static Node select(Node node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private static Node insert(Node node, long label, String uri) {
+        if (node == null) {
+            return new Node(null, uri, label, null);
+        }
+        if (label < node.label) {
+            return balance(insert(node.left, label, uri), node, node.right);
+        }
+        return balance(node.left, node, insert(node.right, label, uri));
+    }
+
+    private static Node removeAt(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(removeAt(node.left, index), node, node.right);
+        }
+        if (index > leftSize) {
+            return balance(node.left, node, removeAt(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node first = select(node.right, 0);
+        return balance(node.left, first, removeAt(node.right, 0));
+    }
+
+    /**
+     * @return node with the URI and label of {@code key} and the given
+     * children, rotated when the heights of the children differ by two
+     */
+    private static Node balance(Node left, Node key, Node right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.left, left, new Node(left.right, key, right));
+            }
+            Node inner = left.right;
+            return new Node(new Node(left.left, left, inner.left), inner, new Node(inner.right, key, right));
+        }
+        if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(new Node(left, key, right.left), right, right.right);
+            }
+            Node inner = right.left;
+            return new Node(new Node(left, key, inner.left), inner, new Node(inner.right, right, right.right));
+        }
+        return new Node(left, key, right);
+    }
+
+    private static final class Node {
+
+        private final Node left;
+        private final Node right;
+        private final String uri;
+        private final long label;
+        private final int size;
+        private final int height;
+
+        Node(Node left, String uri, long label, Node right) {
+            this.left = left;
+            this.right = right;
+            this.uri = uri;
+            this.label = label;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+        Node(Node left, Node key, Node right) {
+            this(left, key.uri, key.label, right);
+        }
+    }
+
+    private final class Snapshot extends AbstractList<String> {
+
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return select(root, index).uri;
+        }
+
+        @Override
+        public int size() {
+            return CellOrder.size(root);
+        }
+
+        @Override
+        public int indexOf(Object uri) {
+            Long label = labels.get(uri);
+            if (label != null) {
+                Node node = root;
+                int index = 0;
+                while (node != null) {
+                    if (label < node.label) {
+                        node = node.left;
+                    } else if (label > node.label) {
+                        index += CellOrder.size(node.left) + 1;
+                        node = node.right;
+                    } else if (node.uri.equals(uri)) {
+                        return index + CellOrder.size(node.left);
+                    } else {
+                        break;
+                    }
+                }
+            }
+            // labeled again, or not in this snapshot
+            return super.indexOf(uri);
+        }
+
+        @Override
+        public boolean contains(Object uri) {
+            return indexOf(uri) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            Deque<Node> path = new ArrayDeque<>();
+            for (Node node = root; node != null; node = node.left) {
+                path.push(node);
+            }
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return !path.isEmpty();
+                }
+
+                @Override
+                public String next() {
+                    if (path.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    Node node = path.pop();
+                    for (Node next = node.right; next != null; next = next.left) {
+                        path.push(next);
+                    }
+                    return node.uri;
+                }
+            };
+        }
+
+        List<String> toList() {
+            List<String> uris = new ArrayList<>(size());
+            for (String uri : this) {
+                uris.add(uri);
+            }
+            return uris;
+        }
+    }
+}
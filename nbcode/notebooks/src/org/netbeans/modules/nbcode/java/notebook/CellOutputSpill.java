@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.modules.Places;
+
+/**
+ * Output of one cell, written to one stream, past the head window sent to
+ * the client. The bytes are written to a temporary file under the user
+ * directory, from where they can be read back page by page, while the last
+ * {@code tailSize} bytes are also kept in memory to be sent once the cell
+ * completes.
+ */
+final class CellOutputSpill {
+
+    private static final Logger LOG = Logger.getLogger(CellOutputSpill.class.getName());
+    private static final String SPILL_DIRECTORY = "notebooks/output"; // NOI18N
+
+    private final long start;
+    private final byte[] tail;
+    private int tailPosition;
+    private long length;
+    private File file;
+    private OutputStream out;
+    private boolean opened;
+
+    /**
+     * @param start offset, within the output of the cell, of the first
+     * spilled byte
+     * @param tailSize number of trailing bytes kept in memory
+     */
+    CellOutputSpill(long start, int tailSize) {
+        this.start = start;
+        this.tail = new byte[tailSize];
+    }
+
+    synchronized void write(byte[] b, int off, int len) {
+        length += len;
+        appendToTail(b, off, len);
+        if (!opened) {
+            opened = true;
+            open();
+        }
+        if (out != null) {
+            try {
+                out.write(b, off, len);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to spill cell output to {0}: {1}", new Object[]{file, ex.getMessage()});
+                closeOutput();
+            }
+        }
+    }
+
+    /**
+     * @return offset, within the output of the cell, of the first spilled
+     * byte
+     */
+    long getStart() {
+        return start;
+    }
+
+    /**
+     * @return number of spilled bytes
+     */
+    synchronized long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the last spilled bytes, at most {@code tailSize} of them
+     */
+    synchronized byte[] getTail() {
+        int size = (int) Math.min(length, tail.length);
+        byte[] result = new byte[size];
+        int first = Math.floorMod(tailPosition - size, Math.max(1, tail.length));
+        int chunk = Math.min(size, tail.length - first);
+        System.arraycopy(tail, first, result, 0, chunk);
+        System.arraycopy(tail, 0, result, chunk, size - chunk);
+        return result;
+    }
+
+    /**
+     * Reads spilled bytes back.
+     *
+     * @param offset offset within the output of the cell; offsets before the
+     * spilled range are moved to its start
+     * @param maxLength maximum number of bytes to read
+     */
+    synchronized Page read(long offset, int maxLength) throws IOException {
+        long total = start + length;
+        long from = Math.max(offset, start);
+        int count = (int) Math.max(0, Math.min(maxLength, total - from));
+        byte[] data = new byte[count];
+        if (count > 0) {
+            if (file == null) {
+                throw new IOException("Spilled output is not available");
+            }
+            if (out != null) {
+                out.flush();
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) { // NOI18N
+                raf.seek(from - start);
+                raf.readFully(data);
+            }
+        }
+        return new Page(from, total, data);
+    }
+
+    /**
+     * Flushes the spilled bytes to the file, keeping it for later reads.
+     */
+    synchronized void finish() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to spill cell output to {0}: {1}", new Object[]{file, ex.getMessage()});
+                closeOutput();
+            }
+        }
+    }
+
+    /**
+     * Deletes the file holding the spilled bytes.
+     */
+    synchronized void delete() {
+        closeOutput();
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Unable to delete spilled cell output {0}: {1}", new Object[]{file, ex.getMessage()});
+            }
+        }
+    }
+
+    private void appendToTail(byte[] b, int off, int len) {
+        if (tail.length == 0) {
+            return;
+        }
+        if (len >= tail.length) {
+            System.arraycopy(b, off + len - tail.length, tail, 0, tail.length);
+            tailPosition = 0;
+            return;
+        }
+        int chunk = Math.min(len, tail.length - tailPosition);
+        System.arraycopy(b, off, tail, tailPosition, chunk);
+        System.arraycopy(b, off + chunk, tail, 0, len - chunk);
+        tailPosition = (tailPosition + len) % tail.length;
+    }
+
+    private void open() {
+        try {
+            File dir = Places.getCacheSubdirectory(SPILL_DIRECTORY);
+            file = File.createTempFile("cell-output", ".txt", dir); // NOI18N
+            file.deleteOnExit();
+            out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), SegmentPool.SEGMENT_SIZE);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to create file for spilled cell output: {0}", ex.getMessage());
+            closeOutput();
+        }
+    }
+
+    private void closeOutput() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Unable to close spilled cell output {0}: {1}", new Object[]{file, ex.getMessage()});
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * A range of the output of a cell, read back from the spill file.
+     */
+    public static final class Page {
+
+        private final long offset;
+        private final long totalLength;
+        private final byte[] data;
+
+        Page(long offset, long totalLength, byte[] data) {
+            this.offset = offset;
+            this.totalLength = totalLength;
+            this.data = data;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getTotalLength() {
+            return totalLength;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.modules.java.lsp.server.notebook.CellExecutionResult;
+import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams;
+import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams.Builder;
+import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams.EXECUTION_STATUS;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Merges the output, errors and diagnostics produced while a cell of a
+ * notebook is executing into as few progress notifications as possible.
+ *
+ * Pending output is sent once the flush window elapses or the byte budget is
+ * exceeded, whichever comes first. Status changes, and output of another
+ * cell, send the pending output first so that the client sees everything in
+ * order.
+ */
+public class CellProgressAggregator {
+
+    private static final Logger LOG = Logger.getLogger(CellProgressAggregator.class.getName());
+    static final int DEFAULT_FLUSH_WINDOW = 50;
+    static final int DEFAULT_BYTE_BUDGET = 64 * 1024;
+
+    private static final RequestProcessor FLUSHER = new RequestProcessor(CellProgressAggregator.class.getName(), 1, true, false);
+
+    private final String notebookId;
+    private final Consumer<NotebookCellExecutionProgressResultParams> sink;
+    private final int flushWindow;
+    private final int byteBudget;
+    private final RequestProcessor.Task flushTask;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private String pendingCellId;
+    private final ChunkedBuffer pendingOut = new ChunkedBuffer();
+    private final ChunkedBuffer pendingErr = new ChunkedBuffer();
+    private final List<String> pendingDiagnostics = new ArrayList<>();
+    private final List<String> pendingErrorDiagnostics = new ArrayList<>();
+    private int pendingBytes;
+    private int pendingMessages;
+
+    public CellProgressAggregator(String notebookId, Consumer<NotebookCellExecutionProgressResultParams> sink) {
+        this(notebookId, sink, DEFAULT_FLUSH_WINDOW, DEFAULT_BYTE_BUDGET);
+    }
+
+    CellProgressAggregator(String notebookId, Consumer<NotebookCellExecutionProgressResultParams> sink, int flushWindow, int byteBudget) {
+        this.notebookId = notebookId;
+        this.sink = sink;
+        this.flushWindow = flushWindow;
+        this.byteBudget = byteBudget;
+        this.flushTask = FLUSHER.create(this::flush);
+    }
+
+    /**
+     * Queues output written by the cell to its standard output or error. The
+     * content of the buffer is taken over, leaving it empty.
+     */
+    public void addOutput(String cellId, ChunkedBuffer data, boolean isError) {
+        if (data == null || data.size() == 0) {
+            return;
+        }
+        synchronized (this) {
+            prepare(cellId);
+            pendingBytes += data.size();
+            (isError ? pendingErr : pendingOut).append(data);
+        }
+        afterAdd();
+    }
+
+    /**
+     * Queues diagnostics reported for the cell.
+     */
+    public void addDiagnostics(String cellId, List<String> diagnostics, boolean isError) {
+        if (diagnostics == null || diagnostics.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            prepare(cellId);
+            (isError ? pendingErrorDiagnostics : pendingDiagnostics).addAll(diagnostics);
+            for (String diagnostic : diagnostics) {
+                pendingBytes += diagnostic.length();
+            }
+        }
+        afterAdd();
+    }
+
+    /**
+     * Sends the pending output followed by the status change of the cell.
+     */
+    public void statusChanged(String cellId, EXECUTION_STATUS status) {
+        statusChanged(cellId, status, null);
+    }
+
+    /**
+     * Sends the pending output followed by the status change of the cell,
+     * carrying the given metadata.
+     */
+    public synchronized void statusChanged(String cellId, EXECUTION_STATUS status, Object metadata) {
+        flush();
+        Builder b = NotebookCellExecutionProgressResultParams.builder(notebookId, cellId).status(status);
+        if (metadata != null) {
+            b.metadata(metadata);
+        }
+        send(b);
+    }
+
+    /**
+     * Sends the pending output, if any.
+     */
+    public synchronized void flush() {
+        if (pendingMessages == 0) {
+            return;
+        }
+        Builder b = NotebookCellExecutionProgressResultParams.builder(notebookId, pendingCellId).status(EXECUTION_STATUS.EXECUTING);
+        if (pendingOut.size() > 0) {
+            b.outputStream(CellExecutionResult.text(pendingOut.toByteArray()));
+        }
+        if (pendingErr.size() > 0) {
+            b.errorStream(CellExecutionResult.text(pendingErr.toByteArray()));
+        }
+        if (!pendingDiagnostics.isEmpty()) {
+            b.diagnostics(new ArrayList<>(pendingDiagnostics));
+        }
+        if (!pendingErrorDiagnostics.isEmpty()) {
+            b.errorDiagnostics(new ArrayList<>(pendingErrorDiagnostics));
+        }
+        coalescedCount.addAndGet(pendingMessages - 1);
+        pendingOut.release();
+        pendingErr.release();
+        pendingDiagnostics.clear();
+        pendingErrorDiagnostics.clear();
+        pendingBytes = 0;
+        pendingMessages = 0;
+        send(b);
+    }
+
+    /**
+     * @return number of notifications sent to the client
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return number of messages that were merged into another notification
+     * instead of being sent on their own
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private void prepare(String cellId) {
+        if (pendingMessages > 0 && !Objects.equals(pendingCellId, cellId)) {
+            flush();
+        }
+        pendingCellId = cellId;
+        pendingMessages++;
+    }
+
+    private void afterAdd() {
+        boolean overBudget;
+        boolean first;
+        synchronized (this) {
+            overBudget = pendingBytes >= byteBudget;
+            first = pendingMessages == 1;
+        }
+        if (overBudget) {
+            flush();
+        } else if (first) {
+            flushTask.schedule(flushWindow);
+        }
+    }
+
+    private void send(Builder b) {
+        try {
+            sink.accept(b.build());
+            sentCount.incrementAndGet();
+        } catch (Exception ex) {
+            LOG.log(Level.SEVERE, "Some error ocurred while sending code eval notification to the client {0}", ex.getMessage());
+        }
+    }
+}
@@ -15,11 +15,17 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jdk.jshell.SourceCodeAnalysis;
 import org.eclipse.lsp4j.ExecutionSummary;
 import org.eclipse.lsp4j.NotebookCell;
 import org.eclipse.lsp4j.NotebookCellKind;
@@ -41,6 +47,9 @@ public class CellState {
     private final AtomicReference<Object> metadata;
     private final AtomicReference<VersionAwareContent> content;
     private final AtomicReference<ExecutionSummary> executionSummary;
+    private final NavigableMap<Integer, UnaryOperator<CellText>> pendingEdits = new TreeMap<>();
+    private CompletableFuture<CellStateResponse> recovery;
+    private static final long RECOVERY_TIMEOUT_SECONDS = 30;
     private static final Logger LOG = Logger.getLogger(CellState.class.getName());
 
     CellState(NotebookCell notebookCell, TextDocumentItem details, String notebookUri) {
@@ -82,34 +91,111 @@ public class CellState {
         return notebookUri;
     }
 
-    public void setContent(String newContent, int newVersion) throws InterruptedException, ExecutionException {
-        VersionAwareContent currentContent = content.get();
+    public void setContent(String newContent, int newVersion) {
+        setContent(CellText.of(newContent), newVersion);
+    }
+
+    void setContent(CellText newContent, int newVersion) {
+        applyEdit(newVersion, current -> newContent);
+    }
 
-        if (currentContent.getVersion() != newVersion - 1) {
-            if (currentContent.getVersion() >= newVersion) {
+    /**
+     * Applies the edit turning the previous version of the content into the
+     * new version.
+     *
+     * An edit not following the current version, or failing, is buffered
+     * and the latest content is requested from the client without waiting
+     * for it. The edits following the version received are applied once it
+     * arrives, and edits arriving meanwhile are buffered, so that one
+     * request is pending at a time. The content read meanwhile is the last
+     * consistent version.
+     *
+     * @param edit computes the new version of the content from the previous
+     * one
+     * @throws IllegalStateException when the latest content cannot be
+     * requested from the client
+     */
+    void applyEdit(int newVersion, UnaryOperator<CellText> edit) {
+        synchronized (pendingEdits) {
+            VersionAwareContent currentContent = content.get();
+            if (newVersion <= currentContent.getVersion()) {
                 LOG.warning("Current version is higher or equal than the new version request received, so ignoring it.");
                 return;
             }
-            CompletableFuture<CellStateResponse> response = requestLatestCellState();
-            if (response == null) {
-                throw new IllegalStateException("Unable to send notebook cell state request to the client");
+            if (recovery == null && newVersion == currentContent.getVersion() + 1) {
+                try {
+                    content.set(new VersionAwareContent(edit.apply(currentContent.getText()), newVersion, currentContent));
+                    return;
+                } catch (RuntimeException ex) {
+                    // the latest content requested includes the edit
+                    LOG.log(Level.WARNING, "Unable to apply version {0} of cell {1}: {2}", new Object[]{newVersion, cellUri, ex});
+                }
+            } else {
+                pendingEdits.put(newVersion, edit);
+            }
+            if (recovery == null) {
+                requestRecovery();
             }
+        }
+    }
 
-            CellStateResponse newCellState = response.get();
-            int receivedVersion = newCellState.getVersion();
+    /**
+     * Called with the lock of the pending edits held.
+     */
+    private void requestRecovery() {
+        CompletableFuture<CellStateResponse> response = requestLatestCellState();
+        if (response == null) {
+            pendingEdits.clear();
+            throw new IllegalStateException("Unable to send notebook cell state request to the client");
+        }
+        recovery = response;
+        response.orTimeout(RECOVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((newCellState, error) -> recovered(response, newCellState, error));
+    }
 
+    private void recovered(CompletableFuture<CellStateResponse> response, CellStateResponse newCellState, Throwable error) {
+        synchronized (pendingEdits) {
+            if (recovery != response) {
+                return;
+            }
+            recovery = null;
+            if (error != null || newCellState == null) {
+                LOG.log(Level.WARNING, "Unable to get the latest content of cell {0}: {1}", new Object[]{cellUri, error});
+                pendingEdits.clear();
+                return;
+            }
+            VersionAwareContent initialContent = content.get();
+            VersionAwareContent currentContent = initialContent;
+            int receivedVersion = newCellState.getVersion();
             if (receivedVersion > currentContent.getVersion()) {
-                VersionAwareContent newVersionContent = new VersionAwareContent(NotebookUtils.normalizeLineEndings(newCellState.getText()), receivedVersion);
-                content.updateAndGet(current -> current != currentContent && receivedVersion <= current.getVersion() ? current : newVersionContent);
+                currentContent = new VersionAwareContent(NotebookUtils.normalizeLineEndings(newCellState.getText()), receivedVersion, currentContent);
+                pendingEdits.headMap(receivedVersion, true).clear();
             } else {
                 LOG.log(Level.WARNING, "Version mismatch: Received version to be greater than current version, received version:  {0}, current version: {1}", new Object[]{receivedVersion, currentContent.getVersion()});
             }
-        } else {
-            // newContent is already normalized during applyChanges
-            VersionAwareContent newVersionContent = new VersionAwareContent(newContent, newVersion);
-
-            if (!content.compareAndSet(currentContent, newVersionContent)) {
-                LOG.log(Level.WARNING, "Concurrent modification detected. Version expected: {0}, current: {1}", new Object[]{newVersion - 1, content.get().getVersion()});
+            boolean failed = false;
+            while (!pendingEdits.isEmpty() && pendingEdits.firstKey() == currentContent.getVersion() + 1) {
+                Map.Entry<Integer, UnaryOperator<CellText>> next = pendingEdits.pollFirstEntry();
+                try {
+                    currentContent = new VersionAwareContent(next.getValue().apply(currentContent.getText()), next.getKey(), currentContent);
+                } catch (RuntimeException ex) {
+                    LOG.log(Level.WARNING, "Unable to apply version {0} of cell {1}: {2}", new Object[]{next.getKey(), cellUri, ex});
+                    failed = true;
+                    break;
+                }
+            }
+            if (currentContent == initialContent) {
+                // no progress, which another request would not make either
+                pendingEdits.clear();
+                return;
+            }
+            content.set(currentContent);
+            if (failed || !pendingEdits.isEmpty()) {
+                try {
+                    requestRecovery();
+                } catch (IllegalStateException ex) {
+                    LOG.log(Level.WARNING, "Unable to get the latest content of cell {0}: {1}", new Object[]{cellUri, ex.getMessage()});
+                }
             }
         }
     }
@@ -123,8 +209,31 @@ public class CellState {
         if (newCellState.getVersion() <= 0) {
             throw new IllegalStateException("Received incorrect version number: " + newCellState.getVersion());
         }
-        VersionAwareContent newVersionContent = new VersionAwareContent(NotebookUtils.normalizeLineEndings(newCellState.getText()), newCellState.getVersion());
-        content.set(newVersionContent);
+        synchronized (pendingEdits) {
+            VersionAwareContent newVersionContent = new VersionAwareContent(NotebookUtils.normalizeLineEndings(newCellState.getText()), newCellState.getVersion(), content.get());
+            content.set(newVersionContent);
+            pendingEdits.headMap(newCellState.getVersion(), true).clear();
+        }
+    }
+
+    /**
+     * @return current content of the cell, without copying it into a string
+     */
+    CellText getText() {
+        return content.get().getText();
+    }
+
+    /**
+     * @return snippets of the current content of the cell, or {@code null}
+     * when the content is not the given code
+     */
+    SnippetIndex getSnippetIndex(SourceCodeAnalysis analysis, String code) {
+        VersionAwareContent current = content.get();
+        return current.getContent().equals(code) ? current.getSnippetIndex(analysis) : null;
+    }
+
+    SnippetIndex getSnippetIndex(SourceCodeAnalysis analysis) {
+        return content.get().getSnippetIndex(analysis);
     }
 
     public void setExecutionSummary(ExecutionSummary executionSummary) {
@@ -152,16 +261,63 @@ public class CellState {
 
     protected class VersionAwareContent {
 
-        private final String content;
+        private final CellText text;
         private final int version;
+        private volatile String content;
+        private SnippetIndex baseIndex;
+        private SnippetIndex snippetIndex;
 
         public VersionAwareContent(String content, int version) {
+            this(content, version, null);
+        }
+
+        VersionAwareContent(String content, int version, VersionAwareContent previous) {
+            this(CellText.of(content), version, previous);
             this.content = content;
+        }
+
+        /**
+         * @param previous content this one replaces, whose snippets are
+         * reused when indexing this content, may be {@code null}
+         */
+        VersionAwareContent(CellText text, int version, VersionAwareContent previous) {
+            this.text = text;
             this.version = version;
+            if (previous != null) {
+                synchronized (previous) {
+                    this.baseIndex = previous.snippetIndex != null ? previous.snippetIndex : previous.baseIndex;
+                }
+            }
+        }
+
+        /**
+         * Computed once per version, incrementally from the last index
+         * computed for an earlier version of the cell.
+         */
+        synchronized SnippetIndex getSnippetIndex(SourceCodeAnalysis analysis) {
+            if (snippetIndex == null) {
+                String code = getContent();
+                snippetIndex = baseIndex != null ? SnippetIndex.update(baseIndex, analysis, code) : SnippetIndex.build(analysis, code);
+                baseIndex = null;
+            }
+            return snippetIndex;
         }
 
+        /**
+         * Copies the text into a string on first use, which edits of the
+         * cell do not need.
+         */
         public String getContent() {
-            return content;
+            String copy = content;
+            if (copy == null) {
+                copy = text.toString();
+                content = copy;
+            }
+            return copy;
+        }
+
+        CellText getText() {
+            return text;
         }
 
         public int getVersion() {
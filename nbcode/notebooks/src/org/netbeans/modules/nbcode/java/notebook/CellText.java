@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import org.eclipse.lsp4j.Position;
+import org.netbeans.api.annotations.common.NonNull;
+
+/**
+ * Immutable text of a cell, with normalized line endings, stored as a
+ * balanced tree of chunks of text.
+ *
+ * Every node knows the length of its text and the number of line endings in
+ * it, so edits and conversions between positions and offsets take time
+ * logarithmic in the length of the text, and an edited text shares all the
+ * unchanged chunks with the text it was edited from. The text is only
+ * copied into a {@link String} by {@link #toString()}.
+ */
+final class CellText {
+
+    private static final int MAX_LEAF = 512;
+    private static final CellText EMPTY = new CellText(new Leaf(""));
+
+    private final Node root;
+
+    private CellText(Node root) {
+        this.root = root;
+    }
+
+    static CellText of(String text) {
+        return text == null || text.isEmpty() ? EMPTY : new CellText(build(text, 0, text.length()));
+    }
+
+    int length() {
+        return root.length;
+    }
+
+    /**
+     * Same as {@link NotebookUtils#getOffset(String, Position)} on the
+     * text.
+     */
+    int getOffset(Position position) {
+        if (position == null || position.getLine() < 0) {
+            return 0;
+        }
+        int line = position.getLine();
+        if (line > root.breaks) {
+            return root.length;
+        }
+        return getOffset(line, Math.max(0, position.getCharacter()));
+    }
+
+    /**
+     * Same as {@link NotebookUtils#getPosition(String, int)} on the text.
+     */
+    Position getPosition(int offset) {
+        if (offset < 0) {
+            return new Position(0, 0);
+        }
+        offset = Math.min(offset, root.length);
+        int line = getLineBreaksBefore(offset);
+        if (offset < root.length && getLineBreaksBefore(offset + 1) > line) {
+            return new Position(line + 1, 0);
+        }
+        return new Position(line, offset - getLineStart(line));
+    }
+
+    /**
+     * Same as {@link NotebookUtils#applyChange(String, Position, Position, String)}
+     * on the text.
+     *
+     * @return the changed text
+     * @throws IllegalArgumentException - when the supplied diff range is
+     * invalid
+     */
+    CellText applyChange(@NonNull Position start, @NonNull Position end, @NonNull String replacement) throws IllegalArgumentException {
+        int startLine = start.getLine();
+        int startLineOffset = start.getCharacter();
+        int endLine = end.getLine();
+        int endLineOffset = end.getCharacter();
+
+        if (startLine < 0 || endLine < startLine || (endLine == startLine && endLineOffset < startLineOffset)) {
+            throw new IllegalArgumentException("Invalid range positions");
+        }
+        if (replacement.length() == 0 && startLine == endLine && startLineOffset == endLineOffset) {
+            return this; // Nothing to be done; no addition nor deletion
+        }
+        if (startLine > root.breaks) {
+            throw new IllegalArgumentException("Invalid range start out of bounds");
+        }
+        if (endLine > root.breaks) {
+            throw new IllegalArgumentException("Invalid range end out of bounds");
+        }
+        int startOffset = getOffset(startLine, Math.max(0, startLineOffset));
+        int endOffset = getOffset(endLine, Math.max(0, endLineOffset));
+        return replace(startOffset, Math.max(startOffset, endOffset), NotebookUtils.normalizeLineEndings(replacement));
+    }
+
+    /**
+     * @return the text with the characters from {@code start} to
+     * {@code end} replaced
+     */
+    CellText replace(int start, int end, String replacement) {
+        Node replaced = join(join(take(root, start), build(replacement, 0, replacement.length())), drop(root, end));
+        return new CellText(replaced);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(root.length);
+        root.appendTo(text);
+        return text.toString();
+    }
+
+    /**
+     * @param line line of the text, at most the number of line endings
+     * @return offset of the character, or of the end of the line when the
+     * line is shorter
+     */
+    private int getOffset(int line, int character) {
+        int lineStart = getLineStart(line);
+        int lineEnd = line < root.breaks ? getLineStart(line + 1) - 1 : root.length;
+        return lineStart + Math.min(character, lineEnd - lineStart);
+    }
+
+    /**
+     * @return offset of the first character of the line
+     */
+    private int getLineStart(int line) {
+        if (line == 0) {
+            return 0;
+        }
+        Node node = root;
+        int offset = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (line <= branch.left.breaks) {
+                node = branch.left;
+            } else {
+                line -= branch.left.breaks;
+                offset += branch.left.length;
+                node = branch.right;
+            }
+        }
+        String text = ((Leaf) node).text;
+        int lineEnd = -1;
+        for (int i = 0; i < line; i++) {
+            lineEnd = text.indexOf('\n', lineEnd + 1);
+        }
+        return offset + lineEnd + 1;
+    }
+
+    /**
+     * @return number of line endings before the offset
+     */
+    private int getLineBreaksBefore(int offset) {
+        Node node = root;
+        int breaks = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (offset <= branch.left.length) {
+                node = branch.left;
+            } else {
+                offset -= branch.left.length;
+                breaks += branch.left.breaks;
+                node = branch.right;
+            }
+        }
+        String text = ((Leaf) node).text;
+        for (int i = 0; i < offset; i++) {
+            if (text.charAt(i) == '\n') {
+                breaks++;
+            }
+        }
+        return breaks;
+    }
+
+    private static Node build(String text, int from, int to) {
+        if (to - from <= MAX_LEAF) {
+            return new Leaf(text.substring(from, to));
+        }
+        int middle = (from + to) >>> 1;
+        return new Branch(build(text, from, middle), build(text, middle, to));
+    }
+
+    /**
+     * @return the first {@code count} characters of the node
+     */
+    private static Node take(Node node, int count) {
+        if (count >= node.length) {
+            return node;
+        }
+        if (count <= 0) {
+            return EMPTY.root;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(((Leaf) node).text.substring(0, count));
+        }
+        Branch branch = (Branch) node;
+        if (count <= branch.left.length) {
+            return take(branch.left, count);
+        }
+        return join(branch.left, take(branch.right, count - branch.left.length));
+    }
+
+    /**
+     * @return the node without its first {@code count} characters
+     */
+    private static Node drop(Node node, int count) {
+        if (count <= 0) {
+            return node;
+        }
+        if (count >= node.length) {
+            return EMPTY.root;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(((Leaf) node).text.substring(count));
+        }
+        Branch branch = (Branch) node;
+        if (count >= branch.left.length) {
+            return drop(branch.right, count - branch.left.length);
+        }
+        return join(drop(branch.left, count), branch.right);
+    }
+
+    /**
+     * Concatenates the nodes, descending along the side of the taller one
+     * until the heights match, rebalancing on the way back.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.length + right.length <= MAX_LEAF) {
+            return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+        }
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * @return branch of the nodes, rotated when their heights differ by two
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private abstract static class Node {
+
+        final int length;
+        final int breaks;
+        final int height;
+
+        Node(int length, int breaks, int height) {
+            this.length = length;
+            this.breaks = breaks;
+            this.height = height;
+        }
+
+        abstract void appendTo(StringBuilder text);
+    }
+
+    private static final class Leaf extends Node {
+
+        private final String text;
+
+        Leaf(String text) {
+            super(text.length(), countLineBreaks(text), 0);
+            this.text = text;
+        }
+
+        private static int countLineBreaks(String text) {
+            int breaks = 0;
+            for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+                breaks++;
+            }
+            return breaks;
+        }
+
+        @Override
+        void appendTo(StringBuilder text) {
+            text.append(this.text);
+        }
+    }
+
+    private static final class Branch extends Node {
+
+        private final Node left;
+        private final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length, left.breaks + right.breaks, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void appendTo(StringBuilder text) {
+            left.appendTo(text);
+            right.appendTo(text);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Breakdown of where the time of a cell execution went. Sent to the client
+ * in the metadata of the final progress notification of the cell; all times
+ * are in milliseconds.
+ */
+final class CellTimings {
+
+    private double queueWait;
+    private double split;
+    private double compile;
+    private double load;
+    private double run;
+    private double flush;
+    private double total;
+    private Double cpuTime;
+    private final List<SnippetTimings> snippets = new ArrayList<>();
+
+    private final transient long queuedAt;
+    private transient long startedAt;
+    private transient long totalTime;
+
+    /**
+     * @param queuedAt {@link System#nanoTime()} when the cell was queued
+     */
+    CellTimings(long queuedAt) {
+        this.queuedAt = queuedAt;
+        this.startedAt = queuedAt;
+    }
+
+    void executionStarted() {
+        startedAt = System.nanoTime();
+        queueWait = toMillis(startedAt - queuedAt);
+    }
+
+    void setSplitTime(long nanos) {
+        split = toMillis(nanos);
+    }
+
+    /**
+     * Records the evaluation of a snippet.
+     *
+     * @param evalTime time spent in {@code JShell.eval}
+     * @param loadTime part of it spent loading classes into the kernel
+     * @param runTime part of it spent running the snippet
+     */
+    void addSnippet(long evalTime, long loadTime, long runTime) {
+        SnippetTimings snippet = new SnippetTimings(toMillis(Math.max(0, evalTime - loadTime - runTime)), toMillis(loadTime), toMillis(runTime));
+        snippets.add(snippet);
+        compile += snippet.compile;
+        load += snippet.load;
+        run += snippet.run;
+    }
+
+    void setFlushTime(long nanos) {
+        flush = toMillis(nanos);
+    }
+
+    /**
+     * @param nanos CPU time the remote VM of the kernel used during the
+     * execution
+     */
+    void setCpuTime(long nanos) {
+        cpuTime = toMillis(nanos);
+    }
+
+    void executionFinished() {
+        totalTime = System.nanoTime() - startedAt;
+        total = toMillis(totalTime);
+    }
+
+    /**
+     * @return nanoseconds from the start to the end of the execution
+     */
+    long getTotalTime() {
+        return totalTime;
+    }
+
+    double getQueueWait() {
+        return queueWait;
+    }
+
+    double getCompile() {
+        return compile;
+    }
+
+    double getRun() {
+        return run;
+    }
+
+    List<SnippetTimings> getSnippets() {
+        return snippets;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    static final class SnippetTimings {
+
+        private final double compile;
+        private final double load;
+        private final double run;
+
+        SnippetTimings(double compile, double load, double run) {
+            this.compile = compile;
+            this.load = load;
+            this.run = run;
+        }
+
+        double getCompile() {
+            return compile;
+        }
+
+        double getLoad() {
+            return load;
+        }
+
+        double getRun() {
+            return run;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer made of segments borrowed from a {@link SegmentPool}.
+ * Content is moved between buffers by handing over the segments instead of
+ * copying the bytes, and the segments go back to the pool on
+ * {@link #release()}.
+ *
+ * Not thread safe; the owner of the buffer is responsible for guarding it.
+ */
+public final class ChunkedBuffer {
+
+    private final SegmentPool pool;
+    private byte[][] segments = new byte[4][];
+    private int[] lengths = new int[4];
+    private int segmentCount;
+    private int size;
+
+    public ChunkedBuffer() {
+        this(SegmentPool.getInstance());
+    }
+
+    ChunkedBuffer(SegmentPool pool) {
+        this.pool = pool;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void write(int b) {
+        int last = writableSegment();
+        segments[last][lengths[last]++] = (byte) b;
+        size++;
+    }
+
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            int last = writableSegment();
+            int count = Math.min(len, SegmentPool.SEGMENT_SIZE - lengths[last]);
+            System.arraycopy(b, off, segments[last], lengths[last], count);
+            lengths[last] += count;
+            size += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Moves the content of the other buffer to the end of this one, leaving
+     * the other buffer empty.
+     */
+    public void append(ChunkedBuffer other) {
+        if (other == this || other.size == 0) {
+            return;
+        }
+        for (int i = 0; i < other.segmentCount; i++) {
+            addSegment(other.segments[i], other.lengths[i]);
+            other.segments[i] = null;
+        }
+        size += other.size;
+        other.segmentCount = 0;
+        other.size = 0;
+    }
+
+    /**
+     * @return the content of the buffer as a new array
+     */
+    public byte[] toByteArray() {
+        byte[] result = new byte[size];
+        int position = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            System.arraycopy(segments[i], 0, result, position, lengths[i]);
+            position += lengths[i];
+        }
+        return result;
+    }
+
+    /**
+     * Empties the buffer and returns its segments to the pool.
+     */
+    public void release() {
+        for (int i = 0; i < segmentCount; i++) {
+            pool.release(segments[i]);
+            segments[i] = null;
+        }
+        segmentCount = 0;
+        size = 0;
+    }
+
+    private int writableSegment() {
+        if (segmentCount == 0 || lengths[segmentCount - 1] == SegmentPool.SEGMENT_SIZE) {
+            addSegment(pool.acquire(), 0);
+        }
+        return segmentCount - 1;
+    }
+
+    private void addSegment(byte[] segment, int length) {
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+            lengths = Arrays.copyOf(lengths, segmentCount * 2);
+        }
+        segments[segmentCount] = segment;
+        lengths[segmentCount] = length;
+        segmentCount++;
+    }
+}
@@ -15,20 +15,31 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
+import com.google.gson.JsonObject;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jdk.jshell.JShell;
 import jdk.jshell.SourceCodeAnalysis;
+import jdk.jshell.SourceCodeAnalysis.Documentation;
 import jdk.jshell.SourceCodeAnalysis.Suggestion;
+import jdk.jshell.TypeDeclSnippet;
 import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.CompletionItemKind;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionParams;
-import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -37,6 +48,19 @@ import org.eclipse.lsp4j.jsonrpc.messages.Either;
 public class CodeCompletionProvider {
 
     private static final Logger LOG = Logger.getLogger(CodeCompletionProvider.class.getName());
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    private static final String DATA_NOTEBOOK_URI = "notebookUri";
+    private static final String DATA_CELL_URI = "notebookCellUri";
+    private static final String DATA_ANCHOR = "notebookAnchor";
+
+    // completions of a notebook are computed one after the other, those of
+    // different notebooks in parallel
+    private final Map<String, RequestProcessor> processors = new ConcurrentHashMap<>();
+    private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<JShell, AtomicLong> snippetGenerations = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<JShell, Map<String, String>> javadocCaches = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<String, CompletionRanking> rankings = new ConcurrentHashMap<>();
+    private final CompletionCache cache = new CompletionCache();
 
     private CodeCompletionProvider() {
     }
@@ -54,54 +78,342 @@ public class CodeCompletionProvider {
             CompletionParams params,
             NotebookDocumentStateManager state,
             JShell instance) {
+        return getCodeCompletions(params, state, instance, null);
+    }
+
+    /**
+     * Computes the completions on the completion thread of the notebook. A
+     * request still pending when a new one for the same cell arrives is
+     * cancelled: its thread is interrupted, and it stops at the next phase.
+     *
+     * @param shadow analysis context used instead of the kernel once it is
+     * started, so that completion does not wait for cells being evaluated,
+     * may be {@code null}
+     */
+    CompletableFuture<Either<List<CompletionItem>, CompletionList>> getCodeCompletions(
+            CompletionParams params,
+            NotebookDocumentStateManager state,
+            JShell instance,
+            ShadowAnalysis shadow) {
 
-        return CompletableFuture.supplyAsync(() -> {
+        if (instance == null || state == null) {
+            return CompletableFuture.completedFuture(Either.<List<CompletionItem>, CompletionList>forLeft(new ArrayList<>()));
+        }
+        String uri = params.getTextDocument().getUri();
+        String notebookUri = state.getNotebookDocument().getUri();
+        CompletableFuture<Either<List<CompletionItem>, CompletionList>> future = new CompletableFuture<>();
+        RequestProcessor processor = getProcessor(notebookUri);
+        PendingRequest request = new PendingRequest(future);
+        request.task = processor.create(() -> {
             try {
-                if (instance == null || state == null) {
-                    return Either.<List<CompletionItem>, CompletionList>forLeft(new ArrayList<>());
+                checkCancelled(future);
+                CellState.VersionAwareContent current = state.getCell(uri).getVersionAwareContent();
+                int cursorOffset = current.getText().getOffset(params.getPosition());
+                List<Suggestion> suggestions = shadow != null ? shadow.analyze(jshell -> getSuggestions(uri, current, cursorOffset, jshell, future)) : null;
+                if (suggestions == null) {
+                    suggestions = getSuggestions(uri, current, cursorOffset, instance, future);
                 }
-
-                SourceCodeAnalysis sourceCodeAnalysis = instance.sourceCodeAnalysis();
-                List<Suggestion> suggestions = getSuggestions(
-                        params.getTextDocument().getUri(),
-                        params.getPosition(),
-                        state,
-                        sourceCodeAnalysis
-                );
-
+                checkCancelled(future);
+                int anchorOffset = getIdentifierStart(current.getContent(), cursorOffset);
+                String prefix = current.getContent().substring(anchorOffset, cursorOffset);
+                int limit = NotebookConfigs.getInstance().getCompletionLimit();
+                List<Suggestion> ranked = getRanking(notebookUri).rank(suggestions, prefix, limit);
+                checkCancelled(future);
                 List<CompletionItem> completionItems = new ArrayList<>();
-                HashSet<String> visited = new HashSet<>();
-
-                for (Suggestion suggestion : suggestions) {
-                    String continuation = suggestion.continuation();
-                    if (visited.add(continuation)) {
-                        completionItems.add(createCompletionItem(continuation));
-                    }
+                for (Suggestion suggestion : ranked) {
+                    completionItems.add(createCompletionItem(suggestion, completionItems.size(), notebookUri, uri, anchorOffset));
                 }
-
-                return Either.<List<CompletionItem>, CompletionList>forLeft(completionItems);
-
+                // an incomplete list is requested again as the identifier
+                // is typed, which is answered from the cache
+                boolean incomplete = ranked.size() < suggestions.size();
+                future.complete(Either.<List<CompletionItem>, CompletionList>forRight(new CompletionList(incomplete, completionItems)));
+            } catch (CancellationException e) {
+                future.cancel(true);
             } catch (Exception e) {
                 LOG.log(Level.WARNING, "Error getting code completions: {0}", e.toString());
-                return Either.<List<CompletionItem>, CompletionList>forLeft(new ArrayList<>());
+                future.complete(Either.<List<CompletionItem>, CompletionList>forLeft(new ArrayList<>()));
+            } finally {
+                pendingRequests.remove(uri, request);
             }
         });
+        PendingRequest superseded = pendingRequests.put(uri, request);
+        if (superseded != null) {
+            superseded.cancel();
+        }
+        request.task.schedule(0);
+        return future;
+    }
+
+    private RequestProcessor getProcessor(String notebookUri) {
+        return processors.computeIfAbsent(notebookUri,
+                notebook -> new RequestProcessor(CodeCompletionProvider.class.getName(), 1, true, false));
+    }
+
+    /**
+     * @throws CancellationException when the request was superseded
+     */
+    private static void checkCancelled(CompletableFuture<?> future) {
+        if (Thread.interrupted() || future.isDone()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Records the identifiers used by code run in the notebook, which are
+     * ranked first among the completions of the notebook.
+     */
+    void recordExecution(String notebookUri, String code) {
+        getRanking(notebookUri).recordUse(code);
+    }
+
+    void forgetNotebook(String notebookUri) {
+        rankings.remove(notebookUri);
+        processors.remove(notebookUri);
+    }
+
+    private CompletionRanking getRanking(String notebookUri) {
+        return rankings.computeIfAbsent(notebookUri, uri -> new CompletionRanking());
     }
 
-    private CompletionItem createCompletionItem(String label) {
+    /**
+     * Creates an item with the label, kind and sort order only, the
+     * documentation is added on {@code completionItem/resolve}.
+     */
+    private CompletionItem createCompletionItem(Suggestion suggestion, int index, String notebookUri, String uri, int anchorOffset) {
+        String label = suggestion.continuation();
         CompletionItem item = new CompletionItem();
         item.setLabel(label);
+        item.setKind(suggestion instanceof KindedSuggestion ? ((KindedSuggestion) suggestion).kind : CompletionItemKind.Text);
+        item.setSortText(String.format("%05d", index));
+        JsonObject data = new JsonObject();
+        data.addProperty(DATA_NOTEBOOK_URI, notebookUri);
+        data.addProperty(DATA_CELL_URI, uri);
+        data.addProperty(DATA_ANCHOR, anchorOffset);
+        item.setData(data);
 
         return item;
     }
 
-    private List<Suggestion> getSuggestions(String uri, Position position, NotebookDocumentStateManager state, SourceCodeAnalysis sourceCodeAnalysis) {
-        CellState cellState = state.getCell(uri);
-        String content = cellState.getContent();
-        int cursorOffset = NotebookUtils.getOffset(content, position);
+    /**
+     * Derives the kind of the completed element from what JShell knows:
+     * methods and constructors are suggested with their parenthesis, and
+     * the kind of elements declared by snippets is that of their snippet.
+     * Other elements are told apart by the Java naming conventions.
+     *
+     * @param declared kinds of the elements declared by snippets, by name
+     * @param member whether the element is completed after a qualifier
+     */
+    private static CompletionItemKind getKind(String continuation, Map<String, CompletionItemKind> declared, boolean member) {
+        if (continuation.endsWith("(") || continuation.endsWith("()")) {
+            return CompletionItemKind.Method;
+        }
+        if (!member && declared.containsKey(continuation)) {
+            return declared.get(continuation);
+        }
+        if ("class".equals(continuation)) {
+            return CompletionItemKind.Keyword;
+        }
+        if (isConstantName(continuation)) {
+            return CompletionItemKind.Constant;
+        }
+        if (!continuation.isEmpty() && Character.isLowerCase(continuation.charAt(0))) {
+            return member ? CompletionItemKind.Field : CompletionItemKind.Variable;
+        }
+        return CompletionItemKind.Class;
+    }
+
+    private static boolean isConstantName(String name) {
+        boolean letters = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLowerCase(c) || !Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+            letters |= Character.isLetter(c);
+        }
+        return letters && name.length() > 1;
+    }
+
+    /**
+     * @return kinds of the types and variables declared by the active
+     * snippets of the JShell, by name
+     */
+    private static Map<String, CompletionItemKind> getDeclaredKinds(JShell instance) {
+        Map<String, CompletionItemKind> kinds = new HashMap<>();
+        instance.variables()
+                .filter(variable -> instance.status(variable).isActive())
+                .forEach(variable -> kinds.put(variable.name(), CompletionItemKind.Variable));
+        instance.types()
+                .filter(type -> instance.status(type).isActive())
+                .forEach(type -> kinds.put(type.name(), getKind(type)));
+        return kinds;
+    }
+
+    private static CompletionItemKind getKind(TypeDeclSnippet type) {
+        switch (type.subKind()) {
+            case INTERFACE_SUBKIND:
+            case ANNOTATION_TYPE_SUBKIND:
+                return CompletionItemKind.Interface;
+            case ENUM_SUBKIND:
+                return CompletionItemKind.Enum;
+            default:
+                return CompletionItemKind.Class;
+        }
+    }
+
+    /**
+     * @return whether the completed identifier follows a qualifier
+     */
+    private static boolean isMember(String content, int anchorOffset) {
+        int offset = anchorOffset;
+        while (offset > 0 && Character.isWhitespace(content.charAt(offset - 1))) {
+            offset--;
+        }
+        return offset > 0 && content.charAt(offset - 1) == '.';
+    }
+
+    private static JsonObject getData(CompletionItem item) {
+        Object data = item.getData();
+        if (data instanceof JsonObject) {
+            JsonObject object = (JsonObject) data;
+            if (object.has(DATA_NOTEBOOK_URI) && object.has(DATA_CELL_URI) && object.has(DATA_ANCHOR)) {
+                return object;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves an item sent back by the client in a command, which passes
+     * its label and data only.
+     */
+    CompletableFuture<CompletionItem> resolveCompletionItem(String label, JsonObject data) {
+        CompletionItem item = new CompletionItem(label);
+        item.setData(data);
+        return resolveCompletionItem(item);
+    }
+
+    /**
+     * Adds the signatures and the javadoc of the element completed by the
+     * item, computed with the same analysis context as the completion, on
+     * the completion thread of its notebook.
+     */
+    CompletableFuture<CompletionItem> resolveCompletionItem(CompletionItem item) {
+        JsonObject data = getData(item);
+        if (data == null) {
+            return CompletableFuture.completedFuture(item);
+        }
+        String notebookUri = data.get(DATA_NOTEBOOK_URI).getAsString();
+        CompletableFuture<CompletionItem> future = new CompletableFuture<>();
+        getProcessor(notebookUri).post(() -> {
+            try {
+                NotebookSessionManager sessions = NotebookSessionManager.getInstance();
+                NotebookDocumentStateManager state = sessions.getNotebookState(notebookUri);
+                CellState cellState = state != null ? state.getCell(data.get(DATA_CELL_URI).getAsString()) : null;
+                JShell instance = sessions.getLiveSession(notebookUri);
+                if (cellState != null && instance != null) {
+                    int anchorOffset = data.get(DATA_ANCHOR).getAsInt();
+                    ShadowAnalysis shadow = sessions.getShadowAnalysis(notebookUri);
+                    Boolean resolved = shadow != null ? shadow.analyze(jshell -> addDocumentation(item, cellState, anchorOffset, jshell)) : null;
+                    if (resolved == null) {
+                        addDocumentation(item, cellState, anchorOffset, instance);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Error resolving code completion: {0}", e.toString());
+            }
+            future.complete(item);
+        });
+        return future;
+    }
+
+    private boolean addDocumentation(CompletionItem item, CellState cellState, int anchorOffset, JShell instance) {
+        CellState.VersionAwareContent current = cellState.getVersionAwareContent();
+        String content = current.getContent();
+        if (anchorOffset > content.length()) {
+            return false;
+        }
+        // documentation of methods is looked up in their argument list,
+        // which lists all the overloads
+        String label = item.getLabel();
+        int parenthesis = label.indexOf('(');
+        String code = content.substring(0, anchorOffset) + (parenthesis >= 0 ? label.substring(0, parenthesis + 1) : label);
+        SourceCodeAnalysis sourceCodeAnalysis = instance.sourceCodeAnalysis();
+        List<String> snippets = SnippetIndex.update(current.getSnippetIndex(sourceCodeAnalysis), sourceCodeAnalysis, code).getSnippets();
+        String lastSnippet = snippets.isEmpty() ? "" : snippets.get(snippets.size() - 1);
+
+        List<Documentation> signatures = sourceCodeAnalysis.documentation(lastSnippet, lastSnippet.length(), false);
+        if (signatures.isEmpty()) {
+            return false;
+        }
+        Map<String, String> javadocs = getJavadocCache(instance);
+        List<String> details = new ArrayList<>();
+        List<String> javadocTexts = new ArrayList<>();
+        for (Documentation signature : signatures) {
+            String javadoc = javadocs.get(signature.signature());
+            if (javadoc == null) {
+                for (Documentation documentation : sourceCodeAnalysis.documentation(lastSnippet, lastSnippet.length(), true)) {
+                    javadocs.put(documentation.signature(), documentation.javadoc() != null ? documentation.javadoc().trim() : "");
+                }
+                javadoc = javadocs.getOrDefault(signature.signature(), "");
+            }
+            details.add(signature.signature());
+            if (!javadoc.isEmpty() && !javadocTexts.contains(javadoc)) {
+                javadocTexts.add(javadoc);
+            }
+        }
+        item.setDetail(String.join("\n", details));
+        if (!javadocTexts.isEmpty()) {
+            item.setDocumentation(String.join("\n\n", javadocTexts));
+        }
+        return true;
+    }
+
+    /**
+     * @return javadoc of the elements of the kernel, by their signatures
+     */
+    private Map<String, String> getJavadocCache(JShell instance) {
+        return javadocCaches.computeIfAbsent(instance, jshell -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @return offset of the start of the identifier ending at the offset
+     */
+    private static int getIdentifierStart(String content, int offset) {
+        int start = offset;
+        while (start > 0 && Character.isJavaIdentifierPart(content.charAt(start - 1))) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * @return generation of the snippets of the kernel, changing whenever
+     * the kernel evaluates a snippet
+     */
+    private long getSnippetGeneration(JShell instance) {
+        return snippetGenerations.computeIfAbsent(instance, jshell -> {
+            AtomicLong generation = new AtomicLong(GENERATIONS.incrementAndGet());
+            jshell.onSnippetEvent(event -> generation.set(GENERATIONS.incrementAndGet()));
+            return generation;
+        }).get();
+    }
+
+    private List<Suggestion> getSuggestions(String uri, CellState.VersionAwareContent current, int cursorOffset, JShell instance,
+            CompletableFuture<?> future) {
+        String content = current.getContent();
+        long generation = getSnippetGeneration(instance);
+        List<Suggestion> cached = cache.get(uri, current.getVersion(), generation, content, cursorOffset);
+        if (cached != null) {
+            return cached;
+        }
+
+        SourceCodeAnalysis sourceCodeAnalysis = instance.sourceCodeAnalysis();
         int[] anchor = new int[1];
         String offsetText = content.substring(0, cursorOffset);
-        List<String> snippets = NotebookUtils.getCodeSnippets(sourceCodeAnalysis, offsetText);
+        // the snippets of the text before the cursor are those of the whole
+        // cell, up to the one the cursor is in
+        List<String> snippets = SnippetIndex.update(current.getSnippetIndex(sourceCodeAnalysis), sourceCodeAnalysis, offsetText).getSnippets();
 
         String lastSnippet = snippets.isEmpty() ? "" : snippets.get(snippets.size()-1);
         List<Suggestion> suggestions = new ArrayList<>();
@@ -110,13 +422,69 @@ public class CodeCompletionProvider {
                 lastSnippet.length(),
                 anchor
         ));
+        int anchorOffset = cursorOffset - (lastSnippet.length() - anchor[0]);
         if (snippets.size() > 1) {
+            checkCancelled(future);
             suggestions.addAll(sourceCodeAnalysis.completionSuggestions(
                     offsetText,
                     offsetText.length(),
                     anchor
             ));
         }
-        return suggestions;
+
+        List<Suggestion> unique = new ArrayList<>();
+        HashSet<String> visited = new HashSet<>();
+        Map<String, CompletionItemKind> declared = getDeclaredKinds(instance);
+        boolean member = isMember(content, anchorOffset);
+        for (Suggestion suggestion : suggestions) {
+            if (visited.add(suggestion.continuation())) {
+                unique.add(new KindedSuggestion(suggestion, getKind(suggestion.continuation(), declared, member)));
+            }
+        }
+        cache.put(uri, current.getVersion(), generation, content, anchorOffset, cursorOffset, unique);
+        return unique;
+    }
+
+    /**
+     * Suggestion of JShell with the kind of the element it completes.
+     */
+    private static final class KindedSuggestion implements Suggestion {
+
+        private final Suggestion suggestion;
+        private final CompletionItemKind kind;
+
+        KindedSuggestion(Suggestion suggestion, CompletionItemKind kind) {
+            this.suggestion = suggestion;
+            this.kind = kind;
+        }
+
+        @Override
+        public String continuation() {
+            return suggestion.continuation();
+        }
+
+        @Override
+        public boolean matchesType() {
+            return suggestion.matchesType();
+        }
+    }
+
+    private static final class PendingRequest {
+
+        private final CompletableFuture<Either<List<CompletionItem>, CompletionList>> future;
+        private volatile RequestProcessor.Task task;
+
+        PendingRequest(CompletableFuture<Either<List<CompletionItem>, CompletionList>> future) {
+            this.future = future;
+        }
+
+        /**
+         * Completes the request as cancelled, and removes its task from the
+         * queue, or interrupts it when it is running.
+         */
+        void cancel() {
+            future.cancel(true);
+            task.cancel();
+        }
     }
 }
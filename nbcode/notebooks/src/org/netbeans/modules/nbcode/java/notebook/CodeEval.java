@@ -15,14 +15,20 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,18 +39,15 @@ import jdk.jshell.Diag;
 import jdk.jshell.EvalException;
 import jdk.jshell.JShell;
 import jdk.jshell.JShellException;
+import jdk.jshell.Snippet.Status;
 import jdk.jshell.Snippet.SubKind;
 import jdk.jshell.SourceCodeAnalysis;
 import jdk.jshell.SnippetEvent;
 import org.eclipse.lsp4j.MessageParams;
 import org.eclipse.lsp4j.MessageType;
-import org.netbeans.modules.java.lsp.server.notebook.CellExecutionResult;
-import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams;
-import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams.Builder;
 import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams.EXECUTION_STATUS;
 import org.netbeans.modules.java.lsp.server.protocol.NbCodeLanguageClient;
 import org.openide.util.NbBundle;
-import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -75,10 +78,12 @@ public class CodeEval {
     private static final String CODE_EXEC_INTERRUPTED_MESSAGE = Bundle.MSG_InterruptCodeCellInfo();
     private static final String RESTART_NOTEBOOK_SESSION_MESSAGE = Bundle.MSG_NotebookRestartSession();
     private static final Pattern LINEBREAK = Pattern.compile("\\R");
+    private static final int MAX_OUTPUT_PAGE_SIZE = 1024 * 1024;
 
-    private final Map<String, RequestProcessor> codeExecMap = new ConcurrentHashMap<>();
     private final Map<String, List<CompletableFuture<Boolean>>> pendingTasks = new ConcurrentHashMap<>();
     private final Map<String, String> activeCellExecutionMapping = new ConcurrentHashMap<>();
+    private final Map<String, CellProgressAggregator> progressAggregators = new ConcurrentHashMap<>();
+    private final Map<String, ExecutionHistogram> executionHistograms = new ConcurrentHashMap<>();
 
     public static CodeEval getInstance() {
         return Singleton.instance;
@@ -89,11 +94,11 @@ public class CodeEval {
         private static final CodeEval instance = new CodeEval();
     }
 
-    public BiConsumer<String, byte[]> outStreamFlushCb = (notebookId, msg) -> {
+    public BiConsumer<String, ChunkedBuffer> outStreamFlushCb = (notebookId, msg) -> {
         sendNotification(notebookId, msg, EXECUTION_STATUS.EXECUTING, false);
     };
 
-    public BiConsumer<String, byte[]> errStreamFlushCb = (notebookId, msg) -> {
+    public BiConsumer<String, ChunkedBuffer> errStreamFlushCb = (notebookId, msg) -> {
         sendNotification(notebookId, msg, EXECUTION_STATUS.EXECUTING, true);
     };
 
@@ -113,14 +118,15 @@ public class CodeEval {
         return interruptCodeExecution(notebookId);
     }
 
-    private String interruptCodeExecution(String notebookId) {
+    String interruptCodeExecution(String notebookId) {
         try {
-            JShell jshell = NotebookSessionManager.getInstance().getSession(notebookId);
+            JShell jshell = NotebookSessionManager.getInstance().getLiveSession(notebookId);
             String cellId = activeCellExecutionMapping.get(notebookId);
             if (cellId != null) {
                 sendNotification(notebookId, cellId, EXECUTION_STATUS.INTERRUPTED);
             }
             flushStreams(notebookId);
+            KernelDispatcher.getInstance().cancel(notebookId);
             List<CompletableFuture<Boolean>> tasks = pendingTasks.get(notebookId);
             if (tasks != null) {
                 tasks.forEach(task -> {
@@ -133,11 +139,6 @@ public class CodeEval {
             if (jshell != null) {
                 jshell.stop();
             }
-            RequestProcessor executor = codeExecMap.get(notebookId);
-            if (executor != null) {
-                executor.shutdownNow();
-                codeExecMap.remove(notebookId);
-            }
             activeCellExecutionMapping.remove(notebookId);
 
             return CODE_EXEC_INTERRUPT_SUCCESS_MESSAGE;
@@ -147,6 +148,34 @@ public class CodeEval {
         }
     }
 
+    /**
+     * Reads back output of a cell that was not sent to the client because it
+     * exceeded the output budget of the cell.
+     *
+     * @param arguments notebook URI, cell URI, whether to read the error
+     * stream, offset within the output of the cell and maximum length
+     * @return the page, or {@code null} when no output of the cell was
+     * spilled
+     */
+    CellOutputSpill.Page getSpilledOutput(List<Object> arguments) throws IOException {
+        String notebookId = NotebookUtils.getArgument(arguments, 0, String.class);
+        String cellId = NotebookUtils.getArgument(arguments, 1, String.class);
+        Boolean isError = NotebookUtils.getArgument(arguments, 2, Boolean.class);
+        Number offset = NotebookUtils.getArgument(arguments, 3, Number.class);
+        Number length = NotebookUtils.getArgument(arguments, 4, Number.class);
+
+        if (notebookId == null || cellId == null) {
+            throw new IllegalArgumentException("notebookId or cellId are not present in cell output request");
+        }
+        JshellStreamsHandler streamsHandler = NotebookSessionManager.getInstance().getJshellStreamsHandler(notebookId);
+        if (streamsHandler == null) {
+            return null;
+        }
+        int maxLength = length == null ? MAX_OUTPUT_PAGE_SIZE : Math.max(0, Math.min(length.intValue(), MAX_OUTPUT_PAGE_SIZE));
+        return streamsHandler.readSpilledOutput(cellId, Boolean.TRUE.equals(isError),
+                offset == null ? 0 : Math.max(0, offset.longValue()), maxLength);
+    }
+
     public CompletableFuture<Boolean> evaluate(List<Object> arguments) {
         if (arguments == null) {
             LOG.warning("Empty arguments received in code cell evaluate request");
@@ -162,44 +191,227 @@ public class CodeEval {
             return CompletableFuture.completedFuture(false);
         }
 
+        long queuedAt = System.nanoTime();
+        boolean restoring = NotebookSessionManager.getInstance().isHibernated(notebookId);
+        CompletableFuture<JShell> sessionFuture = getSessionFuture(notebookId, cellId, restoring);
+        if (sessionFuture == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
+        pendingTasks.computeIfAbsent(notebookId, k -> new CopyOnWriteArrayList<>()).add(resultFuture);
+
+        return sessionFuture.thenCompose(jshell -> {
+            if (!restoring) {
+                sendNotification(notebookId, cellId, EXECUTION_STATUS.QUEUED);
+            }
+            KernelDispatcher.getInstance().submit(notebookId, () -> codeEvalTaskRunnable(resultFuture, jshell, notebookId, cellId, sourceCode, queuedAt));
+            return resultFuture;
+        });
+    }
+
+    /**
+     * Evaluates several cells of a notebook with a single request. All the
+     * cells are queued at once and their progress is reported through the
+     * usual cell execution notifications. Unless asked to continue on failure,
+     * the cells following the first one that failed, or reported errors, are
+     * skipped.
+     *
+     * @param arguments notebook URI, array of {@code [cellUri, sourceCode]}
+     * pairs in execution order, and an optional continue on failure flag
+     * @return {@code true} when every cell was executed without errors
+     */
+    public CompletableFuture<Boolean> evaluateCells(List<Object> arguments) {
+        if (arguments == null) {
+            LOG.warning("Empty arguments received in code cells evaluate request");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        String notebookId = NotebookUtils.getArgument(arguments, 0, String.class);
+        JsonArray cells = NotebookUtils.getArgument(arguments, 1, JsonArray.class);
+        boolean continueOnFailure = Boolean.TRUE.equals(NotebookUtils.getArgument(arguments, 2, Boolean.class));
+
+        if (notebookId == null || cells == null) {
+            LOG.warning("notebookId or cells are not present in code cells evaluation request");
+            return CompletableFuture.completedFuture(false);
+        }
+        List<String[]> cellSources = new ArrayList<>(cells.size());
+        for (JsonElement cell : cells) {
+            if (!cell.isJsonArray() || cell.getAsJsonArray().size() < 2) {
+                LOG.warning("Invalid cell received in code cells evaluation request");
+                return CompletableFuture.completedFuture(false);
+            }
+            JsonArray pair = cell.getAsJsonArray();
+            cellSources.add(new String[]{pair.get(0).getAsString(), pair.get(1).getAsString()});
+        }
+
+        long queuedAt = System.nanoTime();
+        boolean restoring = !cellSources.isEmpty() && NotebookSessionManager.getInstance().isHibernated(notebookId);
+        CompletableFuture<JShell> sessionFuture = getSessionFuture(notebookId, restoring ? cellSources.get(0)[0] : null, restoring);
+        if (sessionFuture == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        List<CompletableFuture<Boolean>> cellFutures = new ArrayList<>(cellSources.size());
+        List<CompletableFuture<Boolean>> tasks = pendingTasks.computeIfAbsent(notebookId, k -> new CopyOnWriteArrayList<>());
+        for (int i = 0; i < cellSources.size(); i++) {
+            CompletableFuture<Boolean> cellFuture = new CompletableFuture<>();
+            tasks.add(cellFuture);
+            cellFutures.add(cellFuture);
+        }
+
+        return sessionFuture.thenCompose(jshell -> {
+            AtomicBoolean failed = new AtomicBoolean();
+            for (int i = 0; i < cellSources.size(); i++) {
+                String cellId = cellSources.get(i)[0];
+                String sourceCode = cellSources.get(i)[1];
+                CompletableFuture<Boolean> cellFuture = cellFutures.get(i);
+                if (i > 0 || !restoring) {
+                    sendNotification(notebookId, cellId, EXECUTION_STATUS.QUEUED);
+                }
+                KernelDispatcher.getInstance().submit(notebookId, () -> {
+                    if (failed.get() && !continueOnFailure) {
+                        skipCellTask(cellFuture, notebookId);
+                    } else if (!codeEvalTaskRunnable(cellFuture, jshell, notebookId, cellId, sourceCode, queuedAt)) {
+                        failed.set(true);
+                    }
+                });
+            }
+            return CompletableFuture.allOf(cellFutures.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> !failed.get());
+        });
+    }
+
+    /**
+     * @param restoring whether the kernel is hibernated; the replay of its
+     * state is then reported as the execution of the given cell
+     */
+    private CompletableFuture<JShell> getSessionFuture(String notebookId, String cellId, boolean restoring) {
+        if (restoring) {
+            sendNotification(notebookId, cellId, EXECUTION_STATUS.QUEUED);
+            sendNotification(notebookId, cellId, EXECUTION_STATUS.EXECUTING);
+        }
         CompletableFuture<JShell> sessionFuture = NotebookSessionManager.getInstance().getSessionFuture(notebookId);
         if (sessionFuture == null) {
             LOG.warning("notebook session not found");
+            if (restoring) {
+                sendNotification(notebookId, cellId, EXECUTION_STATUS.FAILURE);
+            }
             NbCodeLanguageClient client = LanguageClientInstance.getInstance().getClient();
             if (client != null) {
                 client.showMessage(new MessageParams(MessageType.Error, RESTART_NOTEBOOK_SESSION_MESSAGE));
             }
-            return CompletableFuture.completedFuture(false);
+        } else if (restoring) {
+            sessionFuture.whenComplete((jshell, ex) -> {
+                if (ex != null) {
+                    sendNotification(notebookId, cellId, EXECUTION_STATUS.FAILURE);
+                }
+            });
         }
+        return sessionFuture;
+    }
 
-        CompletableFuture<Boolean> resultFuture = new CompletableFuture<>();
-        pendingTasks.computeIfAbsent(notebookId, k -> new ArrayList<>()).add(resultFuture);
+    /**
+     * @return a sample of the resource usage of the kernel, while the client
+     * keeps requesting samples; {@code null} otherwise
+     */
+    private KernelMetrics.Sample sampleKernel(String notebookId) {
+        KernelMetrics metrics = NotebookSessionManager.getInstance().getKernelMetrics(notebookId);
+        if (metrics == null) {
+            return null;
+        }
+        try {
+            return metrics.sampleIfRequested();
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot sample kernel of notebook {0}: {1}", new Object[]{notebookId, ex.getMessage()});
+            return null;
+        }
+    }
 
-        return sessionFuture.thenCompose(jshell -> {
-            sendNotification(notebookId, cellId, EXECUTION_STATUS.QUEUED);
-            getCodeExec(notebookId).submit(() -> codeEvalTaskRunnable(resultFuture, jshell, notebookId, cellId, sourceCode));
-            return resultFuture;
-        });
+    /**
+     * @return durations of the recent cell executions of the notebook, or
+     * {@code null} when no cell was executed yet
+     */
+    ExecutionHistogram.Snapshot getExecutionHistogram(String notebookId) {
+        if (notebookId == null) {
+            throw new IllegalArgumentException("notebookId is required");
+        }
+        ExecutionHistogram histogram = executionHistograms.get(notebookId);
+        return histogram != null ? histogram.snapshot() : null;
     }
 
-    private void codeEvalTaskRunnable(CompletableFuture<Boolean> future, JShell jshell, String notebookId, String cellId, String sourceCode) {
+    /**
+     * @return {@code true} when the notebook has no cell executing or queued
+     */
+    boolean isIdle(String notebookId) {
+        List<CompletableFuture<Boolean>> tasks = pendingTasks.get(notebookId);
+        return !activeCellExecutionMapping.containsKey(notebookId)
+                && (tasks == null || tasks.isEmpty())
+                && KernelDispatcher.getInstance().getPendingCount(notebookId) == 0;
+    }
+
+    private void skipCellTask(CompletableFuture<Boolean> future, String notebookId) {
+        List<CompletableFuture<Boolean>> tasks = pendingTasks.get(notebookId);
+        if (tasks != null) {
+            tasks.remove(future);
+        }
+        future.complete(false);
+    }
+
+    /**
+     * @return {@code true} when the cell was executed without errors
+     */
+    private boolean codeEvalTaskRunnable(CompletableFuture<Boolean> future, JShell jshell, String notebookId, String cellId, String sourceCode, long queuedAt) {
         try {
+            if (future.isDone()) {
+                // interrupted before the task could start
+                return false;
+            }
             if (jshell == null) {
                 future.completeExceptionally(new IllegalStateException("notebook session not found or closed"));
-                return;
+                return false;
             }
             activeCellExecutionMapping.put(notebookId, cellId);
             sendNotification(notebookId, EXECUTION_STATUS.EXECUTING);
+            CellTimings timings = new CellTimings(queuedAt);
+            timings.executionStarted();
+            KernelMetrics.Sample before = sampleKernel(notebookId);
 
-            runCode(jshell, sourceCode, notebookId);
+            JshellStreamsHandler streamsHandler = NotebookSessionManager.getInstance().getJshellStreamsHandler(notebookId);
+            if (streamsHandler != null) {
+                streamsHandler.startCell(cellId, NotebookConfigs.getInstance().getCellOutputLimit() * 1024L);
+            }
+            boolean succeeded;
+            long flushStart;
+            try {
+                succeeded = runCode(jshell, sourceCode, notebookId, timings);
+            } finally {
+                flushStart = System.nanoTime();
+                if (streamsHandler != null) {
+                    streamsHandler.finishCell();
+                }
+            }
             flushStreams(notebookId);
-            sendNotification(notebookId, EXECUTION_STATUS.SUCCESS);
+            timings.setFlushTime(System.nanoTime() - flushStart);
+
+            KernelMetrics.Sample after = before != null ? sampleKernel(notebookId) : null;
+            Map<String, Object> metadata = new HashMap<>();
+            if (after != null) {
+                timings.setCpuTime(after.getCpuTime() - before.getCpuTime());
+                metadata.put("kernelMetrics", after);
+            }
+            timings.executionFinished();
+            metadata.put("timings", timings);
+            executionHistograms.computeIfAbsent(notebookId, id -> new ExecutionHistogram()).record(timings.getTotalTime());
+            sendNotification(notebookId, EXECUTION_STATUS.SUCCESS, metadata);
 
             future.complete(true);
+            return succeeded;
         } catch (Exception e) {
             LOG.log(Level.WARNING, "Exception occurred while code evaluation: " + e.getMessage(), e);
             sendNotification(notebookId, EXECUTION_STATUS.FAILURE);
             future.completeExceptionally(e);
+            return false;
         } finally {
             List<CompletableFuture<Boolean>> tasks = pendingTasks.get(notebookId);
             if (tasks != null) {
@@ -209,17 +421,77 @@ public class CodeEval {
         }
     }
 
+    /**
+     * Splits the code of a cell using the index kept with the cell, when the
+     * code is its current content.
+     */
+    private List<String> getCodeSnippets(SourceCodeAnalysis analysis, String code, String notebookId, String cellId) {
+        if (cellId != null) {
+            NotebookDocumentStateManager state = NotebookSessionManager.getInstance().getNotebookState(notebookId);
+            CellState cell = state != null ? state.getCell(cellId) : null;
+            SnippetIndex index = cell != null ? cell.getSnippetIndex(analysis, NotebookUtils.normalizeLineEndings(code)) : null;
+            if (index != null) {
+                return index.getSnippets();
+            }
+        }
+        return NotebookUtils.getCodeSnippets(analysis, code);
+    }
+
     public void runCode(JShell jshell, String code) {
         runCode(jshell, code, null);
     }
 
-    public void runCode(JShell jshell, String code, String notebookId) {
+    /**
+     * @return {@code false} when a snippet of the code was rejected or threw
+     * an exception
+     */
+    public boolean runCode(JShell jshell, String code, String notebookId) {
+        return runCode(jshell, code, notebookId, null);
+    }
+
+    /**
+     * @param timings receives the time spent in each phase, may be
+     * {@code null}
+     */
+    boolean runCode(JShell jshell, String code, String notebookId, CellTimings timings) {
         try {
+            long splitStart = System.nanoTime();
             SourceCodeAnalysis analysis = jshell.sourceCodeAnalysis();
-            List<String> snippets = NotebookUtils.getCodeSnippets(analysis, code);
+            String cellId = notebookId != null ? activeCellExecutionMapping.get(notebookId) : null;
+            List<String> snippets = getCodeSnippets(analysis, code, notebookId, cellId);
+            TimedExecutionControl.Times times = null;
+            if (timings != null) {
+                timings.setSplitTime(System.nanoTime() - splitStart);
+                times = NotebookSessionManager.getInstance().getExecutionTimes(notebookId);
+            }
+            SessionJournal journal = cellId != null ? NotebookSessionManager.getInstance().getJournal(notebookId) : null;
+            List<SnippetEvent> cellEvents = new ArrayList<>();
+            boolean succeeded = true;
 
             for (String snippet : snippets) {
-                for (SnippetEvent event : jshell.eval(snippet)) {
+                long evalStart = System.nanoTime();
+                long loadTime = times != null ? times.getLoadTime() : 0;
+                long runTime = times != null ? times.getRunTime() : 0;
+                List<SnippetEvent> events = jshell.eval(snippet);
+                if (timings != null) {
+                    long evalTime = System.nanoTime() - evalStart;
+                    timings.addSnippet(evalTime,
+                            times != null ? times.getLoadTime() - loadTime : 0,
+                            times != null ? times.getRunTime() - runTime : 0);
+                }
+                cellEvents.addAll(events);
+                if (notebookId != null) {
+                    NotebookSessionManager.getInstance().mirrorEvaluation(notebookId, events);
+                }
+                if (journal != null) {
+                    journal.update(events);
+                }
+                if (!isSuccessful(events)) {
+                    succeeded = false;
+                } else if (journal != null) {
+                    journal.record(cellId, snippet, events);
+                }
+                for (SnippetEvent event : events) {
                     if (notebookId != null) {
                         sendNotification(notebookId, getRuntimeErrors(event), EXECUTION_STATUS.EXECUTING, true);
                         sendNotification(notebookId, getCompilationErrors(jshell, event), EXECUTION_STATUS.EXECUTING, true);
@@ -230,18 +502,32 @@ public class CodeEval {
                     }
                 }
             }
+            // bookkeeping of the language server, not part of any timed phase
+            if (notebookId != null) {
+                CodeCompletionProvider.getInstance().recordExecution(notebookId, code);
+            }
+            if (cellId != null) {
+                NotebookSessionManager.getInstance().getDependencyGraph(notebookId).recordEvaluation(jshell, cellId, cellEvents);
+            }
+            return succeeded;
         } catch (IllegalStateException e) {
             LOG.log(Level.SEVERE, "Error while evaluation of the code : {0}", e.getMessage());
             throw new IllegalStateException(e);
         }
     }
 
-    private RequestProcessor getCodeExec(String notebookId) {
-        return codeExecMap.computeIfAbsent(notebookId, (id) -> {
-            return new RequestProcessor("Jshell Code Evaluator for notebookId: " + id, 1, true, true);
-        });
+    /**
+     * @return {@code false} when a snippet was rejected or threw an exception
+     */
+    static boolean isSuccessful(List<SnippetEvent> events) {
+        for (SnippetEvent event : events) {
+            if (event.status() == Status.REJECTED || event.exception() != null) {
+                return false;
+            }
+        }
+        return true;
     }
-    
+
     // Made package-private for easy unit test
     List<String> getCompilationErrors(JShell jshell, SnippetEvent event) {
         List<String> compilationErrors = new ArrayList<>();
@@ -468,15 +754,47 @@ public class CodeEval {
         return toDisplay;
     }
 
+    private CellProgressAggregator getProgressAggregator(String notebookId) {
+        return progressAggregators.computeIfAbsent(notebookId, id -> new CellProgressAggregator(id, params -> {
+            NbCodeLanguageClient client = LanguageClientInstance.getInstance().getClient();
+            if (client != null) {
+                client.notifyNotebookCellExecutionProgress(params);
+            }
+        }));
+    }
+
+    /**
+     * Sends the output still pending for the notebook and forgets its
+     * notification aggregator and execution statistics.
+     */
+    void closeProgressAggregator(String notebookId) {
+        executionHistograms.remove(notebookId);
+        CellProgressAggregator aggregator = progressAggregators.remove(notebookId);
+        if (aggregator != null) {
+            aggregator.flush();
+            LOG.log(Level.FINE, "Progress notifications of {0}: {1} sent, {2} coalesced",
+                    new Object[]{notebookId, aggregator.getSentCount(), aggregator.getCoalescedCount()});
+        }
+    }
+
     private void sendNotification(String notebookId, EXECUTION_STATUS status) {
         sendNotification(notebookId, null, null, null, null, status, false);
     }
 
+    private void sendNotification(String notebookId, EXECUTION_STATUS status, Object metadata) {
+        String cellId = activeCellExecutionMapping.get(notebookId);
+        if (cellId == null) {
+            LOG.log(Level.SEVERE, "Active cell Id not found while sending code eval notification for {0}", notebookId);
+            return;
+        }
+        getProgressAggregator(notebookId).statusChanged(cellId, status, metadata);
+    }
+
     private void sendNotification(String notebookId, String cellId, EXECUTION_STATUS status) {
         sendNotification(notebookId, cellId, null, null, null, status, false);
     }
 
-    private void sendNotification(String notebookId, byte[] msg, EXECUTION_STATUS status, boolean isError) {
+    private void sendNotification(String notebookId, ChunkedBuffer msg, EXECUTION_STATUS status, boolean isError) {
         sendNotification(notebookId, null, msg, null, null, status, isError);
     }
 
@@ -491,7 +809,7 @@ public class CodeEval {
         }
     }
 
-    private void sendNotification(String notebookId, String cellId, byte[] msg, List<String> diags, List<String> errorDiags, EXECUTION_STATUS status, boolean isError) {
+    private void sendNotification(String notebookId, String cellId, ChunkedBuffer msg, List<String> diags, List<String> errorDiags, EXECUTION_STATUS status, boolean isError) {
         try {
             if (cellId == null) {
                 cellId = activeCellExecutionMapping.get(notebookId);
@@ -500,22 +818,17 @@ public class CodeEval {
                 }
             }
 
-            Builder b = NotebookCellExecutionProgressResultParams.builder(notebookId, cellId).status(status);
-            if (msg == null) {
-                if (diags != null) {
-                    b.diagnostics(diags);
-                } else if (errorDiags != null) {
-                    b.errorDiagnostics(errorDiags);
-                }
+            CellProgressAggregator aggregator = getProgressAggregator(notebookId);
+            if (status != EXECUTION_STATUS.EXECUTING) {
+                aggregator.statusChanged(cellId, status);
+            } else if (msg != null) {
+                aggregator.addOutput(cellId, msg, isError);
+            } else if (diags != null) {
+                aggregator.addDiagnostics(cellId, diags, false);
+            } else if (errorDiags != null) {
+                aggregator.addDiagnostics(cellId, errorDiags, true);
             } else {
-                b = isError
-                        ? b.errorStream(CellExecutionResult.text(msg))
-                        : b.outputStream(CellExecutionResult.text(msg));
-            }
-            NotebookCellExecutionProgressResultParams params = b.build();
-            NbCodeLanguageClient client = LanguageClientInstance.getInstance().getClient();
-            if (client != null) {
-                client.notifyNotebookCellExecutionProgress(params);
+                aggregator.statusChanged(cellId, status);
             }
         } catch (Exception ex) {
             LOG.log(Level.SEVERE, "Some error ocurred while sending code eval notification to the client {0}", ex.getMessage());
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jshell.SourceCodeAnalysis.Suggestion;
+
+/**
+ * Last completion computed for each cell, keyed by the version of the cell,
+ * the position of the completed identifier and the snippet-state generation
+ * of the kernel.
+ *
+ * While the identifier is being typed, the suggestions for a longer prefix
+ * are those computed for the shorter one starting with the longer prefix, so
+ * they are narrowed from the cached ones instead of being computed again.
+ * The cached suggestions are sorted by continuation, which makes the ones
+ * starting with a prefix a range found by binary search.
+ */
+final class CompletionCache {
+
+    private static final int MAX_CELLS = 64;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_CELLS;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param content content of the cell at the given version
+     * @return suggestions for the cursor, or {@code null} when they are not
+     * cached
+     */
+    List<Suggestion> get(String cellUri, int version, long generation, String content, int cursorOffset) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(cellUri);
+        }
+        List<Suggestion> suggestions = entry != null ? entry.suggestionsFor(version, generation, content, cursorOffset) : null;
+        (suggestions != null ? hits : misses).incrementAndGet();
+        return suggestions;
+    }
+
+    /**
+     * @param anchorOffset offset of the start of the completed identifier
+     */
+    void put(String cellUri, int version, long generation, String content, int anchorOffset, int cursorOffset, List<Suggestion> suggestions) {
+        if (anchorOffset < 0 || anchorOffset > cursorOffset || !isIdentifierPart(content, anchorOffset, cursorOffset)) {
+            return;
+        }
+        List<Suggestion> sorted = new ArrayList<>(suggestions);
+        sorted.sort(Comparator.comparing(Suggestion::continuation));
+        Entry entry = new Entry(version, generation, content.substring(0, cursorOffset), anchorOffset, Collections.unmodifiableList(sorted));
+        synchronized (entries) {
+            entries.put(cellUri, entry);
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private static boolean isIdentifierPart(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+
+        private final int version;
+        private final long generation;
+        private final String textBeforeCursor;
+        private final int anchorOffset;
+        private final List<Suggestion> suggestions;
+
+        Entry(int version, long generation, String textBeforeCursor, int anchorOffset, List<Suggestion> suggestions) {
+            this.version = version;
+            this.generation = generation;
+            this.textBeforeCursor = textBeforeCursor;
+            this.anchorOffset = anchorOffset;
+            this.suggestions = suggestions;
+        }
+
+        List<Suggestion> suggestionsFor(int version, long generation, String content, int cursorOffset) {
+            if (generation != this.generation) {
+                return null;
+            }
+            int cachedCursor = textBeforeCursor.length();
+            if (version == this.version && cursorOffset == cachedCursor) {
+                return suggestions;
+            }
+            if (cursorOffset < cachedCursor
+                    || !content.regionMatches(0, textBeforeCursor, 0, cachedCursor)
+                    || !isIdentifierPart(content, cachedCursor, cursorOffset)) {
+                return null;
+            }
+            String prefix = content.substring(anchorOffset, cursorOffset);
+            int from = firstNotBefore(prefix);
+            int to = from;
+            while (to < suggestions.size() && suggestions.get(to).continuation().startsWith(prefix)) {
+                to++;
+            }
+            return suggestions.subList(from, to);
+        }
+
+        /**
+         * @return index of the first suggestion whose continuation does not
+         * sort before the prefix
+         */
+        private int firstNotBefore(String prefix) {
+            int low = 0;
+            int high = suggestions.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (suggestions.get(middle).continuation().compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
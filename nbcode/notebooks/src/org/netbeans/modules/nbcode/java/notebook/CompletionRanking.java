@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import jdk.jshell.SourceCodeAnalysis.Suggestion;
+
+/**
+ * Orders the completion suggestions of a notebook, best first: the ones
+ * naming exactly the typed prefix, then the ones matching the expected type,
+ * then the identifiers used most recently in code run in the notebook, and
+ * shorter names before longer ones.
+ */
+final class CompletionRanking {
+
+    private static final int MAX_IDENTIFIERS = 1024;
+    private static final Comparator<Candidate> ORDER = Comparator
+            .comparing((Candidate candidate) -> !candidate.exact)
+            .thenComparing(candidate -> !candidate.suggestion.matchesType())
+            .thenComparing(candidate -> -candidate.lastUse)
+            .thenComparingInt(candidate -> candidate.name.length())
+            .thenComparing(candidate -> candidate.suggestion.continuation());
+
+    private final Map<String, Long> lastUses = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_IDENTIFIERS;
+        }
+    };
+    private long uses;
+
+    /**
+     * Records the identifiers of code run in the notebook as used.
+     */
+    synchronized void recordUse(String code) {
+        int length = code.length();
+        for (int i = 0; i < length; i++) {
+            if (Character.isJavaIdentifierStart(code.charAt(i))) {
+                int start = i;
+                while (i + 1 < length && Character.isJavaIdentifierPart(code.charAt(i + 1))) {
+                    i++;
+                }
+                String identifier = code.substring(start, i + 1);
+                // re-inserted, so that the least recently used are evicted
+                lastUses.remove(identifier);
+                lastUses.put(identifier, ++uses);
+            }
+        }
+    }
+
+    /**
+     * @param prefix the part of the completed identifier typed so far
+     * @param limit maximum number of suggestions returned, {@code 0} when
+     * unlimited
+     * @return the best suggestions, ordered
+     */
+    List<Suggestion> rank(List<Suggestion> suggestions, String prefix, int limit) {
+        List<Candidate> candidates = new ArrayList<>(suggestions.size());
+        synchronized (this) {
+            for (Suggestion suggestion : suggestions) {
+                String continuation = suggestion.continuation();
+                int parenthesis = continuation.indexOf('(');
+                String name = parenthesis >= 0 ? continuation.substring(0, parenthesis) : continuation;
+                candidates.add(new Candidate(suggestion, name, name.equals(prefix), lastUses.getOrDefault(name, 0L)));
+            }
+        }
+        if (limit > 0 && candidates.size() > limit) {
+            // keeps the best ones, the worst of them on top
+            PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, ORDER.reversed());
+            for (Candidate candidate : candidates) {
+                best.add(candidate);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            candidates = new ArrayList<>(best);
+        }
+        candidates.sort(ORDER);
+        List<Suggestion> ranked = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            ranked.add(candidate.suggestion);
+        }
+        return ranked;
+    }
+
+    private static final class Candidate {
+
+        private final Suggestion suggestion;
+        private final String name;
+        private final boolean exact;
+        private final long lastUse;
+
+        Candidate(Suggestion suggestion, String name, boolean exact, long lastUse) {
+            this.suggestion = suggestion;
+            this.name = name;
+            this.exact = exact;
+            this.lastUse = lastUse;
+        }
+    }
+}
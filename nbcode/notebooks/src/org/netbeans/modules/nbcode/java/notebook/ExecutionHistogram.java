@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distribution of the durations of the most recent cell executions of a
+ * notebook. Durations are counted in buckets whose upper bounds are powers
+ * of two milliseconds.
+ */
+final class ExecutionHistogram {
+
+    static final int DEFAULT_WINDOW = 256;
+    private static final int BUCKETS = 18;
+
+    private final long[] window;
+    private final int[] buckets = new int[BUCKETS];
+    private int next;
+    private int count;
+
+    ExecutionHistogram() {
+        this(DEFAULT_WINDOW);
+    }
+
+    ExecutionHistogram(int windowSize) {
+        this.window = new long[windowSize];
+    }
+
+    /**
+     * Records the duration, in nanoseconds, of an execution. Once the window
+     * is full, the oldest execution is forgotten.
+     */
+    synchronized void record(long nanos) {
+        if (count == window.length) {
+            buckets[bucketOf(window[next])]--;
+        } else {
+            count++;
+        }
+        window[next] = nanos;
+        buckets[bucketOf(nanos)]++;
+        next = (next + 1) % window.length;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] durations = new long[count];
+        for (int i = 0; i < count; i++) {
+            durations[i] = window[(next - count + i + window.length) % window.length];
+        }
+        Arrays.sort(durations);
+        List<Bucket> nonEmpty = new ArrayList<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i] > 0) {
+                nonEmpty.add(new Bucket(i == BUCKETS - 1 ? null : 1L << i, buckets[i]));
+            }
+        }
+        return new Snapshot(count, percentile(durations, 50), percentile(durations, 90),
+                percentile(durations, 99), count == 0 ? 0 : toMillis(durations[count - 1]), nonEmpty);
+    }
+
+    private static int bucketOf(long nanos) {
+        long millis = nanos / 1_000_000;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return toMillis(sorted[Math.max(0, index)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Durations are in milliseconds.
+     */
+    static final class Snapshot {
+
+        private final int count;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+        private final List<Bucket> buckets;
+
+        Snapshot(int count, double p50, double p90, double p99, double max, List<Bucket> buckets) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        double getP50() {
+            return p50;
+        }
+
+        double getP90() {
+            return p90;
+        }
+
+        double getP99() {
+            return p99;
+        }
+
+        double getMax() {
+            return max;
+        }
+
+        List<Bucket> getBuckets() {
+            return buckets;
+        }
+    }
+
+    /**
+     * Number of executions shorter than the upper bound, in milliseconds, and
+     * not counted by a lower bucket. The last bucket has no upper bound.
+     */
+    static final class Bucket {
+
+        private final Long lessThan;
+        private final int count;
+
+        Bucket(Long lessThan, int count) {
+            this.lessThan = lessThan;
+            this.count = count;
+        }
+
+        Long getLessThan() {
+            return lessThan;
+        }
+
+        int getCount() {
+            return count;
+        }
+    }
+}
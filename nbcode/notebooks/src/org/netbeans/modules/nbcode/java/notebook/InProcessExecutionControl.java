@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.execution.LoaderDelegate;
+import jdk.jshell.execution.LocalExecutionControl;
+import jdk.jshell.spi.ExecutionControl;
+import jdk.jshell.spi.ExecutionControlProvider;
+import jdk.jshell.spi.ExecutionEnv;
+
+/**
+ * Runs the snippets of a kernel in the language server process, each kernel
+ * loading its classes through a class loader of its own. This avoids
+ * starting a remote VM and marshalling every invocation to it, at the price
+ * of isolation: snippets share the heap and the JDK of the server. Only meant
+ * for trusted notebooks.
+ *
+ * The streams of the process are left alone: the classes of the kernel,
+ * snippets and class path alike, are loaded with their uses of
+ * {@code System.out}, {@code System.err}, {@code System.in} and
+ * {@code System.exit} redirected to {@link SnippetSystem}, which routes the
+ * streams to the kernel and refuses to exit. Code going around it, such as
+ * {@code Runtime.exit}, {@code Runtime.halt} or native code, still stops the
+ * server. Only the class path of the remote VM options is honored, other
+ * options need a separate VM.
+ */
+final class InProcessExecutionControl implements ExecutionControl {
+
+    private static final Logger LOG = Logger.getLogger(InProcessExecutionControl.class.getName());
+    private static final String CLASS_PATH = "--class-path";
+
+    private final ExecutionControl delegate;
+    private final ExecutionEnv env;
+    private final KernelClassLoader loader;
+
+    private InProcessExecutionControl(KernelLoaderDelegate loaderDelegate, ExecutionEnv env) {
+        this.delegate = new LocalExecutionControl(loaderDelegate);
+        this.env = env;
+        this.loader = loaderDelegate.loader;
+    }
+
+    static ExecutionControlProvider provider() {
+        return new ExecutionControlProvider() {
+            @Override
+            public String name() {
+                return "inProcess";
+            }
+
+            @Override
+            public ExecutionControl generate(ExecutionEnv env, Map<String, String> parameters) throws Throwable {
+                ExecutionControl control = new InProcessExecutionControl(new KernelLoaderDelegate(), env);
+                List<String> options = env.extraRemoteVMOptions();
+                for (int i = 0; i < options.size(); i++) {
+                    if (CLASS_PATH.equals(options.get(i)) && i + 1 < options.size()) {
+                        control.addToClasspath(options.get(++i));
+                    } else if (options.get(i).startsWith("--")) {
+                        LOG.log(Level.FINE, "Option {0} is ignored by the in-process execution engine", options.get(i));
+                    }
+                }
+                return control;
+            }
+        };
+    }
+
+    @Override
+    public void load(ClassBytecodes[] cbcs) throws ClassInstallException, NotImplementedException, EngineTerminationException {
+        delegate.load(cbcs);
+    }
+
+    @Override
+    public void redefine(ClassBytecodes[] cbcs) throws ClassInstallException, NotImplementedException, EngineTerminationException {
+        delegate.redefine(cbcs);
+    }
+
+    @Override
+    public String invoke(String className, String methodName) throws RunException, EngineTerminationException, InternalException {
+        // the thread running the snippet is started from this one, and
+        // inherits the environment and the context class loader
+        return runInKernel(() -> delegate.invoke(className, methodName));
+    }
+
+    @Override
+    public String varValue(String className, String varName) throws RunException, EngineTerminationException, InternalException {
+        // toString() of the value runs on this thread
+        return runInKernel(() -> delegate.varValue(className, varName));
+    }
+
+    private String runInKernel(KernelCall call) throws RunException, EngineTerminationException, InternalException {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        SnippetSystem.setCurrentEnv(env);
+        thread.setContextClassLoader(loader);
+        try {
+            return call.run();
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+            SnippetSystem.setCurrentEnv(null);
+        }
+    }
+
+    @Override
+    public void addToClasspath(String path) throws EngineTerminationException, InternalException {
+        delegate.addToClasspath(path);
+    }
+
+    @Override
+    public void stop() throws EngineTerminationException, InternalException {
+        delegate.stop();
+    }
+
+    @Override
+    public Object extensionCommand(String command, Object arg) throws RunException, EngineTerminationException, InternalException {
+        return delegate.extensionCommand(command, arg);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private interface KernelCall {
+
+        String run() throws RunException, EngineTerminationException, InternalException;
+    }
+
+    /**
+     * Loads the classes of a kernel as the default delegate of JShell does,
+     * through a {@link KernelClassLoader}.
+     */
+    private static final class KernelLoaderDelegate implements LoaderDelegate {
+
+        private final KernelClassLoader loader = new KernelClassLoader();
+        private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+        @Override
+        public void load(ClassBytecodes[] cbcs) throws ClassInstallException, EngineTerminationException {
+            boolean[] loaded = new boolean[cbcs.length];
+            try {
+                for (ClassBytecodes cbc : cbcs) {
+                    loader.declare(cbc.name(), cbc.bytecodes());
+                }
+                for (int i = 0; i < cbcs.length; i++) {
+                    Class<?> klass = loader.loadClass(cbcs[i].name());
+                    classes.put(cbcs[i].name(), klass);
+                    loaded[i] = true;
+                    // have the class prepared, as the default delegate does
+                    klass.getDeclaredMethods();
+                }
+            } catch (Throwable ex) {
+                throw new ClassInstallException("load: " + ex.getMessage(), loaded);
+            }
+        }
+
+        @Override
+        public void classesRedefined(ClassBytecodes[] cbcs) {
+            for (ClassBytecodes cbc : cbcs) {
+                loader.declare(cbc.name(), cbc.bytecodes());
+            }
+        }
+
+        @Override
+        public void addToClasspath(String path) throws EngineTerminationException, InternalException {
+            try {
+                for (String entry : path.split(File.pathSeparator)) {
+                    loader.addURL(new File(entry).toURI().toURL());
+                }
+            } catch (Exception ex) {
+                throw new InternalException(ex.toString());
+            }
+        }
+
+        @Override
+        public Class<?> findClass(String name) throws ClassNotFoundException {
+            Class<?> klass = classes.get(name);
+            if (klass == null) {
+                throw new ClassNotFoundException(name + " not found");
+            }
+            return klass;
+        }
+    }
+
+    /**
+     * Loads the snippets and the class path of a kernel, with
+     * {@link SnippetClassRewriter rewritten} references to {@link System}.
+     * Other classes come from the system class loader, not from the modules
+     * of the server.
+     */
+    private static final class KernelClassLoader extends URLClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final Map<String, byte[]> declared = new ConcurrentHashMap<>();
+
+        KernelClassLoader() {
+            super(new URL[0], ClassLoader.getSystemClassLoader());
+        }
+
+        void declare(String name, byte[] bytes) {
+            declared.put(name, bytes);
+        }
+
+        @Override
+        protected void addURL(URL url) {
+            super.addURL(url);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (SnippetSystem.class.getName().equals(name)) {
+                return SnippetSystem.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = declared.get(name);
+            if (bytes == null) {
+                URL url = findResource(name.replace('.', '/') + ".class");
+                if (url == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                try (InputStream in = url.openStream()) {
+                    bytes = in.readAllBytes();
+                } catch (IOException ex) {
+                    throw new ClassNotFoundException(name, ex);
+                }
+            }
+            try {
+                bytes = SnippetClassRewriter.rewrite(bytes);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.FINE, "Unable to rewrite class " + name + ", loading it as is", ex);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -31,20 +31,21 @@ import java.util.logging.Logger;
 public class JshellStreamsHandler implements AutoCloseable {
 
     private static final Logger LOG = Logger.getLogger(JshellStreamsHandler.class.getName());
-    private final String notebookId;
+    private volatile String notebookId;
+    private volatile boolean muted;
     private final StreamingOutputStream outStream;
     private final StreamingOutputStream errStream;
     private final PrintStream printOutStream;
     private final PrintStream printErrStream;
     private final InputStream inputStream;
 
-    public JshellStreamsHandler(String notebookId, BiConsumer<String, byte[]> streamCallback) {
+    public JshellStreamsHandler(String notebookId, BiConsumer<String, ChunkedBuffer> streamCallback) {
         this(notebookId, streamCallback, streamCallback);
     }
 
     public JshellStreamsHandler(String notebookId,
-            BiConsumer<String, byte[]> outStreamCallback,
-            BiConsumer<String, byte[]> errStreamCallback) {
+            BiConsumer<String, ChunkedBuffer> outStreamCallback,
+            BiConsumer<String, ChunkedBuffer> errStreamCallback) {
         if (notebookId == null || notebookId.trim().isEmpty()) {
             throw new IllegalArgumentException("Notebook Id cannot be null or empty");
         }
@@ -57,8 +58,12 @@ public class JshellStreamsHandler implements AutoCloseable {
         this.inputStream = new CustomInputStream(LanguageClientInstance.getInstance().getClient());
     }
 
-    private Consumer<byte[]> createCallback(BiConsumer<String, byte[]> callback) {
-        return callback != null ? output -> callback.accept(notebookId, output) : null;
+    private Consumer<ChunkedBuffer> createCallback(BiConsumer<String, ChunkedBuffer> callback) {
+        return callback != null ? output -> {
+            if (!muted) {
+                callback.accept(notebookId, output);
+            }
+        } : null;
     }
 
     public PrintStream getPrintOutStream() {
@@ -77,6 +82,26 @@ public class JshellStreamsHandler implements AutoCloseable {
         return notebookId;
     }
 
+    /**
+     * Routes the output of these streams to another notebook. Used when a
+     * pre-launched kernel is handed over to the notebook that leased it.
+     */
+    void bindNotebook(String notebookId) {
+        if (notebookId == null || notebookId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Notebook Id cannot be null or empty");
+        }
+        this.notebookId = notebookId;
+    }
+
+    /**
+     * Drops, instead of sending, the output written while muted. Used while
+     * a new kernel is bootstrapped, or the state of a hibernated kernel is
+     * being replayed.
+     */
+    void setMuted(boolean muted) {
+        this.muted = muted;
+    }
+
     public void flushOutputStreams() {
         try {
             outStream.flush();
@@ -90,6 +115,44 @@ public class JshellStreamsHandler implements AutoCloseable {
         }
     }
 
+    /**
+     * Starts counting the output of the cell against the budget.
+     *
+     * @param budget maximum number of bytes sent per stream for the cell,
+     * {@code 0} for no limit
+     */
+    void startCell(String cellId, long budget) {
+        outStream.startCell(cellId, budget);
+        errStream.startCell(cellId, budget);
+    }
+
+    /**
+     * Sends the tail of the output of the current cell that exceeded its
+     * budget.
+     */
+    void finishCell() {
+        outStream.finishCell();
+        errStream.finishCell();
+    }
+
+    /**
+     * Reads back output of the cell that exceeded its budget.
+     *
+     * @return the page, or {@code null} when no output of the cell was
+     * spilled
+     */
+    CellOutputSpill.Page readSpilledOutput(String cellId, boolean isError, long offset, int length) throws IOException {
+        return (isError ? errStream : outStream).readSpilledOutput(cellId, offset, length);
+    }
+
+    /**
+     * Drops output that has been written but not yet sent to the client.
+     */
+    public void discardOutputStreams() {
+        outStream.discard();
+        errStream.discard();
+    }
+
     @Override
     public void close() {
         try {
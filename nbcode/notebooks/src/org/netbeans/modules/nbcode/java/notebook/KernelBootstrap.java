@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.SourceCodeAnalysis;
+
+/**
+ * Brings a new kernel into the state every notebook starts from: the
+ * implicit imports, followed by the configured startup snippets.
+ *
+ * Each import is a snippet of its own: JShell keys an import snippet by its
+ * first import only, so a batch of imports would be replaced as a whole, and
+ * the other imports lost, once the user imports its first element again. The
+ * bootstrap runs when a kernel is launched, ahead of its first cell for
+ * pooled kernels, rather than by compiling the imports together.
+ *
+ * Startup snippets are compiled in batches: consecutive statements and
+ * expressions are evaluated as one block, and only declarations, which must
+ * stay visible to the cells, are evaluated one by one.
+ */
+final class KernelBootstrap {
+
+    private static final Logger LOG = Logger.getLogger(KernelBootstrap.class.getName());
+    private static final List<String> DEFAULT_IMPORTS = List.of("java.util.*", "java.io.*", "java.math.*");
+    private static volatile KernelBootstrap current;
+
+    private final List<String> importedElements;
+    private final List<String> imports = new ArrayList<>();
+    private final List<String> startupSnippets;
+
+    /**
+     * @param importedElements elements to import, as in
+     * {@link NotebookConfigs#getImplicitImports()}
+     */
+    KernelBootstrap(List<String> importedElements, List<String> startupSnippets) {
+        this.importedElements = List.copyOf(importedElements);
+        this.startupSnippets = List.copyOf(startupSnippets);
+        for (String element : importedElements) {
+            String trimmed = element.trim();
+            if (trimmed.endsWith(";")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 1);
+            }
+            if (!trimmed.isEmpty()) {
+                imports.add("import " + trimmed + ";");
+            }
+        }
+    }
+
+    /**
+     * @return the bootstrap of the current configuration, shared by all
+     * kernels started while the configuration does not change
+     */
+    static KernelBootstrap getCurrent() {
+        NotebookConfigs configs = NotebookConfigs.getInstance();
+        List<String> imports = configs.getImplicitImports();
+        if (imports == null || imports.isEmpty()) {
+            imports = DEFAULT_IMPORTS;
+        }
+        List<String> startupSnippets = configs.getStartupSnippets();
+        KernelBootstrap bootstrap = current;
+        if (bootstrap == null || !bootstrap.importedElements.equals(imports) || !bootstrap.startupSnippets.equals(startupSnippets)) {
+            bootstrap = new KernelBootstrap(imports, startupSnippets);
+            current = bootstrap;
+        }
+        return bootstrap;
+    }
+
+    /**
+     * Evaluates the imports and startup snippets in the kernel. Output of the
+     * startup snippets is discarded, and snippets that fail are logged and
+     * skipped. A statement that throws also skips the statements after it in
+     * its block.
+     */
+    void run(JShell jshell, JshellStreamsHandler streamsHandler) {
+        long start = System.nanoTime();
+        streamsHandler.setMuted(true);
+        try {
+            runImports(jshell);
+            runStartupSnippets(jshell);
+        } finally {
+            streamsHandler.flushOutputStreams();
+            streamsHandler.setMuted(false);
+        }
+        LOG.log(Level.FINE, "Bootstrapped notebook kernel in {0} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void runStartupSnippets(JShell jshell) {
+        SourceCodeAnalysis analysis = jshell.sourceCodeAnalysis();
+        List<String> statements = new ArrayList<>();
+        for (String code : startupSnippets) {
+            for (String snippet : NotebookUtils.getCodeSnippets(analysis, code)) {
+                if (isStatement(analysis, snippet)) {
+                    statements.add(snippet);
+                } else {
+                    runStatements(jshell, statements);
+                    statements.clear();
+                    eval(jshell, snippet);
+                }
+            }
+        }
+        runStatements(jshell, statements);
+    }
+
+    /**
+     * Evaluates the statements as one block. When the block does not
+     * compile, for instance because of an expression that is no statement,
+     * nothing of it ran and the statements are evaluated one by one instead.
+     */
+    private static void runStatements(JShell jshell, List<String> statements) {
+        if (statements.size() < 2) {
+            statements.forEach(statement -> eval(jshell, statement));
+            return;
+        }
+        StringBuilder block = new StringBuilder("{\n");
+        for (String statement : statements) {
+            block.append(statement);
+            if (!statement.trim().endsWith(";")) {
+                block.append(';');
+            }
+            block.append('\n');
+        }
+        block.append('}');
+        List<SnippetEvent> events = jshell.eval(block.toString());
+        if (events.stream().anyMatch(event -> event.status() == Snippet.Status.REJECTED)) {
+            statements.forEach(statement -> eval(jshell, statement));
+        } else if (!CodeEval.isSuccessful(events)) {
+            LOG.log(Level.WARNING, "Startup snippets of notebook kernel failed: {0}", block);
+        }
+    }
+
+    private static boolean isStatement(SourceCodeAnalysis analysis, String snippet) {
+        List<Snippet> parsed = analysis.sourceToSnippets(snippet);
+        if (parsed.size() != 1) {
+            return false;
+        }
+        Snippet.Kind kind = parsed.get(0).kind();
+        return kind == Snippet.Kind.STATEMENT || kind == Snippet.Kind.EXPRESSION;
+    }
+
+    private static void eval(JShell jshell, String snippet) {
+        if (!CodeEval.isSuccessful(jshell.eval(snippet))) {
+            LOG.log(Level.WARNING, "Startup snippet of notebook kernel failed: {0}", snippet);
+        }
+    }
+
+    private void runImports(JShell jshell) {
+        for (String element : imports) {
+            if (!CodeEval.isSuccessful(jshell.eval(element))) {
+                LOG.log(Level.WARNING, "Implicit import of notebook kernel failed: {0}", element);
+            }
+        }
+    }
+}
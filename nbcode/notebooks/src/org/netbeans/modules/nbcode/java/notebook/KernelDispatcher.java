@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Runs the code evaluation tasks of all notebooks on one bounded pool of
+ * threads.
+ *
+ * Every notebook has its own queue whose tasks run one at a time, in the
+ * order they were submitted. Notebooks with queued work take turns: after a
+ * task completes, its notebook goes to the back of the line, so a long batch
+ * of cells in one notebook does not hold back the others.
+ *
+ * A task running for longer than the stall timeout, such as a cell waiting
+ * for input or a long computation, stops counting against the pool and
+ * another thread takes over the queued work of the other notebooks, so that
+ * blocked cells cannot starve them. The pool thus only grows beyond its size
+ * by the number of stalled tasks.
+ */
+final class KernelDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(KernelDispatcher.class.getName());
+    static final int DEFAULT_THREAD_COUNT = Integer.getInteger("nbcode.notebook.kernelThreads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    static final int DEFAULT_STALL_TIMEOUT_MILLIS = 2000;
+
+    // concurrency is limited by the dispatcher itself
+    private final RequestProcessor processor = new RequestProcessor(KernelDispatcher.class.getName(), Integer.MAX_VALUE, true, false);
+    private final int threadCount;
+    private final int stallTimeoutMillis;
+    private final Map<String, NotebookQueue> queues = new HashMap<>();
+    private final Deque<NotebookQueue> ready = new ArrayDeque<>();
+    private int runners;
+    private int startingRunners;
+    private int stalled;
+
+    KernelDispatcher(int threadCount) {
+        this(threadCount, DEFAULT_STALL_TIMEOUT_MILLIS);
+    }
+
+    KernelDispatcher(int threadCount, int stallTimeoutMillis) {
+        this.threadCount = threadCount;
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    static KernelDispatcher getInstance() {
+        return Singleton.instance;
+    }
+
+    private static class Singleton {
+
+        private static final KernelDispatcher instance = new KernelDispatcher(DEFAULT_THREAD_COUNT);
+    }
+
+    /**
+     * Queues a task of the notebook. It runs after all tasks previously
+     * submitted for the same notebook have completed.
+     */
+    synchronized void submit(String notebookId, Runnable task) {
+        NotebookQueue queue = queues.computeIfAbsent(notebookId, NotebookQueue::new);
+        queue.tasks.addLast(task);
+        if (!queue.running && !queue.ready) {
+            markReady(queue);
+        }
+    }
+
+    /**
+     * Drops the queued tasks of the notebook. A task that is already running
+     * is not affected.
+     *
+     * @return the tasks that were dropped
+     */
+    synchronized List<Runnable> cancel(String notebookId) {
+        NotebookQueue queue = queues.get(notebookId);
+        if (queue == null) {
+            return new ArrayList<>();
+        }
+        List<Runnable> dropped = new ArrayList<>(queue.tasks);
+        queue.tasks.clear();
+        removeIfIdle(queue);
+        return dropped;
+    }
+
+    /**
+     * @return number of tasks of the notebook waiting to run
+     */
+    synchronized int getPendingCount(String notebookId) {
+        NotebookQueue queue = queues.get(notebookId);
+        return queue == null ? 0 : queue.tasks.size();
+    }
+
+    /**
+     * @return number of notebooks with queued or running tasks
+     */
+    synchronized int getActiveCount() {
+        return queues.size();
+    }
+
+    /**
+     * @return number of running tasks that exceeded the stall timeout
+     */
+    synchronized int getStalledCount() {
+        return stalled;
+    }
+
+    private void runNext() {
+        NotebookQueue queue;
+        Runnable task;
+        long run;
+        synchronized (this) {
+            startingRunners--;
+            queue = ready.pollFirst();
+            if (queue == null) {
+                runners--;
+                return;
+            }
+            queue.ready = false;
+            task = queue.tasks.pollFirst();
+            if (task == null) {
+                runners--;
+                removeIfIdle(queue);
+                dispatch();
+                return;
+            }
+            queue.running = true;
+            run = ++queue.runs;
+        }
+        RequestProcessor.Task stallCheck = processor.post(() -> checkStalled(queue, run), stallTimeoutMillis);
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Exception occurred while running task of notebook " + queue.notebookId, ex);
+        } finally {
+            stallCheck.cancel();
+            synchronized (this) {
+                runners--;
+                queue.running = false;
+                if (queue.stalled) {
+                    queue.stalled = false;
+                    stalled--;
+                }
+                if (queue.tasks.isEmpty()) {
+                    removeIfIdle(queue);
+                } else {
+                    markReady(queue);
+                }
+                dispatch();
+            }
+        }
+    }
+
+    private synchronized void checkStalled(NotebookQueue queue, long run) {
+        if (!queue.running || queue.runs != run || queue.stalled) {
+            return;
+        }
+        queue.stalled = true;
+        stalled++;
+        if (!ready.isEmpty()) {
+            LOG.log(Level.INFO, "Task of notebook {0} has been running for more than {1} ms, {2} notebooks are waiting; adding a kernel dispatch thread",
+                    new Object[]{queue.notebookId, stallTimeoutMillis, ready.size()});
+        }
+        dispatch();
+    }
+
+    private void markReady(NotebookQueue queue) {
+        queue.ready = true;
+        ready.addLast(queue);
+        dispatch();
+    }
+
+    /**
+     * Starts runners for the ready notebooks while the threads not taken by
+     * stalled tasks are fewer than the size of the pool.
+     */
+    private void dispatch() {
+        while (runners < threadCount + stalled && startingRunners < ready.size()) {
+            runners++;
+            startingRunners++;
+            processor.post(this::runNext);
+        }
+    }
+
+    private void removeIfIdle(NotebookQueue queue) {
+        if (!queue.running && !queue.ready && queue.tasks.isEmpty()) {
+            queues.remove(queue.notebookId, queue);
+        }
+    }
+
+    private static final class NotebookQueue {
+
+        private final String notebookId;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean ready;
+        private boolean stalled;
+        private long runs;
+
+        NotebookQueue(String notebookId) {
+            this.notebookId = notebookId;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import com.sun.tools.attach.AttachNotSupportedException;
+import com.sun.tools.attach.VirtualMachine;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * Samples the resource usage of the remote VM of a notebook kernel.
+ *
+ * Nothing runs in the remote VM until the first sample is requested. The VM
+ * is then located among the child processes by the kernel id passed in its
+ * {@link #KERNEL_ID_PROPERTY} system property on its command line, and its
+ * local management agent is started through the attach API. The agent only accepts
+ * connections from the local machine.
+ */
+final class KernelMetrics implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(KernelMetrics.class.getName());
+    static final String KERNEL_ID_PROPERTY = "nbcode.notebook.kernel";
+    /**
+     * How long cell executions are sampled after the client last requested
+     * a sample.
+     */
+    private static final long REQUEST_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final String kernelId;
+    private final boolean inProcess;
+    private JMXConnector connector;
+    private MemoryMXBean memory;
+    private ThreadMXBean threads;
+    private com.sun.management.OperatingSystemMXBean os;
+    private List<GarbageCollectorMXBean> collectors;
+    private boolean closed;
+    private long requestedAt;
+
+    KernelMetrics(String kernelId) {
+        this(kernelId, false);
+    }
+
+    /**
+     * @param inProcess whether the kernel runs its snippets in this process,
+     * leaving no remote VM to sample
+     */
+    KernelMetrics(String kernelId, boolean inProcess) {
+        this.kernelId = kernelId;
+        this.inProcess = inProcess;
+    }
+
+    /**
+     * @return the option passing the kernel id to the remote VM
+     */
+    String getRemoteVmOption() {
+        return "-D" + KERNEL_ID_PROPERTY + "=" + kernelId;
+    }
+
+    /**
+     * @return whether samples were requested before, making further samples
+     * cheap
+     */
+    synchronized boolean isConnected() {
+        return connector != null;
+    }
+
+    /**
+     * Takes a sample requested by the client, connecting to the remote VM
+     * first when needed.
+     */
+    synchronized Sample sample() throws IOException {
+        requestedAt = System.currentTimeMillis();
+        return takeSample();
+    }
+
+    /**
+     * Takes a sample only while the client keeps requesting samples, so that
+     * cell executions are not slowed down by samples nobody reads.
+     *
+     * @return the sample, or {@code null} when the client did not request a
+     * sample recently
+     */
+    synchronized Sample sampleIfRequested() throws IOException {
+        if (connector == null || System.currentTimeMillis() - requestedAt > REQUEST_WINDOW_MILLIS) {
+            return null;
+        }
+        return takeSample();
+    }
+
+    private Sample takeSample() throws IOException {
+        if (closed) {
+            throw new IOException("Kernel " + kernelId + " is closed");
+        }
+        if (inProcess) {
+            throw new IOException("Kernel " + kernelId + " runs in the language server process");
+        }
+        if (connector == null) {
+            try {
+                connect();
+            } catch (LinkageError ex) {
+                throw new IOException("Attach API is not available in this runtime", ex);
+            }
+        }
+        try {
+            MemoryUsage heap = memory.getHeapMemoryUsage();
+            long gcCount = 0;
+            long gcTime = 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcTime += Math.max(0, collector.getCollectionTime());
+            }
+            return new Sample(System.currentTimeMillis(), heap.getUsed(), heap.getCommitted(), heap.getMax(),
+                    gcCount, gcTime, os.getProcessCpuTime(), threads.getThreadCount());
+        } catch (RuntimeException ex) {
+            // the remote VM went away, or the connection broke
+            disconnect();
+            throw new IOException("Cannot sample kernel " + kernelId, ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        disconnect();
+    }
+
+    private void connect() throws IOException {
+        long pid = findProcess();
+        String address;
+        try {
+            VirtualMachine vm = VirtualMachine.attach(Long.toString(pid));
+            try {
+                address = vm.startLocalManagementAgent();
+            } finally {
+                vm.detach();
+            }
+        } catch (AttachNotSupportedException ex) {
+            throw new IOException("Cannot attach to kernel " + kernelId, ex);
+        }
+        JMXConnector jmx = JMXConnectorFactory.connect(new JMXServiceURL(address));
+        try {
+            MBeanServerConnection connection = jmx.getMBeanServerConnection();
+            memory = ManagementFactory.newPlatformMXBeanProxy(connection, ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+            threads = ManagementFactory.newPlatformMXBeanProxy(connection, ManagementFactory.THREAD_MXBEAN_NAME, ThreadMXBean.class);
+            os = ManagementFactory.newPlatformMXBeanProxy(connection, ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME, com.sun.management.OperatingSystemMXBean.class);
+            collectors = ManagementFactory.getPlatformMXBeans(connection, GarbageCollectorMXBean.class);
+        } catch (IOException | RuntimeException ex) {
+            jmx.close();
+            throw ex;
+        }
+        connector = jmx;
+        LOG.log(Level.FINE, "Connected to management agent of kernel {0}", kernelId);
+    }
+
+    private void disconnect() {
+        if (connector != null) {
+            try {
+                connector.close();
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Exception occurred while closing management connection: {0}", ex.toString());
+            }
+            connector = null;
+            memory = null;
+            threads = null;
+            os = null;
+            collectors = null;
+        }
+    }
+
+    /**
+     * Finds the remote VM among the processes started by this one. Processes
+     * are only matched by their command line; other VMs are never attached
+     * to.
+     */
+    private long findProcess() throws IOException {
+        String option = getRemoteVmOption();
+        boolean unknownArguments = false;
+        for (ProcessHandle process : ProcessHandle.current().children().collect(Collectors.toList())) {
+            Optional<String[]> arguments = process.info().arguments();
+            if (!arguments.isPresent()) {
+                unknownArguments = true;
+            } else if (Arrays.asList(arguments.get()).contains(option)) {
+                return process.pid();
+            }
+        }
+        if (unknownArguments) {
+            // command lines of processes are not available on every platform
+            throw new IOException("Remote VM of kernel " + kernelId + " not found, command lines of processes are not available");
+        }
+        throw new IOException("Remote VM of kernel " + kernelId + " not found");
+    }
+
+    /**
+     * Resource usage of a remote VM at one point in time. Memory sizes are in
+     * bytes, times in milliseconds except for the CPU time which is in
+     * nanoseconds.
+     */
+    static final class Sample {
+
+        private final long timestamp;
+        private final long heapUsed;
+        private final long heapCommitted;
+        private final long heapMax;
+        private final long gcCount;
+        private final long gcTime;
+        private final long cpuTime;
+        private final int threadCount;
+
+        Sample(long timestamp, long heapUsed, long heapCommitted, long heapMax, long gcCount, long gcTime, long cpuTime, int threadCount) {
+            this.timestamp = timestamp;
+            this.heapUsed = heapUsed;
+            this.heapCommitted = heapCommitted;
+            this.heapMax = heapMax;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+            this.cpuTime = cpuTime;
+            this.threadCount = threadCount;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        long getHeapUsed() {
+            return heapUsed;
+        }
+
+        long getHeapCommitted() {
+            return heapCommitted;
+        }
+
+        long getHeapMax() {
+            return heapMax;
+        }
+
+        long getGcCount() {
+            return gcCount;
+        }
+
+        long getGcTime() {
+            return gcTime;
+        }
+
+        long getCpuTime() {
+            return cpuTime;
+        }
+
+        int getThreadCount() {
+            return threadCount;
+        }
+    }
+}
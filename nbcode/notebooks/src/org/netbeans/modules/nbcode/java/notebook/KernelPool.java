@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jdk.jshell.JShell;
+import jdk.jshell.spi.ExecutionControlProvider;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Keeps pre-launched JShell kernels warm so that restarting the kernel of a
+ * notebook does not have to wait for a remote VM to start.
+ *
+ * Idle kernels are grouped by their {@link LaunchKey}, i.e. the compiler and
+ * remote VM options they were started with. A kernel is only handed out to a
+ * notebook whose options match exactly, and the pool is refilled in the
+ * background after every lease. The remote VM options include the
+ * {@code user.dir} of the notebook, which the VM only reads when it starts,
+ * so a pre-launched kernel only serves the notebooks of one folder.
+ *
+ * The pool is opt-in, its size is 0 unless configured otherwise. It helps
+ * when kernels are restarted or reset, and when several notebooks of a folder
+ * are opened; the first notebook of a folder still waits for its kernel.
+ *
+ * Kernels are bootstrapped when launched, so that a kernel taken from the
+ * pool already has the implicit imports and startup snippets evaluated.
+ */
+public class KernelPool {
+
+    private static final Logger LOG = Logger.getLogger(KernelPool.class.getName());
+    private static final String POOLED_KERNEL_ID_PREFIX = "pooled-kernel:";
+    private static final long DEFAULT_KERNEL_MEMORY_MB = 128;
+    private static final Pattern MAX_HEAP_OPTION = Pattern.compile("-Xmx(\\d+)([kKmMgG]?)");
+
+    private final RequestProcessor launcher = new RequestProcessor(KernelPool.class.getName(), 1, true, false);
+    private final RequestProcessor.Task evictionTask = launcher.create(this::evictExpiredKernels);
+    private final Map<LaunchKey, Deque<Kernel>> idleKernels = new HashMap<>();
+    private final Map<LaunchKey, Integer> pendingLaunches = new HashMap<>();
+    private final AtomicInteger pooledKernelCounter = new AtomicInteger();
+    private final AtomicInteger kernelCounter = new AtomicInteger();
+
+    private KernelPool() {
+        NotebookConfigs.getInstance().addChangeListener(this::onConfigsChanged);
+    }
+
+    public static KernelPool getInstance() {
+        return Singleton.instance;
+    }
+
+    private static class Singleton {
+
+        private static final KernelPool instance = new KernelPool();
+    }
+
+    /**
+     * Hands out a kernel started with the given options, bound to the
+     * notebook. A warm kernel is used when one is available, otherwise a new
+     * one is launched on the calling thread.
+     */
+    public Kernel acquire(LaunchKey key, String notebookId) {
+        Kernel kernel = pollIdleKernel(key);
+        if (kernel != null) {
+            LOG.log(Level.FINE, "Leased pre-launched kernel for {0}", notebookId);
+            kernel.streamsHandler.bindNotebook(notebookId);
+        } else {
+            kernel = launch(key, notebookId);
+        }
+        scheduleRefill(key);
+        return kernel;
+    }
+
+    private synchronized Kernel pollIdleKernel(LaunchKey key) {
+        Deque<Kernel> kernels = idleKernels.get(key);
+        if (kernels == null) {
+            return null;
+        }
+        Kernel kernel = kernels.pollFirst();
+        if (kernels.isEmpty()) {
+            idleKernels.remove(key);
+        }
+        if (kernel != null && kernel.poolShutdownSubscription != null) {
+            kernel.jshell.unsubscribe(kernel.poolShutdownSubscription);
+            kernel.poolShutdownSubscription = null;
+        }
+        return kernel;
+    }
+
+    private Kernel launch(LaunchKey key, String notebookId) {
+        List<Object> configsSnapshot = currentConfigsSnapshot();
+        JshellStreamsHandler handler = new JshellStreamsHandler(notebookId, CodeEval.getInstance().outStreamFlushCb, CodeEval.getInstance().errStreamFlushCb);
+        try {
+            boolean inProcess = key.isInProcess();
+            KernelMetrics metrics = new KernelMetrics(Integer.toString(kernelCounter.incrementAndGet()), inProcess);
+            List<String> remoteOptions = new ArrayList<>(key.remoteOptions);
+            TimedExecutionControl.Times times = new TimedExecutionControl.Times();
+            ExecutionControlProvider engine;
+            if (inProcess) {
+                engine = TimedExecutionControl.provider(InProcessExecutionControl.provider(), times);
+            } else {
+                remoteOptions.add(metrics.getRemoteVmOption());
+                engine = TimedExecutionControl.provider(times);
+            }
+            JShell.Builder builder = JShell.builder()
+                    .out(handler.getPrintOutStream())
+                    .err(handler.getPrintErrStream())
+                    .in(handler.getInputStream())
+                    .executionEngine(engine, null)
+                    .remoteVMOptions(remoteOptions.toArray(new String[0]));
+            if (!key.compilerOptions.isEmpty()) {
+                builder.compilerOptions(key.compilerOptions.toArray(new String[0]));
+            }
+            JShell jshell = builder.build();
+            try {
+                KernelBootstrap.getCurrent().run(jshell, handler);
+            } catch (RuntimeException ex) {
+                jshell.close();
+                throw ex;
+            }
+            return new Kernel(key, jshell, handler, metrics, times, configsSnapshot);
+        } catch (RuntimeException ex) {
+            handler.close();
+            throw ex;
+        }
+    }
+
+    private void scheduleRefill(LaunchKey key) {
+        NotebookConfigs configs = NotebookConfigs.getInstance();
+        synchronized (this) {
+            Deque<Kernel> kernels = idleKernels.get(key);
+            int available = (kernels == null ? 0 : kernels.size()) + pendingLaunches.getOrDefault(key, 0);
+            if (available >= configs.getKernelPoolSize()) {
+                return;
+            }
+            if (getReservedMemory() + key.getMemoryEstimate() > configs.getKernelPoolMaxMemory()) {
+                LOG.log(Level.FINE, "Not pre-launching kernel, pool memory budget of {0} MB reached", configs.getKernelPoolMaxMemory());
+                return;
+            }
+            pendingLaunches.merge(key, 1, Integer::sum);
+        }
+        launcher.post(() -> {
+            Kernel kernel = null;
+            try {
+                kernel = launch(key, POOLED_KERNEL_ID_PREFIX + pooledKernelCounter.incrementAndGet());
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Failed to pre-launch notebook kernel: {0}", ex.getMessage());
+            } finally {
+                synchronized (this) {
+                    pendingLaunches.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            if (kernel != null) {
+                offer(kernel);
+            }
+        });
+    }
+
+    private void offer(Kernel kernel) {
+        boolean pooled = false;
+        synchronized (this) {
+            if (kernel.configsSnapshot.equals(currentConfigsSnapshot())) {
+                kernel.idleSince = System.currentTimeMillis();
+                kernel.poolShutdownSubscription = kernel.jshell.onShutdown(shell -> remove(kernel));
+                idleKernels.computeIfAbsent(kernel.key, k -> new ArrayDeque<>()).addLast(kernel);
+                pooled = true;
+            }
+        }
+        if (pooled) {
+            scheduleEviction();
+        } else {
+            LOG.log(Level.FINE, "Discarding pre-launched kernel started with outdated configuration");
+            kernel.close();
+        }
+    }
+
+    private synchronized void remove(Kernel kernel) {
+        Deque<Kernel> kernels = idleKernels.get(kernel.key);
+        if (kernels != null && kernels.remove(kernel) && kernels.isEmpty()) {
+            idleKernels.remove(kernel.key);
+        }
+    }
+
+    private long getReservedMemory() {
+        long reserved = 0;
+        for (Deque<Kernel> kernels : idleKernels.values()) {
+            for (Kernel kernel : kernels) {
+                reserved += kernel.key.getMemoryEstimate();
+            }
+        }
+        for (Map.Entry<LaunchKey, Integer> pending : pendingLaunches.entrySet()) {
+            reserved += pending.getKey().getMemoryEstimate() * pending.getValue();
+        }
+        return reserved;
+    }
+
+    private void scheduleEviction() {
+        long timeout = NotebookConfigs.getInstance().getKernelPoolIdleTimeout() * 1000L;
+        evictionTask.schedule((int) Math.min(Integer.MAX_VALUE, timeout));
+    }
+
+    private void evictExpiredKernels() {
+        long timeout = NotebookConfigs.getInstance().getKernelPoolIdleTimeout() * 1000L;
+        long now = System.currentTimeMillis();
+        closeAll(removeIf(kernel -> now - kernel.idleSince >= timeout));
+        boolean pending;
+        synchronized (this) {
+            pending = !idleKernels.isEmpty();
+        }
+        if (pending) {
+            scheduleEviction();
+        }
+    }
+
+    private void onConfigsChanged() {
+        List<Object> snapshot = currentConfigsSnapshot();
+        closeAll(removeIf(kernel -> !kernel.configsSnapshot.equals(snapshot)));
+        int poolSize = NotebookConfigs.getInstance().getKernelPoolSize();
+        List<Kernel> surplus = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<Kernel> kernels : idleKernels.values()) {
+                while (kernels.size() > poolSize) {
+                    surplus.add(kernels.pollLast());
+                }
+            }
+            idleKernels.values().removeIf(Deque::isEmpty);
+        }
+        closeAll(surplus);
+    }
+
+    private synchronized List<Kernel> removeIf(Predicate<Kernel> filter) {
+        List<Kernel> removed = new ArrayList<>();
+        for (Iterator<Deque<Kernel>> it = idleKernels.values().iterator(); it.hasNext();) {
+            Deque<Kernel> kernels = it.next();
+            kernels.removeIf(kernel -> filter.test(kernel) && removed.add(kernel));
+            if (kernels.isEmpty()) {
+                it.remove();
+            }
+        }
+        return removed;
+    }
+
+    private void closeAll(List<Kernel> kernels) {
+        for (Kernel kernel : kernels) {
+            kernel.close();
+        }
+    }
+
+    private static List<Object> currentConfigsSnapshot() {
+        NotebookConfigs configs = NotebookConfigs.getInstance();
+        return Arrays.asList(configs.getClassPath(), configs.getModulePath(), configs.getAddModules(),
+                configs.isEnablePreview(), configs.getNotebookVmOptions(), configs.getExecutionEngine(),
+                configs.getImplicitImports(), configs.getStartupSnippets());
+    }
+
+    /**
+     * Identifies the set of options a kernel was launched with, and the
+     * execution engine running its snippets.
+     */
+    public static final class LaunchKey {
+
+        private final List<String> compilerOptions;
+        private final List<String> remoteOptions;
+        private final String executionEngine;
+
+        public LaunchKey(List<String> compilerOptions, List<String> remoteOptions) {
+            this(compilerOptions, remoteOptions, NotebookConfigs.EXECUTION_ENGINE_REMOTE);
+        }
+
+        /**
+         * @param executionEngine one of the execution engines of
+         * {@link NotebookConfigs#getExecutionEngine()}
+         */
+        public LaunchKey(List<String> compilerOptions, List<String> remoteOptions, String executionEngine) {
+            this.compilerOptions = List.copyOf(compilerOptions);
+            this.remoteOptions = List.copyOf(remoteOptions);
+            this.executionEngine = executionEngine;
+        }
+
+        public List<String> getCompilerOptions() {
+            return compilerOptions;
+        }
+
+        public List<String> getRemoteOptions() {
+            return remoteOptions;
+        }
+
+        public String getExecutionEngine() {
+            return executionEngine;
+        }
+
+        boolean isInProcess() {
+            return NotebookConfigs.EXECUTION_ENGINE_IN_PROCESS.equals(executionEngine);
+        }
+
+        long getMemoryEstimate() {
+            long estimate = DEFAULT_KERNEL_MEMORY_MB;
+            if (isInProcess()) {
+                // shares the heap of the server, whatever the options say
+                return estimate;
+            }
+            for (String option : remoteOptions) {
+                Matcher m = MAX_HEAP_OPTION.matcher(option);
+                if (m.matches()) {
+                    long value = Long.parseLong(m.group(1));
+                    switch (m.group(2).toLowerCase()) {
+                        case "g":
+                            estimate = value * 1024;
+                            break;
+                        case "m":
+                            estimate = value;
+                            break;
+                        case "k":
+                            estimate = value / 1024;
+                            break;
+                        default:
+                            estimate = value / (1024 * 1024);
+                    }
+                }
+            }
+            return estimate;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LaunchKey)) {
+                return false;
+            }
+            LaunchKey other = (LaunchKey) obj;
+            return compilerOptions.equals(other.compilerOptions) && remoteOptions.equals(other.remoteOptions)
+                    && executionEngine.equals(other.executionEngine);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(compilerOptions, remoteOptions, executionEngine);
+        }
+    }
+
+    /**
+     * A launched JShell together with the streams it was built with.
+     */
+    public static final class Kernel {
+
+        private final LaunchKey key;
+        private final JShell jshell;
+        private final JshellStreamsHandler streamsHandler;
+        private final KernelMetrics metrics;
+        private final TimedExecutionControl.Times executionTimes;
+        private final List<Object> configsSnapshot;
+        private volatile long idleSince;
+        private JShell.Subscription poolShutdownSubscription;
+
+        private Kernel(LaunchKey key, JShell jshell, JshellStreamsHandler streamsHandler, KernelMetrics metrics,
+                TimedExecutionControl.Times executionTimes, List<Object> configsSnapshot) {
+            this.key = key;
+            this.jshell = jshell;
+            this.streamsHandler = streamsHandler;
+            this.metrics = metrics;
+            this.executionTimes = executionTimes;
+            this.configsSnapshot = configsSnapshot;
+        }
+
+        public LaunchKey getKey() {
+            return key;
+        }
+
+        public JShell getJShell() {
+            return jshell;
+        }
+
+        public JshellStreamsHandler getStreamsHandler() {
+            return streamsHandler;
+        }
+
+        KernelMetrics getMetrics() {
+            return metrics;
+        }
+
+        TimedExecutionControl.Times getExecutionTimes() {
+            return executionTimes;
+        }
+
+        private void close() {
+            try {
+                jshell.close();
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Exception occurred while closing pre-launched kernel: {0}", ex.getMessage());
+            }
+            streamsHandler.close();
+            metrics.close();
+        }
+    }
+}
@@ -15,11 +15,14 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
+import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.netbeans.modules.nbcode.java.project.CommandHandler;
 import org.netbeans.spi.lsp.CommandProvider;
 import org.openide.util.lookup.ServiceProvider;
@@ -32,15 +35,27 @@ import org.openide.util.lookup.ServiceProvider;
 public class NotebookCommandsHandler implements CommandProvider {
 
     private static final String NBLS_JSHELL_EXEC = "nbls.jshell.execute.cell";
+    private static final String NBLS_JSHELL_EXEC_CELLS = "nbls.jshell.execute.cells";
     private static final String NBLS_JSHELL_INTERRUPT = "nbls.jshell.interrupt.cell";
     private static final String NBLS_OPEN_PROJECT_JSHELL = "nbls.jshell.project.open";
     private static final String NBLS_NOTEBOOK_RESET_SESSION = "nbls.notebook.reset.session";
     private static final String NBLS_NOTEBOOK_PROJECT_MAPPING = "nbls.notebook.project.context";
+    private static final String NBLS_NOTEBOOK_DOWNSTREAM_CELLS = "nbls.notebook.cells.downstream";
+    private static final String NBLS_NOTEBOOK_CELL_OUTPUT = "nbls.notebook.cell.output";
+    private static final String NBLS_NOTEBOOK_KERNEL_METRICS = "nbls.notebook.kernel.metrics";
+    private static final String NBLS_NOTEBOOK_EXECUTION_HISTOGRAM = "nbls.notebook.execution.histogram";
+    private static final String NBLS_NOTEBOOK_COMPLETION_RESOLVE = "nbls.notebook.completion.resolve";
     private static final Set<String> COMMANDS = new HashSet<>(Arrays.asList(NBLS_JSHELL_EXEC,
+            NBLS_JSHELL_EXEC_CELLS,
             NBLS_OPEN_PROJECT_JSHELL,
             NBLS_JSHELL_INTERRUPT,
             NBLS_NOTEBOOK_RESET_SESSION,
-            NBLS_NOTEBOOK_PROJECT_MAPPING));
+            NBLS_NOTEBOOK_PROJECT_MAPPING,
+            NBLS_NOTEBOOK_DOWNSTREAM_CELLS,
+            NBLS_NOTEBOOK_CELL_OUTPUT,
+            NBLS_NOTEBOOK_KERNEL_METRICS,
+            NBLS_NOTEBOOK_EXECUTION_HISTOGRAM,
+            NBLS_NOTEBOOK_COMPLETION_RESOLVE));
 
     @Override
     public Set<String> getCommands() {
@@ -54,16 +69,44 @@ public class NotebookCommandsHandler implements CommandProvider {
             switch (command) {
                 case NBLS_JSHELL_EXEC:
                     return CodeEval.getInstance().evaluate(arguments).thenApply(list -> (Object) list);
+                case NBLS_JSHELL_EXEC_CELLS:
+                    return CodeEval.getInstance().evaluateCells(arguments).thenApply(result -> (Object) result);
                 case NBLS_JSHELL_INTERRUPT:
                     return CompletableFuture.completedFuture(CodeEval.getInstance().interrupt(arguments));
                 case NBLS_OPEN_PROJECT_JSHELL:
                     return CommandHandler.openJshellInProjectContext(arguments).thenApply(list -> (Object) list);
                 case NBLS_NOTEBOOK_RESET_SESSION:
                     String notebookUri = NotebookUtils.getArgument(arguments, 0, String.class);
-                    return NotebookSessionManager.getInstance().resetSession(notebookUri)
+                    Boolean softReset = NotebookUtils.getArgument(arguments, 1, Boolean.class);
+                    Boolean rebuild = NotebookUtils.getArgument(arguments, 2, Boolean.class);
+                    return NotebookSessionManager.getInstance().resetSession(notebookUri, Boolean.TRUE.equals(softReset), Boolean.TRUE.equals(rebuild))
                             .thenApply(result -> (Object) null);
                 case NBLS_NOTEBOOK_PROJECT_MAPPING:
                     return CommandHandler.getNotebookProjectMappingPath(arguments).thenApply(prj -> (Object) prj);
+                case NBLS_NOTEBOOK_DOWNSTREAM_CELLS:
+                    return CompletableFuture.supplyAsync(() -> NotebookSessionManager.getInstance().getDownstreamCells(
+                            NotebookUtils.getArgument(arguments, 0, String.class),
+                            NotebookUtils.getArgument(arguments, 1, String.class)));
+                case NBLS_NOTEBOOK_CELL_OUTPUT:
+                    return CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return CodeEval.getInstance().getSpilledOutput(arguments);
+                        } catch (IOException ex) {
+                            throw new CompletionException(ex);
+                        }
+                    });
+                case NBLS_NOTEBOOK_KERNEL_METRICS:
+                    return CompletableFuture.supplyAsync(() -> NotebookSessionManager.getInstance().getKernelMetricsSamples(
+                            NotebookUtils.getArgument(arguments, 0, String.class)));
+                case NBLS_NOTEBOOK_EXECUTION_HISTOGRAM:
+                    return CompletableFuture.completedFuture(CodeEval.getInstance().getExecutionHistogram(
+                            NotebookUtils.getArgument(arguments, 0, String.class)));
+                case NBLS_NOTEBOOK_COMPLETION_RESOLVE:
+                    // completionItem/resolve of notebook cells is sent as a
+                    // command, the language server does not route it here
+                    return CodeCompletionProvider.getInstance().resolveCompletionItem(
+                            NotebookUtils.getArgument(arguments, 0, String.class),
+                            NotebookUtils.getArgument(arguments, 1, JsonObject.class)).thenApply(item -> (Object) item);
                 default:
                     return CompletableFuture.failedFuture(new UnsupportedOperationException("Command not supported: " + command));
             }
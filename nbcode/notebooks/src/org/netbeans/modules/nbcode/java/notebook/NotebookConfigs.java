@@ -22,6 +22,7 @@ import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.netbeans.api.annotations.common.NonNull;
@@ -42,16 +43,43 @@ public class NotebookConfigs {
     private static final String CONFIG_ADDMODULES = "addmodules";
     private static final String CONFIG_ENABLE_PREVIEW = "enablePreview";
     private static final String CONFIG_IMPLICIT_IMPORTS = "implicitImports";
+    private static final String CONFIG_STARTUP_SNIPPETS = "startupSnippets";
     private static final String CONFIG_PROJECTS_MAPPING = "projects.mapping";
     private static final String CONFIG_VM_OPTIONS = "vmOptions";
+    private static final String CONFIG_KERNEL_POOL_SIZE = "kernelPoolSize";
+    private static final String CONFIG_KERNEL_POOL_IDLE_TIMEOUT = "kernelPoolIdleTimeout";
+    private static final String CONFIG_KERNEL_POOL_MAX_MEMORY = "kernelPoolMaxMemory";
+    private static final String CONFIG_CELL_OUTPUT_LIMIT = "cellOutputLimit";
+    private static final String CONFIG_KERNEL_HIBERNATION_TIMEOUT = "kernelHibernationTimeout";
+    private static final String CONFIG_MAX_LIVE_KERNELS = "maxLiveKernels";
+    private static final String CONFIG_COMPLETION_LIMIT = "completionLimit";
+    private static final String CONFIG_EXECUTION_ENGINE = "executionEngine";
+    static final String EXECUTION_ENGINE_REMOTE = "remote";
+    static final String EXECUTION_ENGINE_IN_PROCESS = "inProcess";
+    private static final int DEFAULT_KERNEL_POOL_SIZE = 0;
+    private static final int DEFAULT_KERNEL_POOL_IDLE_TIMEOUT = 600;
+    private static final int DEFAULT_KERNEL_POOL_MAX_MEMORY = 1024;
+    private static final int DEFAULT_CELL_OUTPUT_LIMIT = 1024;
+    private static final int DEFAULT_KERNEL_HIBERNATION_TIMEOUT = 1800;
+    private static final int DEFAULT_MAX_LIVE_KERNELS = 16;
+    private static final int DEFAULT_COMPLETION_LIMIT = 200;
     private static final String[] NOTEBOOK_CONFIG_LABELS = {
         CONFIG_CLASSPATH,
         CONFIG_MODULEPATH,
         CONFIG_ADDMODULES,
         CONFIG_ENABLE_PREVIEW,
         CONFIG_IMPLICIT_IMPORTS,
+        CONFIG_STARTUP_SNIPPETS,
         CONFIG_PROJECTS_MAPPING,
-        CONFIG_VM_OPTIONS
+        CONFIG_VM_OPTIONS,
+        CONFIG_KERNEL_POOL_SIZE,
+        CONFIG_KERNEL_POOL_IDLE_TIMEOUT,
+        CONFIG_KERNEL_POOL_MAX_MEMORY,
+        CONFIG_CELL_OUTPUT_LIMIT,
+        CONFIG_KERNEL_HIBERNATION_TIMEOUT,
+        CONFIG_MAX_LIVE_KERNELS,
+        CONFIG_COMPLETION_LIMIT,
+        CONFIG_EXECUTION_ENGINE
     };
     private volatile String classPath = null;
     private volatile String modulePath = null;
@@ -60,7 +88,17 @@ public class NotebookConfigs {
     private volatile JsonObject notebookProjectMapping = new JsonObject();
     private volatile List<String> notebookVmOptions = Collections.emptyList();
     private volatile List<String> implicitImports = null;
+    private volatile List<String> startupSnippets = Collections.emptyList();
+    private volatile int kernelPoolSize = DEFAULT_KERNEL_POOL_SIZE;
+    private volatile int kernelPoolIdleTimeout = DEFAULT_KERNEL_POOL_IDLE_TIMEOUT;
+    private volatile int kernelPoolMaxMemory = DEFAULT_KERNEL_POOL_MAX_MEMORY;
+    private volatile int cellOutputLimit = DEFAULT_CELL_OUTPUT_LIMIT;
+    private volatile int kernelHibernationTimeout = DEFAULT_KERNEL_HIBERNATION_TIMEOUT;
+    private volatile int maxLiveKernels = DEFAULT_MAX_LIVE_KERNELS;
+    private volatile int completionLimit = DEFAULT_COMPLETION_LIMIT;
+    private volatile String executionEngine = EXECUTION_ENGINE_REMOTE;
     private volatile CompletableFuture<Void> initialized;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     public CompletableFuture<Void> getInitialized() {
         return initialized;
@@ -86,6 +124,14 @@ public class NotebookConfigs {
         return implicitImports;
     }
 
+    /**
+     * @return code evaluated in every new kernel after the implicit imports
+     */
+    @NonNull
+    public List<String> getStartupSnippets() {
+        return startupSnippets;
+    }
+
     public JsonObject getNotebookProjectMapping() {
         return notebookProjectMapping;
     }
@@ -95,6 +141,76 @@ public class NotebookConfigs {
         return notebookVmOptions;
     }
 
+    /**
+     * @return number of idle kernels kept warm per distinct launch option set
+     */
+    public int getKernelPoolSize() {
+        return kernelPoolSize;
+    }
+
+    /**
+     * @return seconds after which an unused pre-launched kernel is shut down
+     */
+    public int getKernelPoolIdleTimeout() {
+        return kernelPoolIdleTimeout;
+    }
+
+    /**
+     * @return estimated memory, in MB, that idle pre-launched kernels may hold
+     */
+    public int getKernelPoolMaxMemory() {
+        return kernelPoolMaxMemory;
+    }
+
+    /**
+     * @return maximum output, in KB, sent per stream for a cell execution;
+     * {@code 0} when unlimited
+     */
+    public int getCellOutputLimit() {
+        return cellOutputLimit;
+    }
+
+    /**
+     * @return seconds after which the kernel of an idle notebook is
+     * hibernated; {@code 0} when kernels are never hibernated
+     */
+    public int getKernelHibernationTimeout() {
+        return kernelHibernationTimeout;
+    }
+
+    /**
+     * @return maximum number of notebook kernels running at the same time;
+     * {@code 0} when unlimited
+     */
+    public int getMaxLiveKernels() {
+        return maxLiveKernels;
+    }
+
+    /**
+     * @return maximum number of completion items returned at once;
+     * {@code 0} when unlimited
+     */
+    public int getCompletionLimit() {
+        return completionLimit;
+    }
+
+    /**
+     * @return {@link #EXECUTION_ENGINE_REMOTE} when snippets run in a remote
+     * VM per kernel, or {@link #EXECUTION_ENGINE_IN_PROCESS} when they run in
+     * the language server process
+     */
+    public String getExecutionEngine() {
+        return executionEngine;
+    }
+
+    /**
+     * Registers a listener notified after the notebook configuration has been
+     * re-read from the client.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
     private NotebookConfigs() {
 
     }
@@ -180,6 +296,13 @@ public class NotebookConfigs {
             implicitImports = null;
         }
 
+        JsonElement startupSnippetsConfig = settings.get(CONFIG_STARTUP_SNIPPETS);
+        if (startupSnippetsConfig != null && startupSnippetsConfig.isJsonArray()) {
+            startupSnippets = startupSnippetsConfig.getAsJsonArray().asList().stream().map((elem) -> elem.getAsString()).toList();
+        } else {
+            startupSnippets = Collections.emptyList();
+        }
+
         JsonElement notebookProjectMappingConfig = settings.get(CONFIG_PROJECTS_MAPPING);
         if (notebookProjectMappingConfig != null && notebookProjectMappingConfig.isJsonObject()) {
             notebookProjectMapping = notebookProjectMappingConfig.getAsJsonObject();
@@ -193,5 +316,37 @@ public class NotebookConfigs {
         } else {
             notebookVmOptions = Collections.emptyList();
         }
+
+        kernelPoolSize = getNonNegativeInt(settings, CONFIG_KERNEL_POOL_SIZE, DEFAULT_KERNEL_POOL_SIZE);
+        kernelPoolIdleTimeout = getNonNegativeInt(settings, CONFIG_KERNEL_POOL_IDLE_TIMEOUT, DEFAULT_KERNEL_POOL_IDLE_TIMEOUT);
+        kernelPoolMaxMemory = getNonNegativeInt(settings, CONFIG_KERNEL_POOL_MAX_MEMORY, DEFAULT_KERNEL_POOL_MAX_MEMORY);
+        cellOutputLimit = getNonNegativeInt(settings, CONFIG_CELL_OUTPUT_LIMIT, DEFAULT_CELL_OUTPUT_LIMIT);
+        kernelHibernationTimeout = getNonNegativeInt(settings, CONFIG_KERNEL_HIBERNATION_TIMEOUT, DEFAULT_KERNEL_HIBERNATION_TIMEOUT);
+        maxLiveKernels = getNonNegativeInt(settings, CONFIG_MAX_LIVE_KERNELS, DEFAULT_MAX_LIVE_KERNELS);
+        completionLimit = getNonNegativeInt(settings, CONFIG_COMPLETION_LIMIT, DEFAULT_COMPLETION_LIMIT);
+
+        JsonElement executionEngineConfig = settings.get(CONFIG_EXECUTION_ENGINE);
+        if (executionEngineConfig != null && executionEngineConfig.isJsonPrimitive()
+                && EXECUTION_ENGINE_IN_PROCESS.equals(executionEngineConfig.getAsString())) {
+            executionEngine = EXECUTION_ENGINE_IN_PROCESS;
+        } else {
+            executionEngine = EXECUTION_ENGINE_REMOTE;
+        }
+
+        for (Runnable listener : changeListeners) {
+            try {
+                listener.run();
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Exception occurred while notifying notebook configs change: {0}", ex.getMessage());
+            }
+        }
+    }
+
+    private static int getNonNegativeInt(JsonObject settings, String key, int defaultValue) {
+        JsonElement config = settings.get(key);
+        if (config != null && config.isJsonPrimitive() && config.getAsJsonPrimitive().isNumber()) {
+            return Math.max(0, config.getAsInt());
+        }
+        return defaultValue;
     }
 }
@@ -89,7 +89,6 @@ import org.openide.util.lookup.ServiceProvider;
 public class NotebookDocumentServiceHandlerImpl implements NotebookDocumentServiceHandler {
 
     private static final Logger LOG = Logger.getLogger(NotebookDocumentServiceHandler.class.getName());
-    private final Map<String, NotebookDocumentStateManager> notebookStateMap = new ConcurrentHashMap<>();
     // Below map is required because completion request doesn't send notebook uri in the params
     private final Map<String, String> notebookCellMap = new ConcurrentHashMap<>();
 
@@ -115,7 +114,7 @@ public class NotebookDocumentServiceHandlerImpl implements NotebookDocumentServi
                 notebookCellMap.put(cell.getDocument(), params.getNotebookDocument().getUri());
             });
 
-            notebookStateMap.put(params.getNotebookDocument().getUri(), state);
+            NotebookSessionManager.getInstance().addNotebookState(params.getNotebookDocument().getUri(), state);
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Error while opening notebook {0}", e.getMessage());
         }
@@ -123,7 +122,7 @@ public class NotebookDocumentServiceHandlerImpl implements NotebookDocumentServi
 
     @Override
     public void didChange(DidChangeNotebookDocumentParams params) {
-        NotebookDocumentStateManager state = notebookStateMap.get(params.getNotebookDocument().getUri());
+        NotebookDocumentStateManager state = NotebookSessionManager.getInstance().getNotebookState(params.getNotebookDocument().getUri());
         state.syncState(params.getNotebookDocument(), params.getChange(), notebookCellMap);
     }
 
@@ -136,7 +135,7 @@ public class NotebookDocumentServiceHandlerImpl implements NotebookDocumentServi
     public void didClose(DidCloseNotebookDocumentParams params) {
         String notebookUri = params.getNotebookDocument().getUri();
         NotebookSessionManager.getInstance().closeSession(notebookUri);
-        NotebookDocumentStateManager state = notebookStateMap.remove(notebookUri);
+        NotebookDocumentStateManager state = NotebookSessionManager.getInstance().removeNotebookState(notebookUri);
         if (state != null) {
             state.getCellsMap().keySet().forEach(notebookCellMap::remove);
         } else {
@@ -149,16 +148,28 @@ public class NotebookDocumentServiceHandlerImpl implements NotebookDocumentServi
         try {
             String cellUri = params.getTextDocument().getUri();
             String notebookUri = notebookCellMap.get(cellUri);
-            NotebookDocumentStateManager stateManager = notebookStateMap.get(notebookUri);
+            NotebookDocumentStateManager stateManager = NotebookSessionManager.getInstance().getNotebookState(notebookUri);
             JShell instance = NotebookSessionManager.getInstance().getSession(notebookUri);
 
-            return CodeCompletionProvider.getInstance().getCodeCompletions(params, stateManager, instance);
+            ShadowAnalysis shadow = NotebookSessionManager.getInstance().getShadowAnalysis(notebookUri);
+
+            return CodeCompletionProvider.getInstance().getCodeCompletions(params, stateManager, instance, shadow);
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Unable to compute code completions {0}", e.getMessage());
             return CompletableFuture.completedFuture(Either.forRight(new CompletionList()));
         }
     }
 
+    @Override
+    public CompletableFuture<CompletionItem> resolveCompletionItem(CompletionItem unresolved) {
+        try {
+            return CodeCompletionProvider.getInstance().resolveCompletionItem(unresolved);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Unable to resolve code completion {0}", e.getMessage());
+            return CompletableFuture.completedFuture(unresolved);
+        }
+    }
+
     @Override
     public void connect(LanguageClient client) {
         LanguageClientInstance.getInstance().setClient((NbCodeLanguageClient) client);
@@ -19,7 +19,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,7 +45,7 @@ public class NotebookDocumentStateManager {
 
     private final NotebookDocument notebookDoc;
     private final Map<String, CellState> cellsMap = new ConcurrentHashMap<>();
-    private final List<String> cellsOrder;
+    private final CellOrder cellsOrder;
     private final CellStateCreator cellStateCreator;
 
     public NotebookDocumentStateManager(NotebookDocument notebookDoc, List<TextDocumentItem> cells) {
@@ -56,18 +55,19 @@ public class NotebookDocumentStateManager {
     public NotebookDocumentStateManager(NotebookDocument notebookDoc, List<TextDocumentItem> cells, CellStateCreator cellStateCreator) {
         this.cellStateCreator = cellStateCreator != null ? cellStateCreator : CellState::new;
         this.notebookDoc = notebookDoc;
-        this.cellsOrder = new ArrayList<>();
+        List<String> initialOrder = new ArrayList<>();
         Iterator<NotebookCell> notebookCellsIterator = notebookDoc.getCells().iterator();
 
         for (TextDocumentItem cellItem : cells) {
             if (notebookCellsIterator.hasNext()) {
                 addNewCellState(notebookCellsIterator.next(), cellItem);
-                this.cellsOrder.add(cellItem.getUri());
+                initialOrder.add(cellItem.getUri());
             } else {
                 LOG.log(Level.SEVERE, "Mismatched number of cells and cell items during initialization.");
                 break;
             }
         }
+        this.cellsOrder = new CellOrder(initialOrder);
     }
 
     public void syncState(VersionedNotebookDocumentIdentifier notebook, NotebookDocumentChangeEvent changeEvent, Map<String, String> cellsNotebookMap) {
@@ -96,6 +96,14 @@ public class NotebookDocumentStateManager {
         return cellsMap.get(uri);
     }
 
+    /**
+     * @return snapshot of the cell URIs in notebook order, taken without
+     * locking, whose {@code get} and {@code indexOf} take logarithmic time
+     */
+    public List<String> getCellsOrder() {
+        return cellsOrder.snapshot();
+    }
+
     private void updateNotebookCellStructure(NotebookDocumentChangeEventCellStructure updatedStructure, Map<String, String> cellsNotebookMap) {
         if (updatedStructure == null) {
             return;
@@ -132,34 +140,26 @@ public class NotebookDocumentStateManager {
             }
         }
 
-        synchronized (cellsOrder) {
-            int startIdx = updatedStructure.getArray().getStart();
-            int deleteCount = updatedStructure.getArray().getDeleteCount();
-
-            ListIterator<String> iterator = cellsOrder.listIterator(startIdx);
-
-            for (int i = 0; i < deleteCount && iterator.hasNext(); i++) {
-                String removedUri = iterator.next();
-                iterator.remove();
-
-                if (!closedCellUris.contains(removedUri)) {
-                    LOG.log(Level.WARNING, "Removed URI {0} not found in didClose list", removedUri);
-                }
-                LOG.log(Level.FINE, "Removed cell from order: {0}", removedUri);
+        int startIdx = updatedStructure.getArray().getStart();
+        int deleteCount = updatedStructure.getArray().getDeleteCount();
+        List<String> addedUris = new ArrayList<>();
+        if (cellsItem != null) {
+            for (TextDocumentItem cellItem : cellsItem) {
+                addedUris.add(cellItem.getUri());
             }
+        }
 
-            if (cellsItem != null) {
-                for (TextDocumentItem cellItem : cellsItem) {
-                    String uri = cellItem.getUri();
-                    iterator.add(uri);
-
-                    if (!openedCellUris.contains(uri)) {
-                        LOG.log(Level.WARNING, "Added URI {0} not found in didOpen list", uri);
-                    }
-
-                    LOG.log(Level.FINE, "Added cell to order: {0}", uri);
-                }
+        for (String removedUri : cellsOrder.splice(startIdx, deleteCount, addedUris)) {
+            if (!closedCellUris.contains(removedUri)) {
+                LOG.log(Level.WARNING, "Removed URI {0} not found in didClose list", removedUri);
+            }
+            LOG.log(Level.FINE, "Removed cell from order: {0}", removedUri);
+        }
+        for (String uri : addedUris) {
+            if (!openedCellUris.contains(uri)) {
+                LOG.log(Level.WARNING, "Added URI {0} not found in didOpen list", uri);
             }
+            LOG.log(Level.FINE, "Added cell to order: {0}", uri);
         }
     }
 
@@ -192,43 +192,34 @@ public class NotebookDocumentStateManager {
             return;
         }
         int newVersion = contentChange.getDocument().getVersion();
-        String currentContent = cellState.getContent();
 
         try {
-            String updatedContent = applyContentChanges(currentContent, contentChange.getChanges());
-            cellState.setContent(updatedContent, newVersion);
+            // applied in order of versions, possibly once the latest content
+            // requested from the client arrives
+            cellState.applyEdit(newVersion, currentContent -> applyContentChanges(currentContent, contentChange.getChanges()));
             LOG.log(Level.FINE, "Updated content for cell: {0}, version: {1}", new Object[]{uri, newVersion});
         } catch (Exception e) {
-            LOG.log(Level.WARNING, "applyContentChanges failed, requesting full content for cell: {0}. Error - {1}", new Object[]{uri, e});
-            try {
-                cellState.requestContentAndSet();
-            } catch (Exception ex) {
-                LOG.log(Level.SEVERE, "Failed to refresh content for cell: " + uri, ex);
-            }
+            LOG.log(Level.SEVERE, "Failed to update content for cell: " + uri, e);
         }
     }
 
-    private String applyContentChanges(String originalContent, List<TextDocumentContentChangeEvent> changes) {
-        if (originalContent == null) {
-            originalContent = "";
-        }
-
-        String currentContent = originalContent;
+    private CellText applyContentChanges(CellText originalContent, List<TextDocumentContentChangeEvent> changes) {
+        CellText currentContent = originalContent;
 
         for (TextDocumentContentChangeEvent change : changes) {
             if (change.getRange() != null) {
                 currentContent = applyRangeChange(currentContent, change);
             } else {
-                currentContent = change.getText();
+                currentContent = CellText.of(NotebookUtils.normalizeLineEndings(change.getText()));
             }
         }
 
         return currentContent;
     }
 
-    private String applyRangeChange(String content, TextDocumentContentChangeEvent change) {
+    private CellText applyRangeChange(CellText content, TextDocumentContentChangeEvent change) {
         Range range = change.getRange();
-        return NotebookUtils.applyChange(content, range.getStart(), range.getEnd(), change.getText());
+        return content.applyChange(range.getStart(), range.getEnd(), change.getText());
     }
 
 
@@ -17,6 +17,7 @@ package org.netbeans.modules.nbcode.java.notebook;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.net.URI;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Files;
@@ -24,24 +25,33 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import org.eclipse.lsp4j.NotebookCellKind;
 import org.eclipse.lsp4j.NotebookDocument;
 import org.netbeans.api.project.Project;
 import static org.netbeans.modules.nbcode.java.notebook.NotebookUtils.checkEmptyString;
-import org.netbeans.modules.nbcode.java.project.ProjectConfigurationUtils;
+import org.netbeans.modules.nbcode.java.project.KernelLaunchConfig;
+import org.netbeans.modules.nbcode.java.project.ProjectBuildCache;
 import org.netbeans.modules.nbcode.java.project.ProjectContext;
 import org.netbeans.modules.nbcode.java.project.ProjectContextInfo;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -59,10 +69,23 @@ public class NotebookSessionManager {
     private static final String MODULE_PATH = "--module-path";
     private static final String ADD_MODULES = "--add-modules";
     private static final String USER_DIR_PROP = "-Duser.dir=";
+    private static final boolean SHADOW_ANALYSIS = !Boolean.getBoolean("nbcode.notebook.disableShadowAnalysis");
 
     private final Map<String, CompletableFuture<JShell>> sessions = new ConcurrentHashMap<>();
     private final Map<String, JshellStreamsHandler> jshellStreamsMap = new ConcurrentHashMap<>();
+    private final Map<String, KernelPool.Kernel> kernelsMap = new ConcurrentHashMap<>();
     private final Map<String, ProjectContextInfo> notebookPrjMap = new ConcurrentHashMap<>();
+    private final Map<String, NotebookDocumentStateManager> notebookStateMap = new ConcurrentHashMap<>();
+    private final Map<String, CellDependencyGraph> dependencyGraphs = new ConcurrentHashMap<>();
+    private final Map<String, SessionJournal> journals = new ConcurrentHashMap<>();
+    private final Map<String, ShadowAnalysis> shadowAnalyses = new ConcurrentHashMap<>();
+    private final Set<String> hibernated = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+    private final RequestProcessor hibernator = new RequestProcessor(NotebookSessionManager.class.getName(), 1, true, false);
+    private final RequestProcessor.Task hibernationTask = hibernator.create(this::hibernateIdleSessions);
+    // kernels of different notebooks are launched in parallel
+    private final RequestProcessor launcher = new RequestProcessor(NotebookSessionManager.class.getName(), Integer.MAX_VALUE, false, false);
+    private long hibernationCheckAt = Long.MAX_VALUE;
 
     private NotebookSessionManager() {
     }
@@ -76,41 +99,65 @@ public class NotebookSessionManager {
         private static final NotebookSessionManager instance = new NotebookSessionManager();
     }
 
-    private CompletableFuture<JShell> jshellBuilder(String notebookUri, JshellStreamsHandler streamsHandler) {
+    /**
+     * Launches the kernel of the notebook on the launcher thread, once the
+     * project of the notebook is built.
+     */
+    private CompletableFuture<JShell> jshellBuilder(String notebookUri) {
         return NotebookConfigs.getInstance().getInitialized()
-                .thenCompose(v -> getProjectContextForNotebook(notebookUri)
-                .thenApply(prj -> {
-                    if (prj != null) {
-                        notebookPrjMap.put(notebookUri, new ProjectContextInfo(prj));
+                .thenCompose(v -> getProjectContextForNotebook(notebookUri))
+                .handleAsync((prj, throwable) -> {
+                    if (throwable == null) {
+                        try {
+                            if (prj != null) {
+                                notebookPrjMap.put(notebookUri, new ProjectContextInfo(prj));
+                            }
+                            return jshellBuildWithProject(notebookUri, prj);
+                        } catch (RuntimeException ex) {
+                            throwable = ex;
+                        }
                     }
-                    return jshellBuildWithProject(notebookUri, prj, streamsHandler);
-                })).exceptionally(throwable -> {
-            LOG.log(Level.WARNING, "Failed to get project context, using default JShell configuration", throwable);
-            return jshellBuildWithProject(notebookUri, null, streamsHandler);
+                    LOG.log(Level.WARNING, "Failed to get project context, using default JShell configuration", throwable);
+                    return jshellBuildWithProject(notebookUri, null);
+                }, launcher);
+    }
+
+    /**
+     * Launches the kernel of a session added to the sessions, and completes
+     * the session once the kernel is initialized. Runs outside of the update
+     * of the sessions, which must not wait for a kernel.
+     */
+    private void launchSession(String notebookId, CompletableFuture<JShell> session, Consumer<JShell> initializer) {
+        jshellBuilder(notebookId).thenApply(jshell -> {
+            initializer.accept(jshell);
+            return jshell;
+        }).whenComplete((jshell, ex) -> {
+            if (ex != null) {
+                LOG.log(Level.SEVERE, "Error creating notebook session: {0}", ex.getMessage());
+                session.completeExceptionally(ex);
+            } else {
+                session.complete(jshell);
+            }
         });
+        hibernator.post(this::enforceLiveKernelLimit);
     }
 
-    private JShell jshellBuildWithProject(String notebookUri, Project prj, JshellStreamsHandler streamsHandler) {
+    private JShell jshellBuildWithProject(String notebookUri, Project prj) {
         List<String> compilerOptions = getCompilerOptions(prj);
         List<String> remoteOptions = getRemoteVmOptions(prj);
         setSystemPropertiesForRemoteVm(remoteOptions, notebookUri);
 
-        JShell.Builder builder = JShell.builder()
-                .out(streamsHandler.getPrintOutStream())
-                .err(streamsHandler.getPrintErrStream())
-                .in(streamsHandler.getInputStream());
-
         LOG.log(Level.FINE, "Initializing Notebook kernel for {0}", notebookUri);
         LOG.log(Level.FINE, "Compiler options being passed: {0}", compilerOptions);
         LOG.log(Level.FINE, "VM Options being passed to notebook kernel: {0}", remoteOptions);
-        if (!compilerOptions.isEmpty()) {
-            builder.compilerOptions(compilerOptions.toArray(new String[0]))
-                    .remoteVMOptions(remoteOptions.toArray(new String[0]));
-        } else if (!remoteOptions.isEmpty()) {
-            builder.remoteVMOptions(remoteOptions.toArray(new String[0]));
-        }
 
-        return builder.build();
+        String executionEngine = NotebookConfigs.getInstance().getExecutionEngine();
+        LOG.log(Level.FINE, "Execution engine of notebook kernel: {0}", executionEngine);
+
+        KernelPool.Kernel kernel = KernelPool.getInstance().acquire(new KernelPool.LaunchKey(compilerOptions, remoteOptions, executionEngine), notebookUri);
+        jshellStreamsMap.put(notebookUri, kernel.getStreamsHandler());
+        kernelsMap.put(notebookUri, kernel);
+        return kernel.getJShell();
     }
 
     private void setSystemPropertiesForRemoteVm(List<String> remoteOptions, String notebookUri) {
@@ -132,20 +179,205 @@ public class NotebookSessionManager {
     }
 
     public CompletableFuture<JShell> createSession(String notebookId) {
-        return sessions.computeIfAbsent(notebookId, id -> {
-            JshellStreamsHandler handler = new JshellStreamsHandler(id, CodeEval.getInstance().outStreamFlushCb, CodeEval.getInstance().errStreamFlushCb);
-            jshellStreamsMap.put(id, handler);
+        long[] accessed = new long[1];
+        AtomicReference<CompletableFuture<JShell>> created = new AtomicReference<>();
+        CompletableFuture<JShell> session = sessions.compute(notebookId, (id, current) -> {
+            // recorded together with the lookup, so that the kernel is not
+            // hibernated before the caller gets to use it
+            accessed[0] = recordAccess(id);
+            if (current != null) {
+                return current;
+            }
+            hibernated.remove(id);
+            journals.put(id, new SessionJournal());
+            created.set(new CompletableFuture<>());
+            return created.get();
+        });
+        if (created.get() != null) {
+            // kernels are bootstrapped when launched, so the session is
+            // ready for cells once the kernel is
+            launchSession(notebookId, created.get(), jshell -> onJshellInit(notebookId, jshell));
+        }
+        scheduleHibernationCheck(accessed[0]);
+        return session;
+    }
 
-            CompletableFuture<JShell> future = jshellBuilder(notebookId, handler);
+    /**
+     * Starts a new kernel for a hibernated notebook and replays the snippets
+     * its previous kernel evaluated successfully.
+     */
+    private void wakeSession(String notebookId, CompletableFuture<JShell> session) {
+        LOG.log(Level.FINE, "Restoring hibernated notebook session {0}", notebookId);
+        SessionJournal journal = journals.computeIfAbsent(notebookId, id -> new SessionJournal());
+        launchSession(notebookId, session, jshell -> {
+            onJshellInit(notebookId, jshell);
+            replayJournal(notebookId, jshell, journal);
+        });
+    }
 
-            future.thenAccept(jshell -> onJshellInit(notebookId, jshell))
-                    .exceptionally(ex -> {
-                        LOG.log(Level.SEVERE, "Error creating notebook session: {0}", ex.getMessage());
-                        throw new IllegalStateException("Error while creating notebook session");
-                    });
+    private void replayJournal(String notebookId, JShell jshell, SessionJournal journal) {
+        List<SessionJournal.Entry> entries = journal.getEntries();
+        // recorded again, with the snippets of the new kernel
+        journal.clear();
+        CellDependencyGraph graph = getDependencyGraph(notebookId);
+        graph.clear();
+        JshellStreamsHandler handler = jshellStreamsMap.get(notebookId);
+        if (handler != null) {
+            handler.setMuted(true);
+        }
+        int failed = 0;
+        try {
+            for (SessionJournal.Entry entry : entries) {
+                List<SnippetEvent> events = jshell.eval(entry.getSource());
+                journal.update(events);
+                if (!CodeEval.isSuccessful(events)) {
+                    failed++;
+                } else {
+                    journal.record(entry.getCellId(), entry.getSource(), events);
+                }
+                graph.recordEvaluation(jshell, entry.getCellId(), events);
+                mirrorEvaluation(notebookId, events);
+            }
+        } catch (IllegalStateException ex) {
+            LOG.log(Level.WARNING, "Kernel of notebook {0} closed while replaying its state", notebookId);
+        } finally {
+            if (handler != null) {
+                handler.flushOutputStreams();
+                handler.setMuted(false);
+            }
+        }
+        LOG.log(Level.FINE, "Replayed {0} snippets of notebook {1}, {2} failed", new Object[]{entries.size(), notebookId, failed});
+    }
 
-            return future;
+    /**
+     * Closes the kernel of the notebook, keeping the journal of its snippets
+     * so that the kernel can be restored on the next use. Kernels that are
+     * starting, executing code, were used after {@code accessedAt}, or whose
+     * journal is not complete, are left running.
+     *
+     * @return {@code true} when the kernel was hibernated
+     */
+    boolean hibernate(String notebookId, long accessedAt) {
+        JShell[] closed = new JShell[1];
+        JshellStreamsHandler[] handler = new JshellStreamsHandler[1];
+        KernelPool.Kernel[] kernel = new KernelPool.Kernel[1];
+        sessions.computeIfPresent(notebookId, (id, future) -> {
+            JShell jshell = future.getNow(null);
+            Long accessed = lastAccess.get(id);
+            if (jshell == null || accessed == null || accessed != accessedAt || !CodeEval.getInstance().isIdle(id)) {
+                return future;
+            }
+            SessionJournal journal = journals.get(id);
+            if (journal != null && !journal.isComplete()) {
+                // its state could not be restored
+                return future;
+            }
+            hibernated.add(id);
+            closed[0] = jshell;
+            handler[0] = jshellStreamsMap.remove(id);
+            kernel[0] = kernelsMap.remove(id);
+            return null;
         });
+        if (closed[0] == null) {
+            return false;
+        }
+        try {
+            closed[0].close();
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "Exception occurred while closing hibernated kernel: {0}", ex.getMessage());
+        }
+        if (handler[0] != null) {
+            handler[0].close();
+        }
+        if (kernel[0] != null) {
+            kernel[0].getMetrics().close();
+        }
+        closeShadowAnalysis(shadowAnalyses.remove(notebookId));
+        LOG.log(Level.FINE, "Hibernated kernel of notebook {0}", notebookId);
+        return true;
+    }
+
+    boolean isHibernated(String notebookId) {
+        return hibernated.contains(notebookId);
+    }
+
+    /**
+     * @return the journal of the snippets evaluated by the kernel of the
+     * notebook, or {@code null} when the notebook has no session
+     */
+    SessionJournal getJournal(String notebookId) {
+        return journals.get(notebookId);
+    }
+
+    /**
+     * @return the new access time of the notebook, always later than the
+     * previous one so that {@link #hibernate(String, long)} with the previous
+     * time fails
+     */
+    private long recordAccess(String notebookId) {
+        long now = System.nanoTime() / 1_000_000;
+        return lastAccess.merge(notebookId, now, (previous, current) -> Math.max(previous + 1, current));
+    }
+
+    private void scheduleHibernationCheck(long accessed) {
+        long timeout = NotebookConfigs.getInstance().getKernelHibernationTimeout() * 1000L;
+        if (timeout > 0) {
+            scheduleHibernationCheck(System.nanoTime() / 1_000_000, accessed + timeout);
+        }
+    }
+
+    private synchronized void scheduleHibernationCheck(long now, long checkAt) {
+        if (checkAt < hibernationCheckAt) {
+            hibernationCheckAt = checkAt;
+            hibernationTask.schedule((int) Math.min(Integer.MAX_VALUE, Math.max(0, checkAt - now)));
+        }
+    }
+
+    private void hibernateIdleSessions() {
+        synchronized (this) {
+            hibernationCheckAt = Long.MAX_VALUE;
+        }
+        long timeout = NotebookConfigs.getInstance().getKernelHibernationTimeout() * 1000L;
+        if (timeout == 0) {
+            return;
+        }
+        long now = System.nanoTime() / 1_000_000;
+        long next = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : lastAccess.entrySet()) {
+            String notebookId = entry.getKey();
+            if (!sessions.containsKey(notebookId)) {
+                continue;
+            }
+            long due = entry.getValue() + timeout;
+            if (due > now) {
+                next = Math.min(next, due);
+            } else if (!hibernate(notebookId, entry.getValue()) && sessions.containsKey(notebookId)) {
+                // busy; its idle time starts over
+                lastAccess.replace(notebookId, entry.getValue(), now);
+                next = Math.min(next, now + timeout);
+            }
+        }
+        if (next != Long.MAX_VALUE) {
+            scheduleHibernationCheck(now, next);
+        }
+    }
+
+    private void enforceLiveKernelLimit() {
+        int maxLiveKernels = NotebookConfigs.getInstance().getMaxLiveKernels();
+        if (maxLiveKernels == 0 || sessions.size() <= maxLiveKernels) {
+            return;
+        }
+        List<Map.Entry<String, Long>> leastRecentlyUsed = new ArrayList<>(lastAccess.entrySet());
+        leastRecentlyUsed.sort(Map.Entry.comparingByValue());
+        int live = sessions.size();
+        for (Map.Entry<String, Long> entry : leastRecentlyUsed) {
+            if (live <= maxLiveKernels) {
+                break;
+            }
+            if (hibernate(entry.getKey(), entry.getValue())) {
+                live--;
+            }
+        }
     }
 
     private List<String> getCompilerOptions(Project prj) {
@@ -165,7 +397,8 @@ public class NotebookSessionManager {
         boolean enablePreview = configs.isEnablePreview();
 
         if (prj != null) {
-            List<String> projOptions = ProjectConfigurationUtils.compilerOptions(prj);
+            KernelLaunchConfig launchConfig = KernelLaunchConfig.forProject(prj);
+            List<String> projOptions = launchConfig.getCompilerOptions();
             Map<String, String> prjConfigMap = new HashMap<>();
             for (int i = 0; i < projOptions.size() - 1; i += 2) {
                 prjConfigMap.put(projOptions.get(i), projOptions.get(i + 1));
@@ -180,7 +413,7 @@ public class NotebookSessionManager {
             if (checkEmptyString(configs.getAddModules()) && prjConfigMap.containsKey(ADD_MODULES)) {
                 addOption.accept(ADD_MODULES, prjConfigMap.get(ADD_MODULES));
             }
-            enablePreview = enablePreview || projOptions.contains(ENABLE_PREVIEW);
+            enablePreview = enablePreview || launchConfig.isPreviewEnabled();
         }
 
         if (enablePreview) {
@@ -209,7 +442,8 @@ public class NotebookSessionManager {
         addOption.accept(ADD_MODULES, configs.getAddModules());
 
         if (prj != null) {
-            List<String> projOptions = ProjectConfigurationUtils.launchVMOptions(prj);
+            KernelLaunchConfig launchConfig = KernelLaunchConfig.forProject(prj);
+            List<String> projOptions = launchConfig.getVmOptions();
             Map<String, String> prjConfigMap = new HashMap<>();
             for (int i = 0; i < projOptions.size() - 1; i += 2) {
                 prjConfigMap.put(projOptions.get(i), projOptions.get(i + 1));
@@ -224,7 +458,7 @@ public class NotebookSessionManager {
             if (checkEmptyString(configs.getAddModules()) && prjConfigMap.containsKey(ADD_MODULES)) {
                 addOption.accept(ADD_MODULES, prjConfigMap.get(ADD_MODULES));
             }
-            enablePreview = enablePreview || projOptions.contains(ENABLE_PREVIEW);
+            enablePreview = enablePreview || launchConfig.isPreviewEnabled();
         }
         if (enablePreview) {
             remoteOptions.add(ENABLE_PREVIEW);
@@ -237,24 +471,90 @@ public class NotebookSessionManager {
     }
 
     private void onJshellInit(String notebookId, JShell jshell) {
-        jshell.onShutdown(shell -> closeSession(notebookId));
+        jshell.onShutdown(shell -> {
+            CompletableFuture<JShell> current = sessions.get(notebookId);
+            if (current != null && current.getNow(null) == shell) {
+                closeSession(notebookId);
+            }
+        });
+        startShadowAnalysis(notebookId);
+    }
 
-        List<String> elements = NotebookConfigs.getInstance().getImplicitImports();
-        if (elements != null && !elements.isEmpty()) {
-            elements.forEach(el -> CodeEval.getInstance().runCode(jshell, "import " + el));
-        } else {
-            List.of("java.util", "java.io", "java.math")
-                    .forEach(el -> CodeEval.getInstance().runCode(jshell, "import " + el + ".*"));
+    private void startShadowAnalysis(String notebookId) {
+        if (!SHADOW_ANALYSIS) {
+            return;
         }
+        List<String> compilerOptions = getKernelCompilerOptions(notebookId);
+        closeShadowAnalysis(shadowAnalyses.put(notebookId, new ShadowAnalysis(notebookId, compilerOptions != null ? compilerOptions : List.of())));
     }
 
+    private static void closeShadowAnalysis(ShadowAnalysis shadow) {
+        if (shadow != null) {
+            shadow.close();
+        }
+    }
+
+    /**
+     * @return compile-only analysis context mirroring the declarations of
+     * the kernel of the notebook, or {@code null} when there is none
+     */
+    ShadowAnalysis getShadowAnalysis(String notebookId) {
+        return shadowAnalyses.get(notebookId);
+    }
+
+    /**
+     * Declares what the kernel of the notebook declared evaluating a snippet
+     * in the analysis context of the notebook.
+     */
+    void mirrorEvaluation(String notebookId, List<SnippetEvent> events) {
+        ShadowAnalysis shadow = shadowAnalyses.get(notebookId);
+        if (shadow != null) {
+            shadow.mirror(events);
+        }
+    }
+
+    /**
+     * @return the kernel of the notebook, restoring it first when it is
+     * hibernated; {@code null} when the notebook has no session
+     */
     public CompletableFuture<JShell> getSessionFuture(String notebookId) {
-        return sessions.get(notebookId);
+        long[] accessed = new long[1];
+        AtomicReference<CompletableFuture<JShell>> woken = new AtomicReference<>();
+        CompletableFuture<JShell> future = sessions.compute(notebookId, (id, current) -> {
+            if (current == null && hibernated.remove(id)) {
+                woken.set(new CompletableFuture<>());
+                current = woken.get();
+            }
+            if (current != null) {
+                // recorded together with the lookup, so that the kernel is
+                // not hibernated before the caller gets to use it
+                accessed[0] = recordAccess(id);
+            }
+            return current;
+        });
+        if (woken.get() != null) {
+            wakeSession(notebookId, woken.get());
+        }
+        if (future != null) {
+            scheduleHibernationCheck(accessed[0]);
+        }
+        return future;
     }
 
     public JShell getSession(String notebookId) {
+        return getSession(notebookId, getSessionFuture(notebookId));
+    }
+
+    /**
+     * @return the kernel of the notebook, without restoring it when it is
+     * hibernated
+     */
+    JShell getLiveSession(String notebookId) {
+        return getSession(notebookId, sessions.get(notebookId));
+    }
+
+    private JShell getSession(String notebookId, CompletableFuture<JShell> future) {
         try {
-            CompletableFuture<JShell> future = sessions.get(notebookId);
             if (future == null) {
                 return null;
             }
@@ -269,11 +569,93 @@ public class NotebookSessionManager {
         return jshellStreamsMap.get(notebookId);
     }
 
+    KernelMetrics getKernelMetrics(String notebookId) {
+        KernelPool.Kernel kernel = kernelsMap.get(notebookId);
+        return kernel != null ? kernel.getMetrics() : null;
+    }
+
+    /**
+     * @return compiler options the kernel of the notebook was started with,
+     * or {@code null} when the notebook has no running kernel
+     */
+    List<String> getKernelCompilerOptions(String notebookId) {
+        KernelPool.Kernel kernel = kernelsMap.get(notebookId);
+        return kernel != null ? kernel.getKey().getCompilerOptions() : null;
+    }
+
+    TimedExecutionControl.Times getExecutionTimes(String notebookId) {
+        KernelPool.Kernel kernel = kernelsMap.get(notebookId);
+        return kernel != null ? kernel.getExecutionTimes() : null;
+    }
+
+    /**
+     * Samples the resource usage of the running kernels. Hibernated kernels
+     * are not restored for this.
+     *
+     * @param notebookId notebook to sample, or {@code null} for all notebooks
+     * @return samples by notebook URI; {@code null} for a kernel that could
+     * not be sampled
+     */
+    Map<String, KernelMetrics.Sample> getKernelMetricsSamples(String notebookId) {
+        Map<String, KernelMetrics.Sample> samples = new LinkedHashMap<>();
+        for (Map.Entry<String, KernelPool.Kernel> entry : kernelsMap.entrySet()) {
+            if (notebookId != null && !notebookId.equals(entry.getKey())) {
+                continue;
+            }
+            KernelMetrics.Sample sample = null;
+            try {
+                sample = entry.getValue().getMetrics().sample();
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot sample kernel of notebook {0}: {1}", new Object[]{entry.getKey(), ex.getMessage()});
+            }
+            samples.put(entry.getKey(), sample);
+        }
+        return samples;
+    }
+
     public ProjectContextInfo getNotebookPrjNameContext(String notebookId) {
         return notebookPrjMap.get(notebookId);
     }
 
+    public NotebookDocumentStateManager getNotebookState(String notebookId) {
+        return notebookStateMap.get(notebookId);
+    }
+
+    public void addNotebookState(String notebookId, NotebookDocumentStateManager state) {
+        notebookStateMap.put(notebookId, state);
+    }
+
+    public NotebookDocumentStateManager removeNotebookState(String notebookId) {
+        return notebookStateMap.remove(notebookId);
+    }
+
+    public CellDependencyGraph getDependencyGraph(String notebookId) {
+        return dependencyGraphs.computeIfAbsent(notebookId, id -> new CellDependencyGraph());
+    }
+
+    /**
+     * Computes the cells to re-run after an edit of the given cell: the cell
+     * itself followed by the code cells depending on it, in notebook order.
+     */
+    public List<String> getDownstreamCells(String notebookId, String cellId) {
+        if (notebookId == null || cellId == null) {
+            throw new IllegalArgumentException("notebookId and cellId are required");
+        }
+        NotebookDocumentStateManager state = notebookStateMap.get(notebookId);
+        JShell jshell = getSession(notebookId);
+        if (state == null || jshell == null) {
+            return List.of(cellId);
+        }
+        return getDependencyGraph(notebookId).getDownstreamCells(jshell, cellId, state.getCellsOrder(), uri -> {
+            CellState cell = state.getCell(uri);
+            return cell != null && cell.getType() == NotebookCellKind.Code ? cell.getContent() : null;
+        });
+    }
+
     public void closeSession(String notebookUri) {
+        boolean wasHibernated = hibernated.remove(notebookUri);
+        journals.remove(notebookUri);
+        lastAccess.remove(notebookUri);
         CompletableFuture<JShell> future = sessions.remove(notebookUri);
         if (future != null) {
             JShell jshell = future.getNow(null);
@@ -284,11 +666,37 @@ public class NotebookSessionManager {
             if (handler != null) {
                 handler.close();
             }
+            KernelPool.Kernel kernel = kernelsMap.remove(notebookUri);
+            if (kernel != null) {
+                kernel.getMetrics().close();
+            }
+            closeShadowAnalysis(shadowAnalyses.remove(notebookUri));
+        }
+        if (future != null || wasHibernated) {
             notebookPrjMap.remove(notebookUri);
+            dependencyGraphs.remove(notebookUri);
+            CodeEval.getInstance().closeProgressAggregator(notebookUri);
+            CodeCompletionProvider.getInstance().forgetNotebook(notebookUri);
         }
     }
 
     private CompletableFuture<Project> getProjectContextForNotebook(String notebookUri) {
+        Project prj = findProjectForNotebook(notebookUri);
+        if (prj == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return ProjectBuildCache.getInstance().buildProject(prj).thenApply(buildStatus -> {
+            if (!buildStatus) {
+                LOG.log(Level.WARNING, "Error while building project: {0}", prj.getProjectDirectory());
+                return null;
+            }
+            return prj;
+        });
+
+    }
+
+    private Project findProjectForNotebook(String notebookUri) {
         JsonObject mapping = NotebookConfigs.getInstance().getNotebookProjectMapping();
 
         URI uri = URI.create(notebookUri);
@@ -307,20 +715,52 @@ public class NotebookSessionManager {
 
         if (prj == null) {
             LOG.log(Level.WARNING, "Project not found or not open in workspace: {0}", projectKey);
-            return CompletableFuture.completedFuture(null);
         }
+        return prj;
+    }
 
-        return ProjectConfigurationUtils.buildProject(prj).thenApply(buildStatus -> {
-            if (!buildStatus) {
-                LOG.log(Level.WARNING, "Error while building project: {0}", projectKey);
-                return null;
-            }
-            return prj;
-        });
+    public CompletableFuture<Void> resetSession(String notebookUri) {
+        return resetSession(notebookUri, false);
+    }
 
+    public CompletableFuture<Void> resetSession(String notebookUri, boolean soft) {
+        return resetSession(notebookUri, soft, false);
     }
 
-    public CompletableFuture<Void> resetSession(String notebookUri) {
+    /**
+     * Resets the notebook kernel.
+     *
+     * A soft reset drops all user snippets and bootstraps the kernel again,
+     * keeping the remote VM, its JIT-compiled code and the loaded project
+     * classes. A hard reset closes the kernel, builds the project unless it
+     * is up to date and starts a new kernel, and is required to pick up class
+     * path changes.
+     *
+     * @param notebookUri notebook whose kernel is reset
+     * @param soft {@code true} for a soft reset; falls back to a hard reset
+     * when the kernel is not available
+     * @param rebuild {@code true} to build the project of a hard reset even
+     * when it is up to date
+     */
+    public CompletableFuture<Void> resetSession(String notebookUri, boolean soft, boolean rebuild) {
+        if (soft && !rebuild) {
+            CompletableFuture<JShell> future = sessions.get(notebookUri);
+            JShell jshell = future != null ? future.getNow(null) : null;
+            if (jshell != null) {
+                try {
+                    softResetSession(notebookUri, jshell);
+                    return CompletableFuture.completedFuture(null);
+                } catch (IllegalStateException ex) {
+                    LOG.log(Level.WARNING, "Soft reset of notebook session failed, restarting kernel", ex);
+                }
+            }
+        }
+        if (rebuild) {
+            Project prj = findProjectForNotebook(notebookUri);
+            if (prj != null) {
+                ProjectBuildCache.getInstance().invalidate(prj);
+            }
+        }
         closeSession(notebookUri);
         return createSession(notebookUri)
                 .thenApply(jshell -> (Void) null)
@@ -329,4 +769,35 @@ public class NotebookSessionManager {
                     throw new CompletionException(Bundle.MSG_JshellResetError(), ex);
                 });
     }
+
+    private void softResetSession(String notebookUri, JShell jshell) {
+        CodeEval.getInstance().interruptCodeExecution(notebookUri);
+
+        List<Snippet> activeSnippets = jshell.snippets()
+                .filter(snippet -> jshell.status(snippet).isActive())
+                .toList();
+        // dropping in reverse declaration order avoids re-validating
+        // dependents of snippets that are about to be dropped anyway
+        for (int i = activeSnippets.size() - 1; i >= 0; i--) {
+            jshell.drop(activeSnippets.get(i));
+        }
+
+        CellDependencyGraph graph = dependencyGraphs.get(notebookUri);
+        if (graph != null) {
+            graph.clear();
+        }
+        SessionJournal journal = journals.get(notebookUri);
+        if (journal != null) {
+            journal.clear();
+        }
+        JshellStreamsHandler handler = jshellStreamsMap.get(notebookUri);
+        if (handler != null) {
+            handler.discardOutputStreams();
+            KernelBootstrap.getCurrent().run(jshell, handler);
+        }
+        if (shadowAnalyses.containsKey(notebookUri)) {
+            startShadowAnalysis(notebookUri);
+        }
+        LOG.log(Level.FINE, "Soft reset of notebook session {0} dropped {1} snippets", new Object[]{notebookUri, activeSnippets.size()});
+    }
 }
@@ -127,21 +127,7 @@ public class NotebookUtils {
     }
 
     public static List<String> getCodeSnippets(SourceCodeAnalysis analysis, String code) {
-        String codeRemaining = code.trim();
-
-        List<String> codeSnippets = new ArrayList<>();
-        while (!codeRemaining.isEmpty()) {
-            SourceCodeAnalysis.CompletionInfo info = analysis.analyzeCompletion(codeRemaining);
-            if (info.completeness().isComplete()) {
-                codeSnippets.add(info.source());
-            } else {
-                codeSnippets.add(codeRemaining);
-                break;
-            }
-            codeRemaining = info.remaining().trim();
-        }
-
-        return codeSnippets;
+        return new ArrayList<>(SnippetIndex.build(analysis, code).getSnippets());
     }
 
     /**
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Flushes the {@link StreamingOutputStream}s of all notebooks from a single
+ * task. A stream is only scheduled after it has been written to, so streams
+ * of idle kernels cost nothing.
+ */
+final class OutputFlushScheduler {
+
+    private static final Logger LOG = Logger.getLogger(OutputFlushScheduler.class.getName());
+
+    private final RequestProcessor processor = new RequestProcessor(OutputFlushScheduler.class.getName(), 1, true, false);
+    private final RequestProcessor.Task flushTask = processor.create(this::flushDueStreams);
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+    private long scheduledAt = Long.MAX_VALUE;
+
+    static OutputFlushScheduler getInstance() {
+        return Singleton.instance;
+    }
+
+    private static class Singleton {
+
+        private static final OutputFlushScheduler instance = new OutputFlushScheduler();
+    }
+
+    /**
+     * Arms a flush of the stream after the given delay.
+     */
+    void schedule(StreamingOutputStream stream, int delay) {
+        long deadline = System.nanoTime() / 1_000_000 + delay;
+        synchronized (this) {
+            deadlines.add(new Deadline(deadline, stream));
+            if (deadline < scheduledAt) {
+                scheduledAt = deadline;
+                flushTask.schedule(delay);
+            }
+        }
+    }
+
+    /**
+     * @return number of streams waiting to be flushed
+     */
+    synchronized int getPendingCount() {
+        return deadlines.size();
+    }
+
+    private void flushDueStreams() {
+        List<StreamingOutputStream> due = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime() / 1_000_000;
+            while (!deadlines.isEmpty() && deadlines.peek().deadline <= now) {
+                due.add(deadlines.poll().stream);
+            }
+            if (deadlines.isEmpty()) {
+                scheduledAt = Long.MAX_VALUE;
+            } else {
+                scheduledAt = deadlines.peek().deadline;
+                flushTask.schedule((int) Math.max(0, scheduledAt - now));
+            }
+        }
+        for (StreamingOutputStream stream : due) {
+            try {
+                stream.scheduledFlush();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Exception occurred while flushing output stream: {0}", ex.toString());
+            }
+        }
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+
+        private final long deadline;
+        private final StreamingOutputStream stream;
+
+        Deadline(long deadline, StreamingOutputStream stream) {
+            this.deadline = deadline;
+            this.stream = stream;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of fixed size byte segments backing the
+ * {@link ChunkedBuffer}s that carry notebook output. Segments released when
+ * the pool is full are left to the garbage collector.
+ */
+final class SegmentPool {
+
+    static final int SEGMENT_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_SEGMENTS = 256;
+
+    private final Deque<byte[]> segments = new ArrayDeque<>();
+    private final int maxPooledSegments;
+    private final AtomicLong allocatedCount = new AtomicLong();
+
+    static SegmentPool getInstance() {
+        return Singleton.instance;
+    }
+
+    private static class Singleton {
+
+        private static final SegmentPool instance = new SegmentPool(MAX_POOLED_SEGMENTS);
+    }
+
+    SegmentPool(int maxPooledSegments) {
+        this.maxPooledSegments = maxPooledSegments;
+    }
+
+    byte[] acquire() {
+        byte[] segment;
+        synchronized (this) {
+            segment = segments.pollFirst();
+        }
+        if (segment == null) {
+            allocatedCount.incrementAndGet();
+            segment = new byte[SEGMENT_SIZE];
+        }
+        return segment;
+    }
+
+    void release(byte[] segment) {
+        if (segment.length != SEGMENT_SIZE) {
+            return;
+        }
+        synchronized (this) {
+            if (segments.size() < maxPooledSegments) {
+                segments.addFirst(segment);
+            }
+        }
+    }
+
+    /**
+     * @return number of segments allocated because the pool was empty
+     */
+    long getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    synchronized int getPooledCount() {
+        return segments.size();
+    }
+}
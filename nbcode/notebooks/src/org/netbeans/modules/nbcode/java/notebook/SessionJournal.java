@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+
+/**
+ * Records, in order, the snippets a notebook kernel evaluated successfully,
+ * so that the state of the kernel can be rebuilt in a new one.
+ *
+ * Declarations that were later overwritten or dropped are removed from the
+ * journal, as replaying them would only be replaced again. Statements and
+ * expressions are kept, for their side effects. A journal growing beyond its
+ * bound stops recording and is no longer {@link #isComplete() complete}, so
+ * that the kernel is kept alive rather than restored partially.
+ */
+final class SessionJournal {
+
+    private static final Logger LOG = Logger.getLogger(SessionJournal.class.getName());
+    static final int DEFAULT_MAX_ENTRIES = 5000;
+
+    private final int maxEntries;
+    private final Set<Entry> entries = new LinkedHashSet<>();
+    private final Map<Snippet, Entry> declarations = new HashMap<>();
+    private boolean overflowed;
+
+    SessionJournal() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    SessionJournal(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Records a snippet evaluated successfully.
+     *
+     * @param events events of the evaluation of the snippet
+     */
+    synchronized void record(String cellId, String source, List<SnippetEvent> events) {
+        if (overflowed) {
+            return;
+        }
+        Entry entry = new Entry(cellId, source);
+        entries.add(entry);
+        for (SnippetEvent event : events) {
+            if (event.causeSnippet() == null && event.snippet().kind().isPersistent()) {
+                declarations.put(event.snippet(), entry);
+            }
+        }
+        if (entries.size() > maxEntries) {
+            LOG.log(Level.FINE, "Session journal exceeded {0} entries, stopped recording", maxEntries);
+            overflowed = true;
+            entries.clear();
+            declarations.clear();
+        }
+    }
+
+    /**
+     * Removes the declarations overwritten or dropped by an evaluation,
+     * whether it succeeded or not.
+     */
+    synchronized void update(List<SnippetEvent> events) {
+        for (SnippetEvent event : events) {
+            Snippet.Status status = event.status();
+            if (status == Snippet.Status.OVERWRITTEN || status == Snippet.Status.DROPPED) {
+                Entry entry = declarations.remove(event.snippet());
+                if (entry != null) {
+                    entries.remove(entry);
+                }
+            }
+        }
+    }
+
+    synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return {@code false} when the journal stopped recording, so that it
+     * cannot rebuild the state of the kernel
+     */
+    synchronized boolean isComplete() {
+        return !overflowed;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        declarations.clear();
+        overflowed = false;
+    }
+
+    static final class Entry {
+
+        private final String cellId;
+        private final String source;
+
+        Entry(String cellId, String source) {
+            this.cellId = cellId;
+            this.source = source;
+        }
+
+        String getCellId() {
+            return cellId;
+        }
+
+        String getSource() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.VarSnippet;
+import jdk.jshell.spi.ExecutionControl;
+import jdk.jshell.spi.ExecutionControlProvider;
+import jdk.jshell.spi.ExecutionEnv;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Compile-only copy of the state of a notebook kernel, used to analyze code
+ * without waiting for the kernel, which does not answer while it evaluates a
+ * cell.
+ *
+ * The imports, types, methods and variables the kernel declares are
+ * declared again in a JShell of the language server whose execution engine
+ * runs nothing: initializers of variables are compiled but not evaluated,
+ * and classes are never initialized.
+ */
+final class ShadowAnalysis {
+
+    private static final Logger LOG = Logger.getLogger(ShadowAnalysis.class.getName());
+
+    private final String notebookId;
+    private final RequestProcessor processor = new RequestProcessor(ShadowAnalysis.class.getName(), 1, true, false);
+    private JShell jshell;
+    private JshellStreamsHandler streamsHandler;
+    private boolean closed;
+
+    /**
+     * Starts the analysis JShell in the background.
+     *
+     * @param compilerOptions compiler options of the kernel
+     */
+    ShadowAnalysis(String notebookId, List<String> compilerOptions) {
+        this.notebookId = notebookId;
+        processor.post(() -> start(compilerOptions));
+    }
+
+    private void start(List<String> compilerOptions) {
+        JshellStreamsHandler handler = new JshellStreamsHandler(notebookId, null);
+        JShell.Builder builder = JShell.builder()
+                .out(handler.getPrintOutStream())
+                .err(handler.getPrintErrStream())
+                .executionEngine(CompileOnlyExecutionControl.provider(), null);
+        if (!compilerOptions.isEmpty()) {
+            builder.compilerOptions(compilerOptions.toArray(new String[0]));
+        }
+        JShell shell;
+        try {
+            shell = builder.build();
+            KernelBootstrap.getCurrent().run(shell, handler);
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Unable to start analysis context of notebook {0}: {1}", new Object[]{notebookId, ex.getMessage()});
+            handler.close();
+            return;
+        }
+        synchronized (this) {
+            if (!closed) {
+                jshell = shell;
+                streamsHandler = handler;
+                return;
+            }
+        }
+        shell.close();
+        handler.close();
+    }
+
+    /**
+     * Declares in the analysis context what the kernel declared evaluating
+     * a snippet. Runs in the background, after the earlier snippets.
+     */
+    void mirror(List<SnippetEvent> events) {
+        List<String> declarations = new ArrayList<>();
+        for (SnippetEvent event : events) {
+            if (event.causeSnippet() != null || !event.status().isDefined()) {
+                continue;
+            }
+            Snippet snippet = event.snippet();
+            switch (snippet.kind()) {
+                case IMPORT:
+                case TYPE_DECL:
+                case METHOD:
+                    declarations.add(snippet.source());
+                    break;
+                case VAR:
+                    VarSnippet variable = (VarSnippet) snippet;
+                    // temporary variables of expressions are named by the
+                    // kernel, and declared with the type of the expression
+                    declarations.add(variable.subKind() == Snippet.SubKind.TEMP_VAR_EXPRESSION_SUBKIND
+                            ? variable.typeName() + " " + variable.name() + ";"
+                            : variable.source());
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (!declarations.isEmpty()) {
+            processor.post(() -> declare(declarations));
+        }
+    }
+
+    private void declare(List<String> declarations) {
+        for (String declaration : declarations) {
+            synchronized (this) {
+                if (jshell == null) {
+                    return;
+                }
+                List<SnippetEvent> events = jshell.eval(declaration);
+                if (!CodeEval.isSuccessful(events) && !events.isEmpty() && events.get(0).snippet() instanceof VarSnippet) {
+                    // type of the expression is not denotable
+                    jshell.eval("Object " + ((VarSnippet) events.get(0).snippet()).name() + ";");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the task with the analysis JShell, which must only be used to
+     * analyze code.
+     *
+     * @return result of the task, or {@code null} when the analysis context
+     * is not started yet
+     */
+    synchronized <T> T analyze(Function<JShell, T> task) {
+        return jshell != null ? task.apply(jshell) : null;
+    }
+
+    void close() {
+        JShell shell;
+        JshellStreamsHandler handler;
+        synchronized (this) {
+            closed = true;
+            shell = jshell;
+            handler = streamsHandler;
+            jshell = null;
+            streamsHandler = null;
+        }
+        if (shell != null) {
+            shell.close();
+        }
+        if (handler != null) {
+            handler.close();
+        }
+    }
+
+    /**
+     * Execution engine loading and running nothing.
+     */
+    private static final class CompileOnlyExecutionControl implements ExecutionControl {
+
+        static ExecutionControlProvider provider() {
+            return new ExecutionControlProvider() {
+                @Override
+                public String name() {
+                    return "compileOnly";
+                }
+
+                @Override
+                public ExecutionControl generate(ExecutionEnv env, Map<String, String> parameters) {
+                    return new CompileOnlyExecutionControl();
+                }
+            };
+        }
+
+        @Override
+        public void load(ClassBytecodes[] cbcs) {
+        }
+
+        @Override
+        public void redefine(ClassBytecodes[] cbcs) {
+        }
+
+        @Override
+        public String invoke(String className, String methodName) {
+            return "";
+        }
+
+        @Override
+        public String varValue(String className, String varName) {
+            return "";
+        }
+
+        @Override
+        public void addToClasspath(String path) {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public Object extensionCommand(String command, Object arg) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
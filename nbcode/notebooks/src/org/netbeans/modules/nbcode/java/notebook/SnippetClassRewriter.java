@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes the classes of in-process kernels use {@link SnippetSystem} for the
+ * standard streams and {@code System.exit}.
+ *
+ * Only the constant pool of a class file is changed: the references to the
+ * {@code out}, {@code err} and {@code in} fields and to the {@code exit}
+ * method of {@code java.lang.System} are made to point to
+ * {@link SnippetSystem}, whose members have the same names and types. The
+ * code of the methods is left as is.
+ */
+final class SnippetClassRewriter {
+
+    private static final String SYSTEM = "java/lang/System";
+    private static final String TARGET = SnippetSystem.class.getName().replace('.', '/');
+    private static final Map<String, String> REDIRECTED = new HashMap<>();
+
+    static {
+        REDIRECTED.put("out", "Ljava/io/PrintStream;");
+        REDIRECTED.put("err", "Ljava/io/PrintStream;");
+        REDIRECTED.put("in", "Ljava/io/InputStream;");
+        REDIRECTED.put("exit", "(I)V");
+    }
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int INTERFACE_METHOD_REF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int METHOD_HANDLE = 15;
+    private static final int METHOD_TYPE = 16;
+    private static final int DYNAMIC = 17;
+    private static final int INVOKE_DYNAMIC = 18;
+    private static final int MODULE = 19;
+    private static final int PACKAGE = 20;
+
+    private SnippetClassRewriter() {
+    }
+
+    /**
+     * @return the class file with the references redirected, or the same
+     * array when it has none
+     * @throws IllegalArgumentException when the class file cannot be parsed
+     */
+    static byte[] rewrite(byte[] classFile) {
+        int count = readU2(classFile, 8);
+        int[] offsets = new int[count];
+        int offset = 10;
+        for (int i = 1; i < count; i++) {
+            offsets[i] = offset;
+            int tag = classFile[offset] & 0xFF;
+            offset += 1 + getInfoLength(classFile, offset, tag);
+            if (tag == LONG || tag == DOUBLE) {
+                i++;
+            }
+        }
+        int poolEnd = offset;
+
+        List<Integer> redirected = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int tag = offsets[i] == 0 ? 0 : classFile[offsets[i]] & 0xFF;
+            if (tag != FIELD_REF && tag != METHOD_REF) {
+                continue;
+            }
+            int classIndex = readU2(classFile, offsets[i] + 1);
+            int nameAndType = offsets[readU2(classFile, offsets[i] + 3)];
+            String name = readUtf8(classFile, offsets[readU2(classFile, nameAndType + 1)]);
+            String descriptor = readUtf8(classFile, offsets[readU2(classFile, nameAndType + 3)]);
+            if (descriptor.equals(REDIRECTED.get(name)) && (tag == METHOD_REF) == name.equals("exit")
+                    && SYSTEM.equals(readUtf8(classFile, offsets[readU2(classFile, offsets[classIndex] + 1)]))) {
+                redirected.add(offsets[i]);
+            }
+        }
+        if (redirected.isEmpty()) {
+            return classFile;
+        }
+
+        byte[] rewritten = classFile.clone();
+        int targetClass = count + 1;
+        for (int ref : redirected) {
+            writeU2(rewritten, ref + 1, targetClass);
+        }
+        writeU2(rewritten, 8, count + 2);
+        ByteArrayOutputStream result = new ByteArrayOutputStream(classFile.length + TARGET.length() + 8);
+        try {
+            result.write(rewritten, 0, poolEnd);
+            DataOutputStream pool = new DataOutputStream(result);
+            pool.writeByte(UTF8);
+            pool.writeUTF(TARGET);
+            pool.writeByte(CLASS);
+            pool.writeShort(count);
+            pool.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        result.write(rewritten, poolEnd, rewritten.length - poolEnd);
+        return result.toByteArray();
+    }
+
+    private static int getInfoLength(byte[] classFile, int offset, int tag) {
+        switch (tag) {
+            case UTF8:
+                return 2 + readU2(classFile, offset + 1);
+            case CLASS:
+            case STRING:
+            case METHOD_TYPE:
+            case MODULE:
+            case PACKAGE:
+                return 2;
+            case METHOD_HANDLE:
+                return 3;
+            case INTEGER:
+            case FLOAT:
+            case FIELD_REF:
+            case METHOD_REF:
+            case INTERFACE_METHOD_REF:
+            case NAME_AND_TYPE:
+            case DYNAMIC:
+            case INVOKE_DYNAMIC:
+                return 4;
+            case LONG:
+            case DOUBLE:
+                return 8;
+            default:
+                throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at offset " + offset);
+        }
+    }
+
+    private static int readU2(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static void writeU2(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    /**
+     * Compares as modified UTF-8, which matches standard UTF-8 for the ASCII
+     * names looked for.
+     */
+    private static String readUtf8(byte[] classFile, int offset) {
+        return new String(classFile, offset + 3, readU2(classFile, offset + 1), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import jdk.jshell.SourceCodeAnalysis;
+
+/**
+ * Boundaries of the snippets the code of a cell consists of, as found by
+ * {@link SourceCodeAnalysis#analyzeCompletion(String)}.
+ *
+ * Instead of analyzing the whole remaining code for every snippet, which
+ * takes time quadratic in the length of the code, each snippet is looked for
+ * in a window of whole lines following it, doubled until the end of the
+ * snippet is found with at least one complete token after it. Splitting
+ * from a given offset only depends on the code following it, which lets an
+ * index of edited code reuse the snippets before the edit, and the ones
+ * after it once a snippet starts where one started before the edit.
+ */
+final class SnippetIndex {
+
+    private static final int INITIAL_WINDOW = 256;
+
+    private final String content;
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] sources;
+
+    private SnippetIndex(String content, int[] starts, int[] ends, String[] sources) {
+        this.content = content;
+        this.starts = starts;
+        this.ends = ends;
+        this.sources = sources;
+    }
+
+    static SnippetIndex build(SourceCodeAnalysis analysis, String content) {
+        Builder builder = new Builder(content);
+        builder.splitFrom(analysis, skipWhitespace(content, 0), null, 0);
+        return builder.build();
+    }
+
+    /**
+     * Indexes the code, re-analyzing only the part of it affected by the
+     * changes since the code of the given index.
+     */
+    static SnippetIndex update(SnippetIndex base, SourceCodeAnalysis analysis, String content) {
+        String old = base.content;
+        if (old.equals(content)) {
+            return base;
+        }
+        if (endsInsideToken(content, 0)) {
+            return build(analysis, content);
+        }
+        int maxLength = Math.min(old.length(), content.length());
+        int prefix = 0;
+        while (prefix < maxLength && old.charAt(prefix) == content.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxLength - prefix
+                && old.charAt(old.length() - 1 - suffix) == content.charAt(content.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // the end of a snippet may depend on the token following it, so a
+        // snippet is kept only when the next one is unchanged as well
+        int kept = 0;
+        while (kept + 1 < base.starts.length && base.ends[kept + 1] <= prefix) {
+            kept++;
+        }
+        Builder builder = new Builder(content);
+        for (int i = 0; i < kept; i++) {
+            builder.add(base.starts[i], base.ends[i], base.sources[i]);
+        }
+        int from = kept > 0 ? base.starts[kept] : skipWhitespace(content, 0);
+        builder.splitFrom(analysis, from, base, content.length() - suffix);
+        return builder.build();
+    }
+
+    String getContent() {
+        return content;
+    }
+
+    List<String> getSnippets() {
+        return Collections.unmodifiableList(Arrays.asList(sources));
+    }
+
+    int getSnippetCount() {
+        return starts.length;
+    }
+
+    int getStart(int index) {
+        return starts[index];
+    }
+
+    int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @return index of the last snippet starting at or before the offset, or
+     * {@code -1} when there is none
+     */
+    int getSnippetAt(int offset) {
+        int found = Arrays.binarySearch(starts, offset);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static int skipWhitespace(String text, int offset) {
+        while (offset < text.length() && text.charAt(offset) <= ' ') {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return offset of the first token at or after the offset, skipping
+     * whitespace and comments
+     */
+    private static int skipComments(String text, int offset) {
+        while (true) {
+            offset = skipWhitespace(text, offset);
+            if (text.startsWith("//", offset)) {
+                int lineEnd = text.indexOf('\n', offset);
+                offset = lineEnd < 0 ? text.length() : lineEnd;
+            } else if (text.startsWith("/*", offset)) {
+                int commentEnd = text.indexOf("*/", offset + 2);
+                offset = commentEnd < 0 ? text.length() : commentEnd + 2;
+            } else {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Analysis of code ending inside a block comment or a text block finds
+     * the rest of the code incomplete from any offset preceding it, so such
+     * code is a single snippet.
+     *
+     * @return whether the code from the offset ends inside a block comment
+     * or a text block
+     */
+    private static boolean endsInsideToken(String text, int offset) {
+        int length = text.length();
+        for (int i = offset; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '/' && text.startsWith("//", i)) {
+                int lineEnd = text.indexOf('\n', i);
+                i = lineEnd < 0 ? length : lineEnd;
+            } else if (c == '/' && text.startsWith("/*", i)) {
+                int commentEnd = text.indexOf("*/", i + 2);
+                if (commentEnd < 0) {
+                    return true;
+                }
+                i = commentEnd + 1;
+            } else if (c == '"' && text.startsWith("\"\"\"", i)) {
+                i = skipLiteral(text, i + 3, "\"\"\"", false);
+                if (i < 0) {
+                    return true;
+                }
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(text, i + 1, String.valueOf(c), true);
+                if (i < 0) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return offset of the last character of the closing delimiter, or
+     * {@code -1} when the literal is not closed
+     */
+    private static int skipLiteral(String text, int offset, String delimiter, boolean singleLine) {
+        for (int i = offset; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (singleLine && c == '\n') {
+                return i;
+            } else if (text.startsWith(delimiter, i)) {
+                return i + delimiter.length() - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Builder {
+
+        private final String content;
+        private final List<String> sources = new ArrayList<>();
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+
+        Builder(String content) {
+            this.content = content;
+        }
+
+        void add(int start, int end, String source) {
+            int count = sources.size();
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            sources.add(source);
+        }
+
+        /**
+         * @param base index of earlier code whose snippets are reused once a
+         * snippet starts at or after {@code unchangedFrom}, may be
+         * {@code null}
+         * @param unchangedFrom offset from which the code equals the end of
+         * the code of the base index
+         */
+        void splitFrom(SourceCodeAnalysis analysis, int from, SnippetIndex base, int unchangedFrom) {
+            int length = content.length();
+            while (length > 0 && content.charAt(length - 1) <= ' ') {
+                length--;
+            }
+            int delta = base != null ? content.length() - base.content.length() : 0;
+            int position = from;
+            if (position < length && endsInsideToken(content, position)) {
+                add(position, length, content.substring(position, length));
+                return;
+            }
+            while (position < length) {
+                if (base != null && position >= unchangedFrom) {
+                    int reused = Arrays.binarySearch(base.starts, position - delta);
+                    if (reused >= 0) {
+                        for (int i = reused; i < base.starts.length; i++) {
+                            add(base.starts[i] + delta, base.ends[i] + delta, base.sources[i]);
+                        }
+                        return;
+                    }
+                }
+                int window = INITIAL_WINDOW;
+                while (true) {
+                    int limit = position + window;
+                    boolean whole = limit >= length;
+                    String text;
+                    if (whole) {
+                        text = content.substring(position, length);
+                    } else {
+                        int lineEnd = content.indexOf('\n', limit);
+                        whole = lineEnd < 0 || lineEnd >= length;
+                        text = whole ? content.substring(position, length) : content.substring(position, lineEnd + 1);
+                    }
+                    SourceCodeAnalysis.CompletionInfo info = analysis.analyzeCompletion(text);
+                    if (!info.completeness().isComplete()) {
+                        if (whole) {
+                            add(position, length, text);
+                            return;
+                        }
+                    } else {
+                        String remaining = info.remaining();
+                        if (whole || skipComments(remaining, 0) < remaining.length()) {
+                            int end = position + text.length() - remaining.length();
+                            add(position, end, info.source());
+                            position = skipWhitespace(content, end);
+                            break;
+                        }
+                    }
+                    window *= 2;
+                }
+            }
+        }
+
+        SnippetIndex build() {
+            int count = sources.size();
+            return new SnippetIndex(content, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), sources.toArray(new String[0]));
+        }
+    }
+}
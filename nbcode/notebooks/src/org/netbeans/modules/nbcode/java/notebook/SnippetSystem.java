@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import jdk.jshell.spi.ExecutionEnv;
+
+/**
+ * Standard streams and {@code exit} of the code run by in-process kernels,
+ * used in place of those of {@link System} by the classes they load.
+ *
+ * The streams route the snippet threads of a kernel to its
+ * {@link ExecutionEnv}, other threads use the streams of the process.
+ * {@link #exit(int)} never stops the process.
+ *
+ * @see SnippetClassRewriter
+ */
+public final class SnippetSystem {
+
+    private static final InheritableThreadLocal<ExecutionEnv> CURRENT_ENV = new InheritableThreadLocal<>();
+
+    public static final PrintStream out = new PrintStream(new RoutingOutputStream(false), true);
+    public static final PrintStream err = new PrintStream(new RoutingOutputStream(true), true);
+    public static final InputStream in = new RoutingInputStream();
+
+    private SnippetSystem() {
+    }
+
+    /**
+     * Refuses to stop the language server the kernel runs in.
+     *
+     * @throws SecurityException always
+     */
+    public static void exit(int status) {
+        throw new SecurityException("System.exit(" + status + ") is not allowed in an in-process kernel, restart the kernel instead");
+    }
+
+    /**
+     * Routes the streams of this thread, and of the threads it starts, to the
+     * environment, or to the process when {@code null}.
+     */
+    static void setCurrentEnv(ExecutionEnv env) {
+        if (env == null) {
+            CURRENT_ENV.remove();
+        } else {
+            CURRENT_ENV.set(env);
+        }
+    }
+
+    private static final class RoutingOutputStream extends OutputStream {
+
+        private final boolean error;
+
+        RoutingOutputStream(boolean error) {
+            this.error = error;
+        }
+
+        private OutputStream target() {
+            ExecutionEnv env = CURRENT_ENV.get();
+            if (env == null) {
+                return error ? System.err : System.out;
+            }
+            return error ? env.userErr() : env.userOut();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    private static final class RoutingInputStream extends InputStream {
+
+        private InputStream source() {
+            ExecutionEnv env = CURRENT_ENV.get();
+            return env == null ? System.in : env.userIn();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return source().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return source().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return source().available();
+        }
+    }
+}
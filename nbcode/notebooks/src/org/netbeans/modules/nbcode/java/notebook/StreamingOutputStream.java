@@ -15,66 +15,87 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
-import org.openide.util.RequestProcessor;
-import org.openide.util.RequestProcessor.Task;
+import org.openide.util.NbBundle;
 
 /**
  *
  * @author atalati
  */
+@NbBundle.Messages({
+    "# {0} - number of omitted bytes",
+    "MSG_CellOutputOmitted=\n... {0} bytes of output omitted ...\n"
+})
 public class StreamingOutputStream extends OutputStream {
 
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-    private final Consumer<byte[]> callback;
-    private static final int MAX_BUFFER_SIZE = 1024;
-    private final AtomicBoolean isPeriodicFlushOutputStream;
-    private final boolean noop;
-
-    static RequestProcessor getRequestProcessor() {
-        return RPSingleton.instance;
-    }
-
-    private static int getRequestPeriodicTime() {
-        return RPSingleton.PERIODIC_TIME;
-    }
+    private static final String HIGH_WATER_MARK_PROPERTY = "nbcode.notebook.output.highWaterMark"; // NOI18N
+    static final int DEFAULT_HIGH_WATER_MARK = SegmentPool.SEGMENT_SIZE;
 
-    private static final class RPSingleton {
+    private final ChunkedBuffer buffer = new ChunkedBuffer();
+    private final Consumer<ChunkedBuffer> callback;
+    private final int highWaterMark;
+    // Output written shortly after a flush is sent within MIN_FLUSH_INTERVAL,
+    // sustained output is batched with an interval growing up to MAX_FLUSH_INTERVAL
+    static final int MIN_FLUSH_INTERVAL = 20;
+    static final int MAX_FLUSH_INTERVAL = 200;
+    private final boolean noop;
+    private boolean flushArmed;
+    private boolean closed;
+    private int flushInterval = MIN_FLUSH_INTERVAL;
+    private long lastScheduledFlush;
+    private String cellId;
+    private long cellWritten;
+    private long headLimit = Long.MAX_VALUE;
+    private int tailSize;
+    private CellOutputSpill activeSpill;
+    private final Map<String, CellOutputSpill> spills = new HashMap<>();
 
-        private static final RequestProcessor instance = new RequestProcessor(StreamingOutputStream.class.getName(), 1, true, false);
-        private static final int PERIODIC_TIME = 100;
+    public StreamingOutputStream(Consumer<ChunkedBuffer> callback) {
+        this(callback, Integer.getInteger(HIGH_WATER_MARK_PROPERTY, DEFAULT_HIGH_WATER_MARK));
     }
 
-    public StreamingOutputStream(Consumer<byte[]> callback) {
+    /**
+     * @param callback receives the buffered output; it may take over the
+     * content with {@link ChunkedBuffer#append}, whatever is left in the
+     * buffer when it returns is released
+     * @param highWaterMark number of buffered bytes above which the output is
+     * passed to the callback without waiting for the scheduled flush
+     */
+    public StreamingOutputStream(Consumer<ChunkedBuffer> callback, int highWaterMark) {
         this.noop = callback == null;
         this.callback = callback;
-        this.isPeriodicFlushOutputStream = new AtomicBoolean(!noop);
-        createAndScheduleTask();
+        this.highWaterMark = Math.max(1, highWaterMark);
     }
 
     @Override
     public synchronized void write(int b) throws IOException {
         if (noop) return;
+        if (cellWritten >= headLimit) {
+            writeLimited(new byte[]{(byte) b}, 0, 1);
+            return;
+        }
+        cellWritten++;
         buffer.write(b);
         ifBufferOverflowFlush();
+        armFlush();
     }
 
     @Override
     public synchronized void write(byte[] b, int off, int len) throws IOException {
         if (noop) return;
-        if (len >= MAX_BUFFER_SIZE) {
-            flushToCallback();
-            byte[] chunk = new byte[len];
-            System.arraycopy(b, off, chunk, 0, len);
-            callback.accept(chunk);
+        if (cellWritten + len > headLimit) {
+            writeLimited(b, off, len);
             return;
         }
+        cellWritten += len;
         buffer.write(b, off, len);
         ifBufferOverflowFlush();
+        armFlush();
     }
 
     @Override
@@ -83,6 +104,90 @@ public class StreamingOutputStream extends OutputStream {
         flushToCallback();
     }
 
+    public synchronized void discard() {
+        if (noop) return;
+        buffer.release();
+        if (activeSpill != null) {
+            activeSpill.delete();
+            activeSpill = null;
+        }
+    }
+
+    /**
+     * Starts counting the output of a cell against its budget. Once the
+     * budget is used up, only the first and last halves of it are sent; the
+     * output in between is spilled to a file and can be read back with
+     * {@link #readSpilledOutput}.
+     *
+     * @param budget maximum number of bytes of output sent for the cell,
+     * {@code 0} for no limit
+     */
+    synchronized void startCell(String cellId, long budget) {
+        if (noop) return;
+        finishCell();
+        CellOutputSpill previous = spills.remove(cellId);
+        if (previous != null) {
+            previous.delete();
+        }
+        this.cellId = cellId;
+        this.tailSize = (int) Math.min(budget / 2, Integer.MAX_VALUE - 8);
+        this.headLimit = budget > 0 ? budget - tailSize : Long.MAX_VALUE;
+    }
+
+    /**
+     * Sends the kept tail of the output of the current cell, if its budget
+     * was exceeded, and stops counting.
+     */
+    synchronized void finishCell() {
+        if (noop) return;
+        if (activeSpill != null) {
+            CellOutputSpill spill = activeSpill;
+            activeSpill = null;
+            spill.finish();
+            byte[] tail = spill.getTail();
+            long omitted = spill.getLength() - tail.length;
+            if (omitted > 0) {
+                byte[] marker = Bundle.MSG_CellOutputOmitted(omitted).getBytes(StandardCharsets.UTF_8);
+                buffer.write(marker, 0, marker.length);
+                spills.put(cellId, spill);
+            } else {
+                spill.delete();
+            }
+            buffer.write(tail, 0, tail.length);
+            flushToCallback();
+        }
+        cellId = null;
+        cellWritten = 0;
+        headLimit = Long.MAX_VALUE;
+        tailSize = 0;
+    }
+
+    /**
+     * Reads back output of a cell that was not sent because it exceeded the
+     * budget of the cell.
+     *
+     * @return the page, or {@code null} when no output of the cell was
+     * spilled
+     */
+    synchronized CellOutputSpill.Page readSpilledOutput(String cellId, long offset, int length) throws IOException {
+        CellOutputSpill spill = activeSpill != null && cellId.equals(this.cellId) ? activeSpill : spills.get(cellId);
+        return spill != null ? spill.read(offset, length) : null;
+    }
+
+    private void writeLimited(byte[] b, int off, int len) {
+        int head = (int) Math.max(0, Math.min(len, headLimit - cellWritten));
+        cellWritten += len;
+        if (head > 0) {
+            buffer.write(b, off, head);
+            ifBufferOverflowFlush();
+            armFlush();
+        }
+        if (activeSpill == null) {
+            activeSpill = new CellOutputSpill(headLimit, tailSize);
+        }
+        activeSpill.write(b, off + head, len - head);
+    }
+
     @Override
     public synchronized void write(byte[] b) throws IOException {
         if (noop) return;
@@ -93,14 +198,20 @@ public class StreamingOutputStream extends OutputStream {
     public synchronized void close() throws IOException {
         if (!noop) {
             flushToCallback();
-            isPeriodicFlushOutputStream.set(false);
+            closed = true;
+            if (activeSpill != null) {
+                activeSpill.delete();
+                activeSpill = null;
+            }
+            spills.values().forEach(CellOutputSpill::delete);
+            spills.clear();
         }
         super.close();
     }
 
     private void ifBufferOverflowFlush() {
         if (noop) return;
-        if (buffer.size() > MAX_BUFFER_SIZE) {
+        if (buffer.size() >= highWaterMark) {
             flushToCallback();
         }
     }
@@ -108,19 +219,38 @@ public class StreamingOutputStream extends OutputStream {
     private synchronized void flushToCallback() {
         if (noop) return;
         if (buffer.size() > 0) {
-            byte[] output = buffer.toByteArray();
-            buffer.reset();
-            callback.accept(output);
+            try {
+                callback.accept(buffer);
+            } finally {
+                buffer.release();
+            }
         }
     }
 
-    private void createAndScheduleTask() {
-        if (isPeriodicFlushOutputStream.get()) {
-            Task task = getRequestProcessor().create(() -> {
-                flushToCallback();
-                createAndScheduleTask();
-            });
-            task.schedule(getRequestPeriodicTime());
+    private void armFlush() {
+        if (!flushArmed && !closed && buffer.size() > 0) {
+            flushArmed = true;
+            OutputFlushScheduler.getInstance().schedule(this, flushInterval);
         }
     }
+
+    /**
+     * Invoked by the {@link OutputFlushScheduler} once the armed deadline
+     * passes. The interval doubles while the stream keeps being re-armed
+     * right after its previous scheduled flush, and drops back to the minimum
+     * once the output pauses.
+     */
+    synchronized void scheduledFlush() {
+        flushArmed = false;
+        long now = System.nanoTime() / 1_000_000;
+        boolean sustained = now - lastScheduledFlush <= 2L * flushInterval;
+        flushInterval = sustained ? Math.min(flushInterval * 2, MAX_FLUSH_INTERVAL) : MIN_FLUSH_INTERVAL;
+        lastScheduledFlush = now;
+        flushToCallback();
+    }
+
+    // Made package-private for easy unit test
+    synchronized int getFlushInterval() {
+        return flushInterval;
+    }
 }
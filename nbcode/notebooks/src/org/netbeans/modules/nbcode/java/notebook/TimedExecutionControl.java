@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jshell.spi.ExecutionControl;
+import jdk.jshell.spi.ExecutionControlProvider;
+import jdk.jshell.spi.ExecutionEnv;
+
+/**
+ * Measures how long the execution engine of a kernel spends loading the
+ * classes of snippets and running them. The rest of the time spent in
+ * {@code JShell.eval} is analysis and compilation.
+ */
+final class TimedExecutionControl implements ExecutionControl {
+
+    private final ExecutionControl delegate;
+    private final Times times;
+
+    private TimedExecutionControl(ExecutionControl delegate, Times times) {
+        this.delegate = delegate;
+        this.times = times;
+    }
+
+    /**
+     * @return provider of the execution engine JShell uses by default,
+     * reporting to the given times
+     */
+    static ExecutionControlProvider provider(Times times) {
+        String loopback = InetAddress.getLoopbackAddress().getHostAddress();
+        return provider("failover:0(jdi:hostname(" + loopback + ")),1(jdi:launch(true)), 2(jdi)", times);
+    }
+
+    /**
+     * @param spec specification of the execution engine to measure, as
+     * accepted by {@link ExecutionControl#generate(ExecutionEnv, String)}
+     */
+    static ExecutionControlProvider provider(String spec, Times times) {
+        return new ExecutionControlProvider() {
+            @Override
+            public String name() {
+                return "timed";
+            }
+
+            @Override
+            public ExecutionControl generate(ExecutionEnv env, Map<String, String> parameters) throws Throwable {
+                return new TimedExecutionControl(ExecutionControl.generate(env, spec), times);
+            }
+        };
+    }
+
+    /**
+     * @param delegate provider of the execution engine to measure, used with
+     * its default parameters
+     */
+    static ExecutionControlProvider provider(ExecutionControlProvider delegate, Times times) {
+        return new ExecutionControlProvider() {
+            @Override
+            public String name() {
+                return "timed";
+            }
+
+            @Override
+            public ExecutionControl generate(ExecutionEnv env, Map<String, String> parameters) throws Throwable {
+                return new TimedExecutionControl(delegate.generate(env, delegate.defaultParameters()), times);
+            }
+        };
+    }
+
+    @Override
+    public void load(ClassBytecodes[] cbcs) throws ClassInstallException, NotImplementedException, EngineTerminationException {
+        long start = System.nanoTime();
+        try {
+            delegate.load(cbcs);
+        } finally {
+            times.loadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void redefine(ClassBytecodes[] cbcs) throws ClassInstallException, NotImplementedException, EngineTerminationException {
+        long start = System.nanoTime();
+        try {
+            delegate.redefine(cbcs);
+        } finally {
+            times.loadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String invoke(String className, String methodName) throws RunException, EngineTerminationException, InternalException {
+        long start = System.nanoTime();
+        try {
+            return delegate.invoke(className, methodName);
+        } finally {
+            times.runTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String varValue(String className, String varName) throws RunException, EngineTerminationException, InternalException {
+        long start = System.nanoTime();
+        try {
+            return delegate.varValue(className, varName);
+        } finally {
+            times.runTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void addToClasspath(String path) throws EngineTerminationException, InternalException {
+        delegate.addToClasspath(path);
+    }
+
+    @Override
+    public void stop() throws EngineTerminationException, InternalException {
+        delegate.stop();
+    }
+
+    @Override
+    public Object extensionCommand(String command, Object arg) throws RunException, EngineTerminationException, InternalException {
+        return delegate.extensionCommand(command, arg);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Total time, in nanoseconds, an execution engine spent in each phase.
+     */
+    static final class Times {
+
+        private final AtomicLong loadTime = new AtomicLong();
+        private final AtomicLong runTime = new AtomicLong();
+
+        long getLoadTime() {
+            return loadTime.get();
+        }
+
+        long getRunTime() {
+            return runTime.get();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.netbeans.api.java.platform.JavaPlatform;
 import org.netbeans.api.project.Project;
 import org.netbeans.modules.nbcode.java.notebook.NotebookSessionManager;
 import org.netbeans.modules.nbcode.java.notebook.NotebookUtils;
@@ -51,21 +52,22 @@ public class CommandHandler {
         }
         
         return prjFuture.thenCompose(prj -> {  
-            Collection<FileObject> installLocations = ProjectConfigurationUtils.findPlatform(prj).getInstallFolders();
+            JavaPlatform platform = prj != null ? KernelLaunchConfig.forProject(prj).getPlatform() : ProjectConfigurationUtils.findPlatform(prj);
+            Collection<FileObject> installLocations = platform.getInstallFolders();
             FileObject installationFolder = installLocations.isEmpty() ? null : installLocations.toArray(new FileObject[0])[0];
             String installationPath = installationFolder != null ? installationFolder.getPath() : null;
             
             if (prj == null) {
                 return CompletableFuture.completedFuture(new OpenJshellResponse(installationPath, new ArrayList<>()));
             }
-            return ProjectConfigurationUtils.buildProject(prj)
+            return ProjectBuildCache.getInstance().buildProject(prj)
                     .thenCompose(isBuildSuccess -> {
                         if (isBuildSuccess) {
                             LOG.log(Level.INFO, "Opened Jshell instance with build success status");
                         } else {
                             LOG.log(Level.WARNING, "Opened Jshell instance with build failed status");
                         }                        
-                        List<String> vmOptions = ProjectConfigurationUtils.launchVMOptions(prj);
+                        List<String> vmOptions = new ArrayList<>(KernelLaunchConfig.forProject(prj).getVmOptions());
                         return CompletableFuture.completedFuture(new OpenJshellResponse(installationPath, vmOptions));
                     });
         });
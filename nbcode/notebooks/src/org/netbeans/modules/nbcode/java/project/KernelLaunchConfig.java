@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.project;
+
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.annotations.common.NonNull;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.classpath.JavaClassPathConstants;
+import org.netbeans.api.java.platform.JavaPlatform;
+import org.netbeans.api.java.queries.CompilerOptionsQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.Sources;
+import org.openide.filesystems.FileObject;
+import org.openide.util.WeakListeners;
+
+/**
+ * Options to launch a notebook kernel for a project: its compiler options, VM
+ * options, platform and whether preview features are enabled.
+ *
+ * The configuration of a project is computed once and shared by all the
+ * notebooks of the project, until a class path or the compiler options of one
+ * of its source roots, or the source roots themselves, change.
+ *
+ * @author atalati
+ */
+public final class KernelLaunchConfig {
+
+    private static final Logger LOG = Logger.getLogger(KernelLaunchConfig.class.getName());
+    private static final String[] CLASS_PATH_TYPES = {
+        ClassPath.BOOT,
+        ClassPath.COMPILE,
+        ClassPath.EXECUTE,
+        JavaClassPathConstants.MODULE_COMPILE_PATH,
+        JavaClassPathConstants.MODULE_EXECUTE_PATH
+    };
+    private static final Map<Project, KernelLaunchConfig> CONFIGS = new WeakHashMap<>();
+
+    private final List<String> compilerOptions;
+    private final List<String> vmOptions;
+    private final JavaPlatform platform;
+    private final boolean previewEnabled;
+    private volatile boolean valid = true;
+
+    // the listened objects and the listeners are kept for as long as the
+    // configuration, the objects only listen weakly
+    private final List<Object> listened = new ArrayList<>();
+    private final PropertyChangeListener classPathListener = evt -> invalidate();
+    private final ChangeListener changeListener = evt -> invalidate();
+
+    private KernelLaunchConfig(Project project) {
+        Sources sources = ProjectUtils.getSources(project);
+        sources.addChangeListener(WeakListeners.change(changeListener, sources));
+        listened.add(sources);
+
+        List<FileObject> roots = ProjectConfigurationUtils.getNonTestRoots(project);
+        for (FileObject root : roots) {
+            for (String type : CLASS_PATH_TYPES) {
+                ClassPath cp = ClassPath.getClassPath(root, type);
+                if (cp != null) {
+                    cp.addPropertyChangeListener(WeakListeners.propertyChange(classPathListener, cp));
+                    listened.add(cp);
+                }
+            }
+        }
+        for (FileObject source : getPreviewSources(project, roots)) {
+            CompilerOptionsQuery.Result result = CompilerOptionsQuery.getOptions(source);
+            result.addChangeListener(WeakListeners.change(changeListener, result));
+            listened.add(result);
+        }
+
+        this.platform = ProjectConfigurationUtils.findPlatform(project);
+        this.previewEnabled = ProjectConfigurationUtils.isPreviewEnabled(project, roots);
+        boolean modular = ProjectModulePathConfigurationUtils.isModularProject(platform, roots);
+        this.compilerOptions = Collections.unmodifiableList(
+                ProjectConfigurationUtils.compilerOptions(project, modular, roots, previewEnabled));
+        this.vmOptions = Collections.unmodifiableList(
+                ProjectConfigurationUtils.launchVMOptions(project, modular, roots, previewEnabled));
+    }
+
+    /**
+     * @return the configuration of the project, computed when the project has
+     * none or its configuration changed
+     */
+    @NonNull
+    public static KernelLaunchConfig forProject(@NonNull Project project) {
+        synchronized (CONFIGS) {
+            KernelLaunchConfig config = CONFIGS.get(project);
+            if (config != null && config.valid) {
+                return config;
+            }
+        }
+        // computed outside of the lock, as the project queries may take
+        // project locks; concurrent computations give equal configurations
+        KernelLaunchConfig config = new KernelLaunchConfig(project);
+        synchronized (CONFIGS) {
+            CONFIGS.put(project, config);
+        }
+        return config;
+    }
+
+    public List<String> getCompilerOptions() {
+        return compilerOptions;
+    }
+
+    public List<String> getVmOptions() {
+        return vmOptions;
+    }
+
+    public JavaPlatform getPlatform() {
+        return platform;
+    }
+
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    private void invalidate() {
+        if (valid) {
+            valid = false;
+            LOG.log(Level.FINE, "Kernel launch configuration invalidated");
+        }
+    }
+
+    /**
+     * @return sources whose compiler options decide whether preview features
+     * are enabled, as in
+     * {@link ProjectConfigurationUtils#isPreviewEnabled(Project, List)}
+     */
+    private static Set<FileObject> getPreviewSources(Project project, List<FileObject> roots) {
+        Set<FileObject> sources = new LinkedHashSet<>();
+        addPreviewSources(sources, project, roots);
+        Set<Project> subProjects = ProjectUtils.getContainedProjects(project, true);
+        if (subProjects != null) {
+            for (Project subProject : subProjects) {
+                addPreviewSources(sources, subProject, ProjectConfigurationUtils.getNonTestRoots(subProject));
+            }
+        }
+        return sources;
+    }
+
+    private static void addPreviewSources(Set<FileObject> sources, Project project, List<FileObject> roots) {
+        if (roots.isEmpty()) {
+            FileObject directory = project.getProjectDirectory();
+            if (directory != null) {
+                sources.add(directory);
+            }
+        } else {
+            sources.addAll(roots);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.java.queries.BinaryForSourceQuery;
+import org.netbeans.api.java.queries.SourceForBinaryQuery;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.SourceGroup;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Builds projects for notebook kernels only when their inputs may have
+ * changed since they were last built.
+ *
+ * The inputs of a project are the files of its non-test source, resource and
+ * module roots and its build scripts, including those of the projects it
+ * contains and of the projects its sources depend on. A project is up to
+ * date when the timestamps, sizes and names of its inputs did not change
+ * since its last successful build, or, before it is built for the first time,
+ * when its compiled classes are newer than all its inputs. Projects can be
+ * {@link #invalidate(Project) invalidated} to have them built anyway, also
+ * while a build of the project is running. The inputs are walked in the
+ * background, never on the thread requesting the build.
+ *
+ * @author atalati
+ */
+public class ProjectBuildCache {
+
+    private static final Logger LOG = Logger.getLogger(ProjectBuildCache.class.getName());
+    private static final Set<String> BUILD_FILES = Set.of(
+            "pom.xml",
+            "build.gradle",
+            "build.gradle.kts",
+            "settings.gradle",
+            "settings.gradle.kts",
+            "gradle.properties",
+            "build.xml");
+    private static final String[] SOURCE_TYPES = {
+        JavaProjectConstants.SOURCES_TYPE_JAVA,
+        JavaProjectConstants.SOURCES_TYPE_RESOURCES,
+        JavaProjectConstants.SOURCES_TYPE_MODULES
+    };
+
+    private final Map<Project, Fingerprint> builtProjects = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Project, CompletableFuture<Boolean>> pendingBuilds = new ConcurrentHashMap<>();
+    private final Function<Project, CompletableFuture<Boolean>> builder;
+    private final Function<Project, List<Path>> inputsOf;
+    private final Function<Project, List<Path>> outputsOf;
+    private final Executor fingerprinter;
+
+    private ProjectBuildCache() {
+        this(ProjectConfigurationUtils::buildProject, ProjectBuildCache::getInputs, ProjectBuildCache::getOutputs,
+                new RequestProcessor(ProjectBuildCache.class.getName(), 1, true, false));
+    }
+
+    /**
+     * @param builder builds a project
+     * @param inputsOf files and directories a build of a project reads
+     * @param outputsOf directories a build of a project writes classes to
+     * @param fingerprinter runs the walks of the inputs and outputs
+     */
+    ProjectBuildCache(Function<Project, CompletableFuture<Boolean>> builder,
+            Function<Project, List<Path>> inputsOf,
+            Function<Project, List<Path>> outputsOf,
+            Executor fingerprinter) {
+        this.builder = builder;
+        this.inputsOf = inputsOf;
+        this.outputsOf = outputsOf;
+        this.fingerprinter = fingerprinter;
+    }
+
+    public static ProjectBuildCache getInstance() {
+        return Singleton.instance;
+    }
+
+    private static class Singleton {
+
+        private static final ProjectBuildCache instance = new ProjectBuildCache();
+    }
+
+    /**
+     * Builds the project unless it is up to date. Concurrent requests for a
+     * project share its build.
+     *
+     * @return whether the project is up to date or was built successfully
+     */
+    public CompletableFuture<Boolean> buildProject(Project project) {
+        // taken before the inputs are walked, so that an invalidation made
+        // meanwhile is kept
+        Fingerprint previous = builtProjects.get(project);
+        return CompletableFuture.supplyAsync(() -> {
+            Fingerprint inputs = Fingerprint.of(inputsOf.apply(project));
+            if (isUpToDate(project, inputs)) {
+                LOG.log(Level.FINE, "Project is up to date, skipping build: {0}", project.getProjectDirectory());
+                return CompletableFuture.completedFuture(true);
+            }
+            return build(project, inputs, previous);
+        }, fingerprinter).thenCompose(Function.identity());
+    }
+
+    /**
+     * Makes the next {@link #buildProject(Project)} build the project even
+     * when it looks up to date. A build of the project running meanwhile
+     * does not make it up to date.
+     */
+    public void invalidate(Project project) {
+        builtProjects.put(project, Fingerprint.stale());
+    }
+
+    private CompletableFuture<Boolean> build(Project project, Fingerprint inputs, Fingerprint previous) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> pending = pendingBuilds.putIfAbsent(project, result);
+        if (pending != null) {
+            return pending;
+        }
+        builder.apply(project).whenComplete((success, error) -> {
+            boolean built = error == null && Boolean.TRUE.equals(success) && inputs != null;
+            builtProjects.compute(project, (p, current) -> {
+                // keeps an invalidation made during the build; inputs
+                // changed during the build are built again next time
+                if (current != previous) {
+                    return current;
+                }
+                return built ? inputs : null;
+            });
+            pendingBuilds.remove(project, result);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(success);
+            }
+        });
+        return result;
+    }
+
+    private boolean isUpToDate(Project project, Fingerprint inputs) {
+        if (inputs == null) {
+            return false;
+        }
+        Fingerprint built = builtProjects.get(project);
+        if (built != null) {
+            return built.equals(inputs);
+        }
+        Fingerprint outputs = Fingerprint.of(outputsOf.apply(project));
+        if (outputs == null || outputs.count == 0 || outputs.newest <= inputs.newest) {
+            return false;
+        }
+        builtProjects.put(project, inputs);
+        return true;
+    }
+
+    private static List<Path> getInputs(Project project) {
+        List<Path> inputs = new ArrayList<>();
+        for (Project module : getModulesAndDependencies(project)) {
+            for (FileObject root : getInputRoots(module)) {
+                File file = FileUtil.toFile(root);
+                if (file != null) {
+                    inputs.add(file.toPath());
+                }
+            }
+            File directory = FileUtil.toFile(module.getProjectDirectory());
+            if (directory != null) {
+                for (String name : BUILD_FILES) {
+                    inputs.add(directory.toPath().resolve(name));
+                }
+            }
+        }
+        return inputs;
+    }
+
+    private static List<Path> getOutputs(Project project) {
+        List<Path> outputs = new ArrayList<>();
+        for (Project module : getModules(project)) {
+            for (FileObject root : ProjectConfigurationUtils.getNonTestRoots(module)) {
+                for (URL binaryRoot : BinaryForSourceQuery.findBinaryRoots(root.toURL()).getRoots()) {
+                    File file = FileUtil.archiveOrDirForURL(binaryRoot);
+                    if (file != null) {
+                        outputs.add(file.toPath());
+                    }
+                }
+            }
+        }
+        return outputs;
+    }
+
+    private static List<FileObject> getInputRoots(Project project) {
+        List<FileObject> roots = new ArrayList<>();
+        for (String type : SOURCE_TYPES) {
+            for (SourceGroup group : ProjectUtils.getSources(project).getSourceGroups(type)) {
+                FileObject root = group.getRootFolder();
+                if (!roots.contains(root) && ProjectConfigurationUtils.isNonTestRoot(root)) {
+                    roots.add(root);
+                }
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * @return the project, the projects it contains, and the projects whose
+     * outputs are on the compile class path of any of them, transitively
+     */
+    private static Set<Project> getModulesAndDependencies(Project project) {
+        Set<Project> projects = new LinkedHashSet<>();
+        Deque<Project> queue = new ArrayDeque<>(getModules(project));
+        while (!queue.isEmpty()) {
+            Project module = queue.removeFirst();
+            if (!projects.add(module)) {
+                continue;
+            }
+            for (FileObject root : ProjectConfigurationUtils.getNonTestRoots(module)) {
+                ClassPath compile = ClassPath.getClassPath(root, ClassPath.COMPILE);
+                if (compile == null) {
+                    continue;
+                }
+                for (ClassPath.Entry entry : compile.entries()) {
+                    for (FileObject sourceRoot : SourceForBinaryQuery.findSourceRoots2(entry.getURL()).getRoots()) {
+                        Project owner = FileOwnerQuery.getOwner(sourceRoot);
+                        if (owner != null && !projects.contains(owner)) {
+                            queue.addLast(owner);
+                        }
+                    }
+                }
+            }
+        }
+        return projects;
+    }
+
+    private static Set<Project> getModules(Project project) {
+        Set<Project> modules = new LinkedHashSet<>();
+        modules.add(project);
+        Set<Project> contained = ProjectUtils.getContainedProjects(project, true);
+        if (contained != null) {
+            modules.addAll(contained);
+        }
+        return modules;
+    }
+
+    /**
+     * Names, sizes and modification times of the files under some paths.
+     */
+    private static final class Fingerprint {
+
+        private final int count;
+        private final long newest;
+        private final long checksum;
+
+        private Fingerprint(int count, long newest, long checksum) {
+            this.count = count;
+            this.newest = newest;
+            this.checksum = checksum;
+        }
+
+        /**
+         * @return fingerprint matching no files, distinct from the ones
+         * returned before
+         */
+        static Fingerprint stale() {
+            return new Fingerprint(-1, Long.MIN_VALUE, 0);
+        }
+
+        /**
+         * @return fingerprint of the files, or {@code null} when they cannot
+         * be read
+         */
+        static Fingerprint of(List<Path> paths) {
+            int count = 0;
+            long newest = Long.MIN_VALUE;
+            long checksum = 0;
+            for (Path path : paths) {
+                if (!Files.exists(path)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        if (!attributes.isRegularFile()) {
+                            continue;
+                        }
+                        long modified = attributes.lastModifiedTime().toMillis();
+                        count++;
+                        newest = Math.max(newest, modified);
+                        // independent of the order of the files
+                        checksum += Objects.hash(file.toString(), modified, attributes.size());
+                    }
+                } catch (IOException | UncheckedIOException ex) {
+                    LOG.log(Level.FINE, "Unable to read files of " + path, ex);
+                    return null;
+                }
+            }
+            return new Fingerprint(count, newest, checksum);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) obj;
+            return count == other.count && newest == other.newest && checksum == other.checksum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, newest, checksum);
+        }
+    }
+}
@@ -174,46 +174,50 @@ public class ProjectConfigurationUtils {
         if (project == null) {
             return new ArrayList<>();
         }
-        boolean isModular = ProjectModulePathConfigurationUtils.isModularProject(project);
-        if (isModular) {
+        return new ArrayList<>(KernelLaunchConfig.forProject(project).getVmOptions());
+    }
+
+    @NonNull
+    public static List<String> compilerOptions(Project project) {
+        if (project == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(KernelLaunchConfig.forProject(project).getCompilerOptions());
+    }
+
+    static List<String> launchVMOptions(@NonNull Project project, boolean modular, List<FileObject> roots, boolean previewEnabled) {
+        if (modular) {
             List<String> vmOptions = ProjectModulePathConfigurationUtils.getVmOptions(project);
-            if (isPreviewEnabled(project, getNonTestRoots(project))) {
+            if (previewEnabled) {
                 vmOptions.add(ENABLE_PREVIEW);
             }
             return vmOptions;
         }
         List<String> vmOptions = new ArrayList<>();
-        List<FileObject> roots = getNonTestRoots(project);
         if (!roots.isEmpty()) {
             ClassPath cp = ClassPath.getClassPath(roots.get(0), ClassPath.EXECUTE);
             vmOptions.addAll(Arrays.asList(CLASS_PATH, addRoots("", cp)));
         }
-        if (isPreviewEnabled(project, roots)) {
+        if (previewEnabled) {
             vmOptions.add(ENABLE_PREVIEW);
         }
         return vmOptions;
     }
 
-    @NonNull
-    public static List<String> compilerOptions(Project project) {
-        if (project == null) {
-            return new ArrayList<>();
-        }
-        boolean isModular = ProjectModulePathConfigurationUtils.isModularProject(project);
-        if (isModular) {
+    static List<String> compilerOptions(@NonNull Project project, boolean modular, List<FileObject> roots, boolean previewEnabled) {
+        if (modular) {
             List<String> compileOptions = ProjectModulePathConfigurationUtils.getCompileOptions(project);
-            if (isPreviewEnabled(project, getNonTestRoots(project))) {
+            if (previewEnabled) {
                 compileOptions.add(ENABLE_PREVIEW);
             }
             return compileOptions;
         }
         List<String> compileOptions = new ArrayList<>();
-        List<FileObject> roots = getNonTestRoots(project);
         if (!roots.isEmpty()) {
             ClassPath cp = ClassPath.getClassPath(roots.get(0), ClassPath.COMPILE);
             compileOptions.addAll(Arrays.asList(CLASS_PATH, addRoots("", cp)));
         }
-        if (isPreviewEnabled(project, roots)) {
+        if (previewEnabled) {
             compileOptions.add(ENABLE_PREVIEW);
         }
         return compileOptions;
@@ -207,12 +207,14 @@ public class ProjectModulePathConfigurationUtils {
         if (project == null) {
             return false;
         }
-        JavaPlatform platform = ProjectConfigurationUtils.findPlatform(project);
+        return isModularProject(ProjectConfigurationUtils.findPlatform(project), ProjectConfigurationUtils.getNonTestRoots(project));
+    }
+
+    static boolean isModularProject(JavaPlatform platform, List<FileObject> roots) {
         if (platform == null || !ProjectConfigurationUtils.isModularJDK(platform)) {
             return false;
         }
 
-        List<FileObject> roots = ProjectConfigurationUtils.getNonTestRoots(project);
         for (FileObject root : roots) {
             if (root.getFileObject("module-info.java") != null) {
                 return true;
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import jdk.jshell.JShell;
+import jdk.jshell.SnippetEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CellDependencyGraphTest {
+
+    private JShell jshell;
+    private CellDependencyGraph graph;
+    private Map<String, String> cells;
+
+    @Before
+    public void setUp() {
+        jshell = JShell.create();
+        graph = new CellDependencyGraph();
+        cells = new LinkedHashMap<>();
+        cells.put("cell1", "int x = 5;");
+        cells.put("cell2", "int twice() { return x * 2; }");
+        cells.put("cell3", "System.out.println(\"independent\");");
+        cells.put("cell4", "int y = twice();");
+        cells.put("cell5", "String s = \"x\";");
+        cells.put("cell6", "System.out.println(y);");
+        cells.forEach(this::evaluate);
+    }
+
+    @After
+    public void tearDown() {
+        if (jshell != null) {
+            jshell.close();
+        }
+    }
+
+    private void evaluate(String cellId, String source) {
+        List<SnippetEvent> events = new ArrayList<>();
+        for (String snippet : NotebookUtils.getCodeSnippets(jshell.sourceCodeAnalysis(), source)) {
+            events.addAll(jshell.eval(snippet));
+        }
+        graph.recordEvaluation(jshell, cellId, events);
+    }
+
+    private List<String> downstream(String cellId) {
+        return graph.getDownstreamCells(jshell, cellId, new ArrayList<>(cells.keySet()), cells::get);
+    }
+
+    @Test
+    public void testDownstreamFollowsTransitiveDependencies() {
+        assertEquals(List.of("cell1", "cell2", "cell4", "cell6"), downstream("cell1"));
+    }
+
+    @Test
+    public void testIndependentCellRunsAlone() {
+        assertEquals(List.of("cell3"), downstream("cell3"));
+        assertEquals("A string literal must not create a dependency", List.of("cell5"), downstream("cell5"));
+    }
+
+    @Test
+    public void testEditedDeclarationIsTracked() {
+        cells.put("cell3", "int z = 1;");
+        cells.put("cell5", "String s = \"\" + z;");
+
+        assertEquals(List.of("cell3", "cell5"), downstream("cell3"));
+    }
+
+    @Test
+    public void testNonCodeCellsAreSkipped() {
+        cells.put("cell2", null);
+
+        assertEquals(List.of("cell1"), downstream("cell1"));
+    }
+
+    @Test
+    public void testClearForgetsDeclarations() {
+        graph.clear();
+        cells.put("cell1", "");
+
+        assertEquals(List.of("cell1"), downstream("cell1"));
+    }
+
+    @Test
+    public void testGetReferencedIdentifiers() {
+        Set<String> identifiers = CellDependencyGraph.getReferencedIdentifiers(
+                "int a = b + 1; // c\nString d = \"e\" + 'f' + \"\"\"\n  g \"\"\"; /* h */ call(1.5e3, 0xFF);");
+
+        assertEquals(Set.of("int", "a", "b", "String", "d", "call"), identifiers);
+    }
+}
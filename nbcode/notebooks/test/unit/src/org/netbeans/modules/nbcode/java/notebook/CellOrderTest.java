@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CellOrderTest {
+
+    @Test
+    public void testSplicesMatchList() {
+        Random random = new Random(23);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add("cell" + i);
+        }
+        CellOrder order = new CellOrder(expected);
+        int next = expected.size();
+
+        for (int i = 0; i < 3000; i++) {
+            int start = random.nextInt(expected.size() + 1);
+            int deleteCount = Math.min(random.nextInt(3), expected.size() - start);
+            List<String> inserted = new ArrayList<>();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                inserted.add("cell" + next++);
+            }
+            List<String> removed = new ArrayList<>(expected.subList(start, start + deleteCount));
+            expected.subList(start, start + deleteCount).clear();
+            expected.addAll(start, inserted);
+
+            assertEquals(removed, order.splice(start, deleteCount, inserted));
+        }
+        List<String> snapshot = order.snapshot();
+        assertEquals(expected, snapshot);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), snapshot.get(i));
+            assertEquals(i, snapshot.indexOf(expected.get(i)));
+        }
+        assertEquals(-1, snapshot.indexOf("cell-unknown"));
+    }
+
+    @Test
+    public void testRepeatedInsertsAtSameIndexAreRelabeled() {
+        CellOrder order = new CellOrder(List.of("first", "last"));
+        List<String> expected = new ArrayList<>(List.of("first", "last"));
+
+        for (int i = 0; i < 200; i++) {
+            order.splice(1, 0, List.of("cell" + i));
+            expected.add(1, "cell" + i);
+        }
+
+        List<String> snapshot = order.snapshot();
+        assertEquals(expected, snapshot);
+        assertEquals(1, snapshot.indexOf("cell199"));
+        assertEquals(200, snapshot.indexOf("cell0"));
+        assertEquals(201, snapshot.indexOf("last"));
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByChanges() {
+        CellOrder order = new CellOrder(List.of("a", "b", "c"));
+        List<String> snapshot = order.snapshot();
+
+        order.splice(1, 1, List.of("x", "y"));
+
+        assertEquals(List.of("a", "b", "c"), snapshot);
+        assertEquals(1, snapshot.indexOf("b"));
+        assertEquals(-1, snapshot.indexOf("x"));
+        assertEquals(List.of("a", "x", "y", "c"), order.snapshot());
+        assertEquals(2, order.snapshot().indexOf("y"));
+    }
+}
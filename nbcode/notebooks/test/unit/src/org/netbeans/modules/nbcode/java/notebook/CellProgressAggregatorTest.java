@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Test;
+import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams;
+import org.netbeans.modules.java.lsp.server.notebook.NotebookCellExecutionProgressResultParams.EXECUTION_STATUS;
+import static org.junit.Assert.*;
+
+public class CellProgressAggregatorTest {
+
+    private static final String NOTEBOOK_ID = "file:///notebook.ijnb";
+    private static final int NO_TIMEOUT = 60_000;
+
+    private final List<NotebookCellExecutionProgressResultParams> sent = new CopyOnWriteArrayList<>();
+
+    private static ChunkedBuffer bytes(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        ChunkedBuffer buffer = new ChunkedBuffer();
+        buffer.write(data, 0, data.length);
+        return buffer;
+    }
+
+    @Test
+    public void testOutputIsMergedUntilStatusChange() {
+        CellProgressAggregator aggregator = new CellProgressAggregator(NOTEBOOK_ID, sent::add, NO_TIMEOUT, 1024 * 1024);
+
+        aggregator.statusChanged("cell1", EXECUTION_STATUS.EXECUTING);
+        for (int i = 0; i < 100; i++) {
+            aggregator.addOutput("cell1", bytes("line " + i + "\n"), false);
+        }
+        aggregator.addOutput("cell1", bytes("oops\n"), true);
+        aggregator.addDiagnostics("cell1", List.of("error: cannot find symbol"), true);
+        assertEquals(1, sent.size());
+
+        aggregator.statusChanged("cell1", EXECUTION_STATUS.SUCCESS);
+
+        assertEquals(3, sent.size());
+        assertEquals(3, aggregator.getSentCount());
+        assertEquals(101, aggregator.getCoalescedCount());
+    }
+
+    @Test
+    public void testByteBudgetFlushesImmediately() {
+        CellProgressAggregator aggregator = new CellProgressAggregator(NOTEBOOK_ID, sent::add, NO_TIMEOUT, 10);
+
+        aggregator.addOutput("cell1", bytes("123456"), false);
+        assertTrue(sent.isEmpty());
+        aggregator.addOutput("cell1", bytes("789012"), false);
+
+        assertEquals(1, sent.size());
+        assertEquals(1, aggregator.getCoalescedCount());
+    }
+
+    @Test
+    public void testOutputOfAnotherCellFlushesPending() {
+        CellProgressAggregator aggregator = new CellProgressAggregator(NOTEBOOK_ID, sent::add, NO_TIMEOUT, 1024);
+
+        aggregator.addOutput("cell1", bytes("a"), false);
+        aggregator.addDiagnostics("cell2", List.of("b"), false);
+
+        assertEquals(1, sent.size());
+        aggregator.flush();
+        assertEquals(2, sent.size());
+        assertEquals(0, aggregator.getCoalescedCount());
+    }
+
+    @Test
+    public void testFlushWindowElapses() throws InterruptedException {
+        CellProgressAggregator aggregator = new CellProgressAggregator(NOTEBOOK_ID, sent::add, 10, 1024);
+
+        aggregator.addOutput("cell1", bytes("a"), false);
+        aggregator.addOutput("cell1", bytes("b"), false);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sent.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(1, aggregator.getCoalescedCount());
+    }
+
+    @Test
+    public void testEmptyOutputIsIgnored() {
+        CellProgressAggregator aggregator = new CellProgressAggregator(NOTEBOOK_ID, sent::add, NO_TIMEOUT, 1024);
+
+        aggregator.addOutput("cell1", new ChunkedBuffer(), false);
+        aggregator.addDiagnostics("cell1", List.of(), true);
+        aggregator.flush();
+
+        assertTrue(sent.isEmpty());
+    }
+}
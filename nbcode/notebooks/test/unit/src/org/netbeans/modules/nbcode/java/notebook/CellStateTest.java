@@ -15,8 +15,16 @@
  */
 package org.netbeans.modules.nbcode.java.notebook;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import org.eclipse.lsp4j.ExecutionSummary;
 import org.eclipse.lsp4j.NotebookCell;
 import org.eclipse.lsp4j.NotebookCellKind;
@@ -183,6 +191,75 @@ public class CellStateTest extends NbTestCase{
         assertEquals("Version should remain unchanged after invalid fetch", 1, cellState.getVersionAwareContent().getVersion());
     }
 
+    /**
+     * Stress test of edits delivered out of order, while the client answers
+     * the requests for the latest content asynchronously: the edits must be
+     * applied to the versions they were made on, and readers must only see
+     * consistent versions.
+     */
+    @Test
+    public void testReorderedEditsAreRecoveredWithoutBlocking() throws Exception {
+        int lastVersion = 3000;
+        Random random = new Random(22);
+        String[] texts = new String[lastVersion + 1];
+        List<UnaryOperator<CellText>> edits = new ArrayList<>(Collections.nCopies(lastVersion + 1, null));
+        AtomicInteger misapplied = new AtomicInteger();
+        texts[1] = INITIAL_CONTENT;
+        for (int version = 2; version <= lastVersion; version++) {
+            String base = texts[version - 1];
+            int offset = random.nextInt(base.length() + 1);
+            String insert = version % 10 == 0 ? "\n" : String.valueOf((char) ('a' + version % 26));
+            texts[version] = base.substring(0, offset) + insert + base.substring(offset);
+            edits.set(version, text -> {
+                if (!text.toString().equals(base)) {
+                    misapplied.incrementAndGet();
+                }
+                return text.replace(offset, offset, insert);
+            });
+        }
+        List<Integer> deliveries = new ArrayList<>();
+        for (int version = 2; version <= lastVersion; version++) {
+            deliveries.add(version);
+        }
+        int swaps = 0;
+        for (int i = 1; i < deliveries.size(); i += 2) {
+            if (random.nextInt(8) == 0) {
+                Collections.swap(deliveries, i - 1, i);
+                swaps++;
+            }
+        }
+        AsyncClientCellState cellState = new AsyncClientCellState(notebookCell, textDocumentItem, NOTEBOOK_URI, texts);
+        AtomicBoolean delivering = new AtomicBoolean(true);
+        AtomicInteger inconsistent = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (delivering.get()) {
+                CellState.VersionAwareContent current = cellState.getVersionAwareContent();
+                if (!current.getContent().equals(texts[current.getVersion()])) {
+                    inconsistent.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        for (int version : deliveries) {
+            cellState.delivered(version);
+            cellState.applyEdit(version, edits.get(version));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (cellState.getVersionAwareContent().getVersion() < lastVersion && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        delivering.set(false);
+        reader.join();
+
+        assertEquals("Last version should be reached", lastVersion, cellState.getVersionAwareContent().getVersion());
+        assertEquals("Content should be the last version", texts[lastVersion], cellState.getContent());
+        assertEquals("Edits should be applied to their base version", 0, misapplied.get());
+        assertEquals("Readers should see consistent versions", 0, inconsistent.get());
+        assertTrue("Version gaps should be recovered from the client", cellState.requests.get() > 0);
+        assertTrue("Requests should be coalesced", cellState.requests.get() <= swaps);
+    }
+
     /**
      * Tests simple setters for metadata and execution summary.
      */
@@ -200,6 +277,34 @@ public class CellStateTest extends NbTestCase{
         assertEquals("ExecutionSummary should be updated", 100, cellState.getExecutionSummary().getExecutionOrder());
     }
 
+    /**
+     * Answers requests for the latest content with the latest version
+     * delivered, after a delay.
+     */
+    private static class AsyncClientCellState extends CellState {
+
+        private final String[] texts;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int clientVersion = 1;
+
+        AsyncClientCellState(NotebookCell notebookCell, TextDocumentItem details, String notebookUri, String[] texts) {
+            super(notebookCell, details, notebookUri);
+            this.texts = texts;
+        }
+
+        void delivered(int version) {
+            clientVersion = Math.max(clientVersion, version);
+        }
+
+        @Override
+        protected CompletableFuture<CellStateResponse> requestLatestCellState() {
+            requests.incrementAndGet();
+            int version = clientVersion;
+            return CompletableFuture.supplyAsync(() -> new CellStateResponse(texts[version], version),
+                    CompletableFuture.delayedExecutor(2, TimeUnit.MILLISECONDS));
+        }
+    }
+
     private static class TestableCellState extends CellState {
 
         private final String mockResponseText;
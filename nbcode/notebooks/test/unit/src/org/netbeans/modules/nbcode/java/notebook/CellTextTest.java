@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.Random;
+import org.eclipse.lsp4j.Position;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CellTextTest {
+
+    @Test
+    public void testPositionsMatchTextOfSeveralChunks() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            lines.append("int v").append(i).append(" = ").append(i).append(i % 7 == 0 ? ";\n\n" : ";\n");
+        }
+        String content = lines.toString();
+        CellText text = CellText.of(content);
+
+        assertEquals(content, text.toString());
+        for (int offset = -1; offset <= content.length() + 1; offset += 37) {
+            assertEquals("Offset " + offset, NotebookUtils.getPosition(content, offset), text.getPosition(offset));
+        }
+        for (int line = -1; line < 2400; line += 13) {
+            Position position = new Position(line, line % 20);
+            assertEquals("Position " + position, NotebookUtils.getOffset(content, position), text.getOffset(position));
+        }
+    }
+
+    @Test
+    public void testEditsMatchEditsOfString() {
+        Random random = new Random(21);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("line ").append(i).append('\n');
+        }
+        String content = lines.toString();
+        CellText text = CellText.of(content);
+        String[] replacements = {"", "x", "if (a) {\r\n  b();\n}\n", "\n"};
+
+        for (int i = 0; i < 2000; i++) {
+            int lineCount = content.split("\n", -1).length;
+            Position start = new Position(random.nextInt(lineCount + 1), random.nextInt(12));
+            Position end = new Position(start.getLine() + (random.nextInt(8) == 0 ? 1 : 0), start.getCharacter() + random.nextInt(4));
+            String replacement = replacements[random.nextInt(replacements.length)];
+            String expected;
+            try {
+                expected = NotebookUtils.applyChange(content, start, end, replacement);
+            } catch (IllegalArgumentException ex) {
+                CellText unchanged = text;
+                String message = assertThrows(IllegalArgumentException.class, () -> unchanged.applyChange(start, end, replacement)).getMessage();
+                assertEquals(ex.getMessage(), message);
+                continue;
+            }
+            content = expected;
+            text = text.applyChange(start, end, replacement);
+            assertEquals(content.length(), text.length());
+        }
+        assertEquals(content, text.toString());
+    }
+
+    @Test
+    public void testEmptyChangeKeepsText() {
+        CellText text = CellText.of("abc\n");
+
+        assertSame(text, text.applyChange(new Position(0, 1), new Position(0, 1), ""));
+        assertEquals("abd\n\n", text.applyChange(new Position(0, 2), new Position(0, 3), "d\r\n").toString());
+        assertEquals("", CellText.of(null).toString());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ChunkedBufferTest {
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testWriteAcrossSegments() {
+        SegmentPool pool = new SegmentPool(16);
+        ChunkedBuffer buffer = new ChunkedBuffer(pool);
+        byte[] data = randomBytes(3 * SegmentPool.SEGMENT_SIZE + 17);
+
+        buffer.write(data[0]);
+        buffer.write(data, 1, data.length - 1);
+
+        assertEquals(data.length, buffer.size());
+        assertArrayEquals(data, buffer.toByteArray());
+        assertEquals(4, pool.getAllocatedCount());
+    }
+
+    @Test
+    public void testAppendMovesContent() {
+        SegmentPool pool = new SegmentPool(16);
+        ChunkedBuffer first = new ChunkedBuffer(pool);
+        ChunkedBuffer second = new ChunkedBuffer(pool);
+        byte[] a = randomBytes(100);
+        byte[] b = randomBytes(SegmentPool.SEGMENT_SIZE + 5);
+        first.write(a, 0, a.length);
+        second.write(b, 0, b.length);
+
+        first.append(second);
+        first.write(7);
+
+        assertEquals(0, second.size());
+        byte[] expected = new byte[a.length + b.length + 1];
+        System.arraycopy(a, 0, expected, 0, a.length);
+        System.arraycopy(b, 0, expected, a.length, b.length);
+        expected[expected.length - 1] = 7;
+        assertArrayEquals(expected, first.toByteArray());
+        assertEquals("Appending must not copy into new segments", 3, pool.getAllocatedCount());
+    }
+
+    @Test
+    public void testReleasedSegmentsAreReused() {
+        SegmentPool pool = new SegmentPool(16);
+        ChunkedBuffer buffer = new ChunkedBuffer(pool);
+        byte[] data = randomBytes(SegmentPool.SEGMENT_SIZE * 2);
+
+        for (int i = 0; i < 1000; i++) {
+            buffer.write(data, 0, data.length);
+            buffer.release();
+        }
+
+        assertEquals(0, buffer.size());
+        assertEquals(2, pool.getAllocatedCount());
+        assertEquals(2, pool.getPooledCount());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        SegmentPool pool = new SegmentPool(2);
+        ChunkedBuffer buffer = new ChunkedBuffer(pool);
+        byte[] data = randomBytes(SegmentPool.SEGMENT_SIZE * 5);
+
+        buffer.write(data, 0, data.length);
+        buffer.release();
+
+        assertEquals(2, pool.getPooledCount());
+    }
+}
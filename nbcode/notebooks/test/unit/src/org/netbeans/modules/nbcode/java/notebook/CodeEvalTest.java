@@ -182,4 +182,13 @@ public class CodeEvalTest {
 
         assertTrue("Valid class declaration should have no errors", errors.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsSuccessful() {
+        assertTrue(CodeEval.isSuccessful(jshell.eval("int y = 1;")));
+        assertTrue("Unresolved references are recoverable",
+                CodeEval.isSuccessful(jshell.eval("int later() { return missing; }")));
+        assertFalse(CodeEval.isSuccessful(jshell.eval("int z = ;")));
+        assertFalse(CodeEval.isSuccessful(jshell.eval("int w = 1 / 0;")));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jshell.JShell;
+import jdk.jshell.SourceCodeAnalysis.Suggestion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompletionCacheTest {
+
+    private static final String CELL = "cell-uri";
+
+    private JShell jshell;
+    private CompletionCache cache;
+
+    @Before
+    public void setUp() {
+        jshell = JShell.create();
+        jshell.eval("String text = \"\";");
+        cache = new CompletionCache();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+    }
+
+    @Test
+    public void testNarrowingPrefixIsFilteredFromCache() {
+        String typed = "text.";
+        int[] anchor = new int[1];
+        cache.put(CELL, 1, 0, typed, typed.length(), typed.length(), suggestions(typed, anchor));
+
+        for (String extra : new String[]{"s", "su", "subS"}) {
+            String content = typed + extra + "\nint y = 0;";
+            List<Suggestion> cached = cache.get(CELL, 1 + extra.length(), 0, content, typed.length() + extra.length());
+            assertEquals(continuations(suggestions(typed + extra, anchor)), continuations(cached));
+        }
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void testSameVersionAndCursorIsExactHit() {
+        cache.put(CELL, 4, 7, "int q = te", 8, 10, List.of(suggestion("text")));
+
+        assertEquals(List.of("text"), continuations(cache.get(CELL, 4, 7, "int q = te", 10)));
+    }
+
+    @Test
+    public void testCacheMissesWhenStateChanges() {
+        cache.put(CELL, 1, 0, "text.s", 5, 6, List.of(suggestion("split("), suggestion("strip()")));
+
+        assertNull("Kernel evaluated a snippet", cache.get(CELL, 2, 1, "text.st", 7));
+        assertNull("Text before the anchor changed", cache.get(CELL, 2, 0, "test.st", 7));
+        assertNull("Cursor left the identifier", cache.get(CELL, 2, 0, "text.s(", 7));
+        assertNull("Cursor moved back", cache.get(CELL, 2, 0, "text.", 5));
+        assertEquals(List.of("strip()"), continuations(cache.get(CELL, 2, 0, "text.st", 7)));
+    }
+
+    private List<Suggestion> suggestions(String code, int[] anchor) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        List<String> continuations = new ArrayList<>();
+        for (Suggestion suggestion : jshell.sourceCodeAnalysis().completionSuggestions(code, code.length(), anchor)) {
+            if (!continuations.contains(suggestion.continuation())) {
+                continuations.add(suggestion.continuation());
+                suggestions.add(suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    private static List<String> continuations(List<Suggestion> suggestions) {
+        List<String> continuations = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            continuations.add(suggestion.continuation());
+        }
+        return continuations;
+    }
+
+    private static Suggestion suggestion(String continuation) {
+        return new Suggestion() {
+            @Override
+            public String continuation() {
+                return continuation;
+            }
+
+            @Override
+            public boolean matchesType() {
+                return false;
+            }
+        };
+    }
+}
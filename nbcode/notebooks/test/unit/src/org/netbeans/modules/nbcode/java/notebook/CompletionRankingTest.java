@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jshell.SourceCodeAnalysis.Suggestion;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompletionRankingTest {
+
+    @Test
+    public void testExactMatchAndExpectedTypeRankFirst() {
+        CompletionRanking ranking = new CompletionRanking();
+        List<Suggestion> suggestions = List.of(
+                suggestion("countAll(", false),
+                suggestion("counter", true),
+                suggestion("count", false),
+                suggestion("countdown", false));
+
+        assertEquals(List.of("count", "counter", "countAll(", "countdown"), continuations(ranking.rank(suggestions, "count", 0)));
+    }
+
+    @Test
+    public void testRecentlyUsedIdentifiersRankFirst() {
+        CompletionRanking ranking = new CompletionRanking();
+        ranking.recordUse("int total = sum(values);");
+        ranking.recordUse("var totalPrice = 3;");
+        List<Suggestion> suggestions = List.of(
+                suggestion("toString()", false),
+                suggestion("total", false),
+                suggestion("totalPrice", false),
+                suggestion("to", false));
+
+        assertEquals(List.of("totalPrice", "total", "to", "toString()"), continuations(ranking.rank(suggestions, "t", 0)));
+    }
+
+    @Test
+    public void testLimitKeepsTheBestSuggestions() {
+        CompletionRanking ranking = new CompletionRanking();
+        ranking.recordUse("item42 = 0;");
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            suggestions.add(suggestion("item" + i, false));
+        }
+
+        assertEquals(List.of("item42", "item0", "item1"), continuations(ranking.rank(suggestions, "item", 3)));
+        assertEquals(100, ranking.rank(suggestions, "item", 0).size());
+    }
+
+    private static List<String> continuations(List<Suggestion> suggestions) {
+        List<String> continuations = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            continuations.add(suggestion.continuation());
+        }
+        return continuations;
+    }
+
+    private static Suggestion suggestion(String continuation, boolean matchesType) {
+        return new Suggestion() {
+            @Override
+            public String continuation() {
+                return continuation;
+            }
+
+            @Override
+            public boolean matchesType() {
+                return matchesType;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ExecutionHistogramTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void testEmptyHistogram() {
+        ExecutionHistogram.Snapshot snapshot = new ExecutionHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99(), 0);
+        assertTrue(snapshot.getBuckets().isEmpty());
+    }
+
+    @Test
+    public void testBucketsAndPercentiles() {
+        ExecutionHistogram histogram = new ExecutionHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MS);
+        }
+        histogram.record(MS / 2);
+
+        ExecutionHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(101, snapshot.getCount());
+        assertEquals(50, snapshot.getP50(), 0);
+        assertEquals(90, snapshot.getP90(), 0);
+        assertEquals(99, snapshot.getP99(), 0);
+        assertEquals(100, snapshot.getMax(), 0);
+
+        List<ExecutionHistogram.Bucket> buckets = snapshot.getBuckets();
+        assertEquals(Long.valueOf(1), buckets.get(0).getLessThan());
+        assertEquals(1, buckets.get(0).getCount());
+        assertEquals(Long.valueOf(2), buckets.get(1).getLessThan());
+        assertEquals(1, buckets.get(1).getCount());
+        assertEquals(Long.valueOf(128), buckets.get(buckets.size() - 1).getLessThan());
+        assertEquals(37, buckets.get(buckets.size() - 1).getCount());
+    }
+
+    @Test
+    public void testOldestExecutionsAreForgotten() {
+        ExecutionHistogram histogram = new ExecutionHistogram(4);
+        histogram.record(10_000 * MS);
+        for (int i = 0; i < 4; i++) {
+            histogram.record(3 * MS);
+        }
+
+        ExecutionHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(4, snapshot.getCount());
+        assertEquals(3, snapshot.getMax(), 0);
+        assertEquals(1, snapshot.getBuckets().size());
+        assertEquals(4, snapshot.getBuckets().get(0).getCount());
+    }
+
+    @Test
+    public void testVeryLongExecutionsShareLastBucket() {
+        ExecutionHistogram histogram = new ExecutionHistogram();
+        histogram.record(100_000 * MS);
+        histogram.record(1_000_000 * MS);
+
+        List<ExecutionHistogram.Bucket> buckets = histogram.snapshot().getBuckets();
+        assertEquals(1, buckets.size());
+        assertNull(buckets.get(0).getLessThan());
+        assertEquals(2, buckets.get(0).getCount());
+    }
+}
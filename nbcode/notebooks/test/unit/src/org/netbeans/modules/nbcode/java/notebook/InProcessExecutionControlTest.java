@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import jdk.jshell.EvalException;
+import jdk.jshell.JShell;
+import jdk.jshell.SnippetEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InProcessExecutionControlTest {
+
+    private ByteArrayOutputStream out;
+    private JShell jshell;
+
+    @Before
+    public void setUp() {
+        out = new ByteArrayOutputStream();
+        jshell = JShell.builder()
+                .out(new PrintStream(out, true, StandardCharsets.UTF_8))
+                .executionEngine(InProcessExecutionControl.provider(), null)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+    }
+
+    @Test
+    public void testSnippetsRunInThisProcess() {
+        String value = jshell.eval("ProcessHandle.current().pid()").get(0).value();
+
+        assertEquals(Long.toString(ProcessHandle.current().pid()), value);
+    }
+
+    @Test
+    public void testOutputIsRoutedToKernel() {
+        jshell.eval("System.out.println(\"from snippet\");");
+        System.out.println("from test");
+
+        assertEquals("from snippet\n", out.toString(StandardCharsets.UTF_8).replace("\r\n", "\n"));
+    }
+
+    @Test
+    public void testProcessStreamsAreNotReplaced() {
+        PrintStream processOut = System.out;
+        PrintStream processErr = System.err;
+
+        jshell.eval("System.out.println(\"from snippet\");");
+
+        assertSame(processOut, System.out);
+        assertSame(processErr, System.err);
+    }
+
+    @Test
+    public void testExitDoesNotStopServer() {
+        SnippetEvent event = jshell.eval("System.exit(0);").get(0);
+
+        assertTrue(event.exception() instanceof EvalException);
+        assertEquals(SecurityException.class.getName(), ((EvalException) event.exception()).getExceptionClassName());
+        assertEquals("2", jshell.eval("1 + 1").get(0).value());
+    }
+
+    @Test
+    public void testStopInterruptsSnippet() throws Exception {
+        CompletableFuture<SnippetEvent> running = CompletableFuture.supplyAsync(() -> jshell.eval("while (true) {}").get(0));
+        Thread.sleep(500);
+
+        jshell.stop();
+
+        SnippetEvent event = running.get(10, TimeUnit.SECONDS);
+        assertNull("Stopped snippet has no value", event.value());
+    }
+}
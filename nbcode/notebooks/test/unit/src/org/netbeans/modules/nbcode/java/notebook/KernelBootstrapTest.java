@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.List;
+import jdk.jshell.JShell;
+import jdk.jshell.Snippet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class KernelBootstrapTest {
+
+    private JShell jshell;
+    private JshellStreamsHandler streamsHandler;
+
+    @Before
+    public void setUp() {
+        streamsHandler = new JshellStreamsHandler("bootstrap-test", null);
+        jshell = JShell.builder()
+                .out(streamsHandler.getPrintOutStream())
+                .err(streamsHandler.getPrintErrStream())
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+        streamsHandler.close();
+    }
+
+    @Test
+    public void testEachImportIsASnippet() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*", "java.math.*;", "static java.lang.Math.max"), List.of());
+
+        bootstrap.run(jshell, streamsHandler);
+
+        assertEquals(3, jshell.snippets().filter(s -> s.kind() == Snippet.Kind.IMPORT).count());
+        assertEquals("3", jshell.eval("new ArrayList<BigInteger>().size() + max(1, 3)").get(0).value());
+    }
+
+    @Test
+    public void testReimportingFirstElementKeepsOtherImports() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*", "java.io.*", "java.math.*"), List.of());
+        bootstrap.run(jshell, streamsHandler);
+
+        jshell.eval("import java.util.*;");
+
+        assertEquals("5", jshell.eval("new BigInteger(\"5\").intValue()").get(0).value());
+        assertEquals("true", jshell.eval("new StringReader(\"\") != null").get(0).value());
+    }
+
+    @Test
+    public void testFailingImportDoesNotDropOthers() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*", "no.such.pkg.*", "java.math.*"), List.of());
+
+        bootstrap.run(jshell, streamsHandler);
+
+        assertEquals("0", jshell.eval("new ArrayList<BigInteger>().size()").get(0).value());
+    }
+
+    @Test
+    public void testStartupSnippetsRunAfterImports() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*"), List.of("List<String> names = new ArrayList<>();\nnames.add(\"a\");"));
+
+        bootstrap.run(jshell, streamsHandler);
+
+        assertEquals("1", jshell.eval("names.size()").get(0).value());
+    }
+
+    @Test
+    public void testStartupStatementsRunAsOneBlock() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*"),
+                List.of("List<String> names = new ArrayList<>();", "names.add(\"a\");\nnames.add(\"b\");\nfor (int i = 0; i < 3; i++) names.add(\"c\");"));
+
+        bootstrap.run(jshell, streamsHandler);
+
+        assertEquals("5", jshell.eval("names.size()").get(0).value());
+        assertEquals(1, jshell.snippets().filter(s -> s.kind() == Snippet.Kind.STATEMENT).count());
+    }
+
+    @Test
+    public void testBlockThatDoesNotCompileRunsStatementsOneByOne() {
+        KernelBootstrap bootstrap = new KernelBootstrap(List.of("java.util.*"),
+                List.of("List<String> names = new ArrayList<>();", "names.add(\"a\");\nnames.size() + 1;\nnames.add(\"b\");"));
+
+        bootstrap.run(jshell, streamsHandler);
+
+        assertEquals("2", jshell.eval("names.size()").get(0).value());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class KernelDispatcherTest {
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private Runnable record(String name) {
+        return () -> executed.add(name);
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue("Tasks did not complete in time", latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTasksOfNotebookRunInOrder() throws InterruptedException {
+        KernelDispatcher dispatcher = new KernelDispatcher(4);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            String name = "task" + i;
+            dispatcher.submit("nb1", () -> {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                executed.add(name);
+                concurrent.decrementAndGet();
+                done.countDown();
+            });
+        }
+        await(done);
+
+        assertEquals(1, maxConcurrent.get());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("task" + i, executed.get(i));
+        }
+    }
+
+    @Test
+    public void testNotebooksTakeTurns() throws InterruptedException {
+        KernelDispatcher dispatcher = new KernelDispatcher(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        dispatcher.submit("blocker", () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            dispatcher.submit("nb1", record("nb1-" + i));
+        }
+        dispatcher.submit("nb2", record("nb2-0"));
+        dispatcher.submit("nb2", record("nb2-1"));
+        dispatcher.submit("nb2", done::countDown);
+        blocker.countDown();
+        await(done);
+
+        assertEquals(List.of("nb1-0", "nb2-0", "nb1-1", "nb2-1", "nb1-2"), executed);
+    }
+
+    @Test
+    public void testBlockedNotebooksDoNotStarveOthers() throws InterruptedException {
+        KernelDispatcher dispatcher = new KernelDispatcher(1, 50);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(1);
+
+        for (String notebookId : List.of("blocked1", "blocked2")) {
+            dispatcher.submit(notebookId, () -> {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        dispatcher.submit("nb1", record("nb1-0"));
+        dispatcher.submit("nb1", done::countDown);
+        try {
+            await(started);
+            await(done);
+            assertEquals(List.of("nb1-0"), executed);
+            assertEquals(2, dispatcher.getStalledCount());
+        } finally {
+            blocker.countDown();
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (dispatcher.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, dispatcher.getStalledCount());
+    }
+
+    @Test
+    public void testCancelDropsOnlyQueuedTasksOfNotebook() throws InterruptedException {
+        KernelDispatcher dispatcher = new KernelDispatcher(2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        dispatcher.submit("nb1", () -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            executed.add("running");
+            done.countDown();
+        });
+        await(started);
+        dispatcher.submit("nb1", record("queued1"));
+        dispatcher.submit("nb1", record("queued2"));
+        dispatcher.submit("nb2", record("other"));
+
+        assertEquals(2, dispatcher.cancel("nb1").size());
+        assertEquals(0, dispatcher.getPendingCount("nb1"));
+        blocker.countDown();
+
+        dispatcher.submit("nb1", done::countDown);
+        await(done);
+        assertTrue(executed.contains("running"));
+        assertTrue(executed.contains("other"));
+        assertFalse(executed.contains("queued1"));
+        assertFalse(executed.contains("queued2"));
+    }
+
+    @Test
+    public void testIdleNotebooksAreForgotten() throws InterruptedException {
+        KernelDispatcher dispatcher = new KernelDispatcher(2);
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.submit("nb" + i, done::countDown);
+        }
+        await(done);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (dispatcher.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, dispatcher.getActiveCount());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.IOException;
+import jdk.jshell.JShell;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class KernelMetricsTest {
+
+    private KernelMetrics metrics;
+    private JShell jshell;
+
+    @Before
+    public void setUp() {
+        metrics = new KernelMetrics("test-" + System.nanoTime());
+        jshell = JShell.builder().remoteVMOptions(metrics.getRemoteVmOption()).build();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.close();
+        jshell.close();
+    }
+
+    @Test
+    public void testNotConnectedUntilSampled() throws IOException {
+        assertFalse(metrics.isConnected());
+
+        KernelMetrics.Sample sample = metrics.sample();
+
+        assertTrue(metrics.isConnected());
+        assertTrue(sample.getHeapUsed() > 0);
+        assertTrue(sample.getHeapCommitted() >= sample.getHeapUsed());
+        assertTrue(sample.getThreadCount() > 0);
+        assertTrue(sample.getCpuTime() > 0);
+    }
+
+    @Test
+    public void testCpuTimeOfRemoteVmIsMeasured() throws IOException {
+        long before = metrics.sample().getCpuTime();
+        jshell.eval("long sum = 0; for (int i = 0; i < 200_000_000; i++) { sum += i % 7; }");
+
+        assertTrue(metrics.sample().getCpuTime() > before);
+    }
+
+    @Test
+    public void testCellsAreSampledOnlyOnceRequested() throws IOException {
+        assertNull(metrics.sampleIfRequested());
+        assertFalse(metrics.isConnected());
+
+        metrics.sample();
+
+        assertNotNull(metrics.sampleIfRequested());
+    }
+
+    @Test(expected = IOException.class)
+    public void testClosedMetricsCannotBeSampled() throws IOException {
+        metrics.close();
+        metrics.sample();
+    }
+}
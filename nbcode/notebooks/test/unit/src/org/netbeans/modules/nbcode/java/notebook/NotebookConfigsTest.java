@@ -56,6 +56,11 @@ public class NotebookConfigsTest {
     private static final String ENABLE_PREVIEW_KEY = "enablePreview";
     private static final String MODULEPATH_KEY = "modulepath";
     private static final String VM_OPTIONS_KEY = "vmOptions";
+    private static final String KERNEL_POOL_SIZE_KEY = "kernelPoolSize";
+    private static final String MAX_LIVE_KERNELS_KEY = "maxLiveKernels";
+    private static final String COMPLETION_LIMIT_KEY = "completionLimit";
+    private static final String EXECUTION_ENGINE_KEY = "executionEngine";
+    private static final String STARTUP_SNIPPETS_KEY = "startupSnippets";
 
     public NotebookConfigsTest() {
     }
@@ -256,6 +261,102 @@ public class NotebookConfigsTest {
         }
     }
 
+    /**
+     * Test of getKernelPoolSize method, of class NotebookConfigs. Verifies
+     * that the default is used when the key is missing and that negative
+     * values are clamped.
+     */
+    @Test
+    public void testGetKernelPoolSize() {
+        try {
+            initialized.get(5, TimeUnit.SECONDS);
+            assertEquals("Default pool size expected when key is missing", 0, instance.getKernelPoolSize());
+
+            updateConfigValue(KERNEL_POOL_SIZE_KEY, new JsonPrimitive(3));
+            assertEquals(3, instance.getKernelPoolSize());
+
+            updateConfigValue(KERNEL_POOL_SIZE_KEY, new JsonPrimitive(-2));
+            assertEquals("Negative pool size should be clamped", 0, instance.getKernelPoolSize());
+        } catch (Exception ex) {
+            fail("Failed to handle kernel pool size configuration: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of getMaxLiveKernels method, of class NotebookConfigs.
+     */
+    @Test
+    public void testGetMaxLiveKernels() {
+        try {
+            initialized.get(5, TimeUnit.SECONDS);
+            assertEquals("Default limit expected when key is missing", 16, instance.getMaxLiveKernels());
+
+            updateConfigValue(MAX_LIVE_KERNELS_KEY, new JsonPrimitive(4));
+            assertEquals(4, instance.getMaxLiveKernels());
+
+            updateConfigValue(MAX_LIVE_KERNELS_KEY, new JsonPrimitive(-1));
+            assertEquals("Negative limit should be clamped", 0, instance.getMaxLiveKernels());
+        } catch (Exception ex) {
+            fail("Failed to handle max live kernels configuration: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of getCompletionLimit method, of class NotebookConfigs.
+     */
+    @Test
+    public void testGetCompletionLimit() {
+        try {
+            initialized.get(5, TimeUnit.SECONDS);
+            assertEquals("Default limit expected when key is missing", 200, instance.getCompletionLimit());
+
+            updateConfigValue(COMPLETION_LIMIT_KEY, new JsonPrimitive(50));
+            assertEquals(50, instance.getCompletionLimit());
+
+            updateConfigValue(COMPLETION_LIMIT_KEY, new JsonPrimitive(0));
+            assertEquals("Zero disables the limit", 0, instance.getCompletionLimit());
+        } catch (Exception ex) {
+            fail("Failed to handle completion limit configuration: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of getStartupSnippets method, of class NotebookConfigs.
+     */
+    @Test
+    public void testGetStartupSnippets() {
+        try {
+            initialized.get(5, TimeUnit.SECONDS);
+            assertEquals("No startup snippets expected when key is missing", List.of(), instance.getStartupSnippets());
+
+            JsonArray snippets = new JsonArray();
+            snippets.add(new JsonPrimitive("int answer = 42;"));
+            updateConfigValue(STARTUP_SNIPPETS_KEY, snippets);
+            assertEquals(List.of("int answer = 42;"), instance.getStartupSnippets());
+        } catch (Exception ex) {
+            fail("Failed to handle startup snippets configuration: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of getExecutionEngine method, of class NotebookConfigs.
+     */
+    @Test
+    public void testGetExecutionEngine() {
+        try {
+            initialized.get(5, TimeUnit.SECONDS);
+            assertEquals("Remote engine expected when key is missing", "remote", instance.getExecutionEngine());
+
+            updateConfigValue(EXECUTION_ENGINE_KEY, new JsonPrimitive("inProcess"));
+            assertEquals("inProcess", instance.getExecutionEngine());
+
+            updateConfigValue(EXECUTION_ENGINE_KEY, new JsonPrimitive("unknown"));
+            assertEquals("Unknown engine should fall back to remote", "remote", instance.getExecutionEngine());
+        } catch (Exception ex) {
+            fail("Failed to handle execution engine configuration: " + ex.getMessage());
+        }
+    }
+
     private void setConfigObject() {
         JsonObject configsObj = new JsonObject();
         JsonArray imports = new JsonArray();
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jshell.JShell;
+import jdk.jshell.SnippetEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SessionJournalTest {
+
+    private JShell jshell;
+
+    @Before
+    public void setUp() {
+        jshell = JShell.builder().executionEngine("local").build();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+    }
+
+    private void eval(SessionJournal journal, String source) {
+        List<SnippetEvent> events = jshell.eval(source);
+        journal.update(events);
+        if (CodeEval.isSuccessful(events)) {
+            journal.record("cell", source, events);
+        }
+    }
+
+    private static List<String> sources(SessionJournal journal) {
+        return journal.getEntries().stream().map(SessionJournal.Entry::getSource).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOverwrittenDeclarationsAreRemoved() {
+        SessionJournal journal = new SessionJournal();
+
+        eval(journal, "int x = 1;");
+        eval(journal, "int twice(int v) { return 2 * v; }");
+        eval(journal, "x = twice(x);");
+        eval(journal, "int x = 5;");
+        eval(journal, "int twice(int v) { return v + v; }");
+
+        assertEquals(List.of("x = twice(x);", "int x = 5;", "int twice(int v) { return v + v; }"), sources(journal));
+    }
+
+    @Test
+    public void testRejectedRedefinitionRemovesDeclaration() {
+        SessionJournal journal = new SessionJournal();
+
+        eval(journal, "int x = 1;");
+        eval(journal, "int x = \"not a number\";");
+
+        // JShell overwrites the declaration even though its replacement is rejected
+        assertFalse(CodeEval.isSuccessful(jshell.eval("x")));
+        assertEquals(List.of(), sources(journal));
+    }
+
+    @Test
+    public void testJournalStopsRecordingWhenFull() {
+        SessionJournal journal = new SessionJournal(3);
+
+        for (int i = 0; i < 3; i++) {
+            eval(journal, "int v" + i + " = " + i + ";");
+        }
+        assertTrue(journal.isComplete());
+        eval(journal, "int v3 = 3;");
+
+        assertFalse(journal.isComplete());
+        assertEquals(0, journal.size());
+        journal.clear();
+        assertTrue(journal.isComplete());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jshell.JShell;
+import jdk.jshell.SourceCodeAnalysis;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ShadowAnalysisTest {
+
+    private static final String PROPERTY = "nbcode.notebook.shadowAnalysisTest";
+
+    private JShell kernel;
+    private ShadowAnalysis shadow;
+
+    @Before
+    public void setUp() {
+        kernel = JShell.builder().executionEngine("local").build();
+        shadow = new ShadowAnalysis("shadow-test", List.of());
+    }
+
+    @After
+    public void tearDown() {
+        shadow.close();
+        kernel.close();
+        System.clearProperty(PROPERTY);
+    }
+
+    @Test
+    public void testDeclarationsAreMirroredWithoutExecution() throws InterruptedException {
+        for (String source : new String[]{
+            "String mark() { System.setProperty(\"" + PROPERTY + "\", \"run\"); return \"\"; }",
+            "String marked = mark();",
+            "class Point { int x; }",
+            "new Point()",
+            "System.out.println(marked);"}) {
+            shadow.mirror(kernel.eval(source));
+        }
+        System.clearProperty(PROPERTY);
+
+        assertEquals(List.of("marked"), complete("mark"));
+        assertEquals(List.of("x"), complete("$1.x"));
+        assertNull("Initializer was not evaluated", System.getProperty(PROPERTY));
+    }
+
+    @Test
+    public void testClosedAnalysisIsNotUsed() {
+        shadow.close();
+
+        assertNull(shadow.analyze(jshell -> jshell.sourceCodeAnalysis()));
+    }
+
+    private List<String> complete(String code) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            List<String> suggestions = shadow.analyze(jshell -> {
+                int[] anchor = new int[1];
+                return jshell.sourceCodeAnalysis().completionSuggestions(code, code.length(), anchor).stream()
+                        .map(SourceCodeAnalysis.Suggestion::continuation)
+                        .filter(continuation -> !continuation.startsWith("mark("))
+                        .collect(Collectors.toList());
+            });
+            if (suggestions != null && !suggestions.isEmpty()) {
+                return suggestions;
+            }
+            Thread.sleep(50);
+        }
+        return List.of();
+    }
+}
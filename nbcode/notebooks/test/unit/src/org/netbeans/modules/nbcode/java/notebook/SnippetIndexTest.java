@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdk.jshell.JShell;
+import jdk.jshell.SourceCodeAnalysis;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SnippetIndexTest {
+
+    private static final String[] PARTS = {
+        "int x = 1;",
+        "int y = 2",
+        "if (x > 0) System.out.println(x);\nelse\n  System.out.println(y);",
+        "/* block\n comment */",
+        "// line /* comment",
+        "String s = \"\"\"\n  text\n  block\n  \"\"\";",
+        "class A {\n  int f() {\n    return 1;\n  }\n}",
+        "void m() { }",
+        "x++",
+        "List.of(1, 2)\n  .stream()\n  .count();",
+        "@Deprecated\nint z = 3;",
+        "System.out.println(\"/*\");",
+        "int w = (1 +"
+    };
+
+    private JShell jshell;
+    private SourceCodeAnalysis analysis;
+
+    @Before
+    public void setUp() {
+        jshell = JShell.create();
+        analysis = jshell.sourceCodeAnalysis();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+    }
+
+    @Test
+    public void testBuildSplitsLikeWholeCodeAnalysis() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            String code = randomCode(random, 1 + random.nextInt(100));
+            assertEquals(code, split(code), SnippetIndex.build(analysis, code).getSnippets());
+        }
+    }
+
+    @Test
+    public void testUnterminatedCommentMakesOneSnippet() {
+        String code = "int a = 1;\nint b = 2;\n/* not closed\nint c = 3;";
+
+        assertEquals(List.of(code), SnippetIndex.build(analysis, code).getSnippets());
+    }
+
+    @Test
+    public void testUpdateMatchesBuild() {
+        Random random = new Random(11);
+        for (int i = 0; i < 50; i++) {
+            String code = randomCode(random, 1 + random.nextInt(100));
+            SnippetIndex index = SnippetIndex.build(analysis, code);
+            int offset = random.nextInt(code.length() + 1);
+            int end = Math.min(code.length(), offset + random.nextInt(20));
+            String edited = code.substring(0, offset) + PARTS[random.nextInt(PARTS.length)] + "\n" + code.substring(end);
+
+            assertEquals(edited, split(edited), SnippetIndex.update(index, analysis, edited).getSnippets());
+            assertEquals(split(code.substring(0, offset)), SnippetIndex.update(index, analysis, code.substring(0, offset)).getSnippets());
+        }
+    }
+
+    @Test
+    public void testLargeCellIsIndexedAndUpdated() {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            code.append("int v").append(i).append(" = ").append(i).append(" * 2;\n");
+        }
+        SnippetIndex index = SnippetIndex.build(analysis, code.toString());
+        assertEquals(2000, index.getSnippetCount());
+        assertEquals("int v1000 = 1000 * 2;", index.getSnippets().get(1000));
+        assertEquals(1000, index.getSnippetAt(index.getStart(1000) + 3));
+
+        int middle = index.getStart(1000);
+        String edited = code.substring(0, middle) + "int extra = 1;\n" + code.substring(middle);
+        SnippetIndex updated = SnippetIndex.update(index, analysis, edited);
+        assertEquals(2001, updated.getSnippetCount());
+        assertEquals("int extra = 1;", updated.getSnippets().get(1000));
+        assertEquals(index.getStart(1999) + "int extra = 1;\n".length(), updated.getStart(2000));
+    }
+
+    private static String randomCode(Random random, int parts) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            code.append(PARTS[random.nextInt(PARTS.length)]);
+            code.append(random.nextBoolean() ? "\n" : random.nextBoolean() ? " " : "\n\n");
+        }
+        return code.toString();
+    }
+
+    /**
+     * Splits the code analyzing the whole remaining code for every snippet.
+     */
+    private List<String> split(String code) {
+        String remaining = code.trim();
+        List<String> snippets = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            SourceCodeAnalysis.CompletionInfo info = analysis.analyzeCompletion(remaining);
+            if (!info.completeness().isComplete()) {
+                snippets.add(remaining);
+                break;
+            }
+            snippets.add(info.source());
+            remaining = info.remaining().trim();
+        }
+        return snippets;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class StreamingOutputStreamTest {
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+    private synchronized void receive(ChunkedBuffer data) {
+        byte[] bytes = data.toByteArray();
+        received.write(bytes, 0, bytes.length);
+    }
+
+    private synchronized String getReceived() {
+        return received.toString(StandardCharsets.UTF_8);
+    }
+
+    private void waitFor(String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!expected.equals(getReceived()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, getReceived());
+    }
+
+    @Test
+    public void testIdleStreamsAreNotScheduled() throws IOException {
+        int pending = OutputFlushScheduler.getInstance().getPendingCount();
+        List<StreamingOutputStream> streams = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            streams.add(new StreamingOutputStream(this::receive));
+        }
+
+        assertEquals(pending, OutputFlushScheduler.getInstance().getPendingCount());
+        for (StreamingOutputStream stream : streams) {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testWriteIsFlushedByScheduler() throws Exception {
+        StreamingOutputStream stream = new StreamingOutputStream(this::receive);
+
+        stream.write("hello".getBytes(StandardCharsets.UTF_8));
+        stream.write(' ');
+        stream.write("world".getBytes(StandardCharsets.UTF_8));
+
+        waitFor("hello world");
+        stream.close();
+    }
+
+    @Test
+    public void testFlushIntervalAdapts() throws Exception {
+        StreamingOutputStream stream = new StreamingOutputStream(this::receive);
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 5; i++) {
+            stream.write('x');
+            expected.append('x');
+            waitFor(expected.toString());
+        }
+        assertTrue("Interval should grow under sustained output", stream.getFlushInterval() > StreamingOutputStream.MIN_FLUSH_INTERVAL);
+        assertTrue(stream.getFlushInterval() <= StreamingOutputStream.MAX_FLUSH_INTERVAL);
+
+        Thread.sleep(3L * StreamingOutputStream.MAX_FLUSH_INTERVAL);
+        stream.write('y');
+        expected.append('y');
+        waitFor(expected.toString());
+        assertEquals(StreamingOutputStream.MIN_FLUSH_INTERVAL, stream.getFlushInterval());
+        stream.close();
+    }
+
+    @Test
+    public void testHighWaterMarkFlushesImmediately() throws IOException {
+        List<Integer> sizes = new ArrayList<>();
+        StreamingOutputStream stream = new StreamingOutputStream(buffer -> sizes.add(buffer.size()), 4);
+
+        stream.write("abc".getBytes(StandardCharsets.UTF_8));
+        assertTrue(sizes.isEmpty());
+        stream.write('d');
+        assertEquals(List.of(4), sizes);
+        stream.write(new byte[20_000]);
+        assertEquals(List.of(4, 20_000), sizes);
+        stream.close();
+    }
+
+    @Test
+    public void testOutputBeyondBudgetIsSpilled() throws IOException {
+        StreamingOutputStream stream = new StreamingOutputStream(this::receive);
+        byte[] output = new byte[1000];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = (byte) ('a' + i % 26);
+        }
+        String text = new String(output, StandardCharsets.US_ASCII);
+
+        stream.startCell("cell1", 100);
+        for (int i = 0; i < output.length; i += 10) {
+            stream.write(output, i, 10);
+        }
+        stream.finishCell();
+
+        String received = getReceived();
+        assertTrue(received.startsWith(text.substring(0, 50)));
+        assertTrue(received.endsWith(text.substring(950)));
+        assertTrue("Omitted output should be reported", received.contains("900"));
+
+        CellOutputSpill.Page page = stream.readSpilledOutput("cell1", 0, 2000);
+        assertEquals(50, page.getOffset());
+        assertEquals(1000, page.getTotalLength());
+        assertEquals(text.substring(50), new String(page.getData(), StandardCharsets.US_ASCII));
+
+        page = stream.readSpilledOutput("cell1", 500, 10);
+        assertEquals(text.substring(500, 510), new String(page.getData(), StandardCharsets.US_ASCII));
+        assertNull(stream.readSpilledOutput("cell2", 0, 10));
+
+        stream.startCell("cell1", 100);
+        assertNull("Spilled output is dropped when the cell runs again", stream.readSpilledOutput("cell1", 0, 10));
+        stream.close();
+    }
+
+    @Test
+    public void testOutputWithinBudgetIsNotSpilled() throws IOException {
+        StreamingOutputStream stream = new StreamingOutputStream(this::receive);
+
+        stream.startCell("cell1", 100);
+        stream.write("within budget".getBytes(StandardCharsets.UTF_8));
+        stream.finishCell();
+        stream.flush();
+
+        assertEquals("within budget", getReceived());
+        assertNull(stream.readSpilledOutput("cell1", 0, 10));
+        stream.close();
+    }
+
+    @Test
+    public void testCloseFlushesPendingOutput() throws IOException {
+        StreamingOutputStream stream = new StreamingOutputStream(this::receive);
+
+        stream.write("pending".getBytes(StandardCharsets.UTF_8));
+        stream.close();
+
+        assertEquals("pending", getReceived());
+    }
+}
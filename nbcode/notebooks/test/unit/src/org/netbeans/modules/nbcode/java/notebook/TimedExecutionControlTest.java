@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.notebook;
+
+import jdk.jshell.JShell;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TimedExecutionControlTest {
+
+    private TimedExecutionControl.Times times;
+    private JShell jshell;
+
+    @Before
+    public void setUp() {
+        times = new TimedExecutionControl.Times();
+        jshell = JShell.builder()
+                .executionEngine(TimedExecutionControl.provider(times), null)
+                .remoteVMOptions("-Dnbcode.notebook.test=remote")
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        jshell.close();
+    }
+
+    @Test
+    public void testRunTimeIsMeasured() {
+        long runTime = times.getRunTime();
+
+        jshell.eval("Thread.sleep(200);");
+
+        assertTrue(times.getRunTime() - runTime >= 200_000_000L);
+    }
+
+    @Test
+    public void testDeclarationIsLoadedWithoutRunning() {
+        long loadTime = times.getLoadTime();
+        long runTime = times.getRunTime();
+
+        jshell.eval("class Declared {}");
+
+        assertTrue(times.getLoadTime() > loadTime);
+        assertEquals(runTime, times.getRunTime());
+    }
+
+    @Test
+    public void testRemoteVmOptionsArePassed() {
+        String value = jshell.eval("System.getProperty(\"nbcode.notebook.test\")").get(0).value();
+
+        assertEquals("\"remote\"", value);
+    }
+
+    @Test
+    public void testCellTimingsSplitEvaluation() {
+        CellTimings timings = new CellTimings(System.nanoTime());
+        timings.executionStarted();
+        timings.addSnippet(10_000_000, 2_000_000, 5_000_000);
+        timings.addSnippet(1_000_000, 0, 3_000_000);
+        timings.executionFinished();
+
+        assertEquals(2, timings.getSnippets().size());
+        assertEquals(3, timings.getSnippets().get(0).getCompile(), 0);
+        assertEquals("Compile time is never negative", 0, timings.getSnippets().get(1).getCompile(), 0);
+        assertEquals(8, timings.getRun(), 0);
+        assertTrue(timings.getTotalTime() > 0);
+    }
+}
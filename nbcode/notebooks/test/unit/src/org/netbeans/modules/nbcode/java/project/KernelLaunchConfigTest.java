@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.project;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.Icon;
+import javax.swing.event.ChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.netbeans.junit.MockServices;
+import org.netbeans.junit.NbTestCase;
+import org.netbeans.spi.java.classpath.ClassPathFactory;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.ClassPathProvider;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.Utilities;
+import org.openide.util.lookup.Lookups;
+
+public class KernelLaunchConfigTest extends NbTestCase {
+
+    private static final MutableClassPath COMPILE = new MutableClassPath();
+    private static final ClassPath COMPILE_PATH = ClassPathFactory.createClassPath(COMPILE);
+    private static FileObject sourceRoot;
+
+    private Project project;
+
+    public KernelLaunchConfigTest(String name) {
+        super(name);
+    }
+
+    @Before
+    @Override
+    public void setUp() throws IOException {
+        clearWorkDir();
+        MockServices.setServices(TestClassPathProvider.class);
+        sourceRoot = FileUtil.createMemoryFileSystem().getRoot().createFolder("src");
+        project = new TestProject(sourceRoot);
+    }
+
+    @Test
+    public void testConfigurationIsSharedUntilClassPathChanges() throws Exception {
+        KernelLaunchConfig config = KernelLaunchConfig.forProject(project);
+        assertSame(config, KernelLaunchConfig.forProject(project));
+
+        File library = new File(getWorkDir(), "lib");
+        assertTrue(library.mkdirs());
+        COMPILE.setResources(Collections.singletonList(ClassPathSupport.createResource(Utilities.toURI(library).toURL())));
+
+        KernelLaunchConfig recomputed = KernelLaunchConfig.forProject(project);
+        assertNotSame("Class path change recomputes the configuration", config, recomputed);
+        assertSame(recomputed, KernelLaunchConfig.forProject(project));
+    }
+
+    public static final class TestClassPathProvider implements ClassPathProvider {
+
+        @Override
+        public ClassPath findClassPath(FileObject file, String type) {
+            if (sourceRoot == null || !FileUtil.isParentOf(sourceRoot, file) && !sourceRoot.equals(file)) {
+                return null;
+            }
+            return ClassPath.COMPILE.equals(type) ? COMPILE_PATH : ClassPath.EMPTY;
+        }
+    }
+
+    private static final class MutableClassPath implements ClassPathImplementation {
+
+        private final PropertyChangeSupport support = new PropertyChangeSupport(this);
+        private volatile List<? extends PathResourceImplementation> resources = Collections.emptyList();
+
+        void setResources(List<? extends PathResourceImplementation> resources) {
+            this.resources = resources;
+            support.firePropertyChange(PROP_RESOURCES, null, null);
+        }
+
+        @Override
+        public List<? extends PathResourceImplementation> getResources() {
+            return resources;
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+            support.addPropertyChangeListener(listener);
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+            support.removePropertyChangeListener(listener);
+        }
+    }
+
+    private static final class TestProject implements Project {
+
+        private final FileObject root;
+        private final Lookup lookup;
+
+        TestProject(FileObject root) {
+            this.root = root;
+            this.lookup = Lookups.singleton(new TestSources(root));
+        }
+
+        @Override
+        public FileObject getProjectDirectory() {
+            return root.getParent();
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return lookup;
+        }
+    }
+
+    private static final class TestSources implements Sources, SourceGroup {
+
+        private final FileObject root;
+
+        TestSources(FileObject root) {
+            this.root = root;
+        }
+
+        @Override
+        public SourceGroup[] getSourceGroups(String type) {
+            return JavaProjectConstants.SOURCES_TYPE_JAVA.equals(type) ? new SourceGroup[]{this} : new SourceGroup[0];
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener listener) {
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener listener) {
+        }
+
+        @Override
+        public FileObject getRootFolder() {
+            return root;
+        }
+
+        @Override
+        public String getName() {
+            return root.getName();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return root.getName();
+        }
+
+        @Override
+        public Icon getIcon(boolean opened) {
+            return null;
+        }
+
+        @Override
+        public boolean contains(FileObject file) {
+            return FileUtil.isParentOf(root, file) || root.equals(file);
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+        }
+    }
+}
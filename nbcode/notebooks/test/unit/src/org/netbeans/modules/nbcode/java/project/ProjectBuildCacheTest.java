@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.netbeans.modules.nbcode.java.project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
+import static org.junit.Assert.*;
+
+public class ProjectBuildCacheTest {
+
+    private final Project project = new TestProject();
+    private final AtomicInteger builds = new AtomicInteger();
+    private Path directory;
+    private Path sources;
+    private Path classes;
+    private CompletableFuture<Boolean> nextBuild;
+    private ProjectBuildCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("build-cache");
+        sources = Files.createDirectories(directory.resolve("src"));
+        classes = Files.createDirectories(directory.resolve("classes"));
+        Files.writeString(sources.resolve("A.java"), "class A {}");
+        cache = new ProjectBuildCache(p -> {
+            builds.incrementAndGet();
+            CompletableFuture<Boolean> build = nextBuild != null ? nextBuild : CompletableFuture.completedFuture(true);
+            nextBuild = null;
+            return build;
+        }, p -> List.of(sources, directory.resolve("pom.xml")), p -> List.of(classes), Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testUnchangedInputsAreNotBuiltAgain() throws Exception {
+        assertTrue(cache.buildProject(project).get());
+        assertTrue(cache.buildProject(project).get());
+
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void testChangedInputsAreBuiltAgain() throws Exception {
+        cache.buildProject(project).get();
+
+        Path source = sources.resolve("A.java");
+        Files.writeString(source, "class A { int a; }");
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 2000));
+        cache.buildProject(project).get();
+        assertEquals("Modified file", 2, builds.get());
+
+        Files.writeString(sources.resolve("B.java"), "class B {}");
+        cache.buildProject(project).get();
+        assertEquals("Added file", 3, builds.get());
+
+        Files.writeString(directory.resolve("pom.xml"), "<project/>");
+        cache.buildProject(project).get();
+        assertEquals("Added build script", 4, builds.get());
+
+        cache.buildProject(project).get();
+        assertEquals(4, builds.get());
+    }
+
+    @Test
+    public void testClassesNewerThanInputsAreUpToDate() throws Exception {
+        Path compiled = Files.writeString(classes.resolve("A.class"), "");
+        Files.setLastModifiedTime(compiled, FileTime.fromMillis(Files.getLastModifiedTime(sources.resolve("A.java")).toMillis() + 2000));
+
+        assertTrue(cache.buildProject(project).get());
+
+        assertEquals(0, builds.get());
+    }
+
+    @Test
+    public void testFailedBuildIsRetried() throws Exception {
+        nextBuild = CompletableFuture.completedFuture(false);
+        assertFalse(cache.buildProject(project).get());
+
+        assertTrue(cache.buildProject(project).get());
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testInvalidatedProjectIsBuiltAgain() throws Exception {
+        cache.buildProject(project).get();
+
+        cache.invalidate(project);
+        cache.buildProject(project).get();
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testInvalidationDuringBuildIsKept() throws Exception {
+        CompletableFuture<Boolean> running = new CompletableFuture<>();
+        nextBuild = running;
+        CompletableFuture<Boolean> first = cache.buildProject(project);
+        CompletableFuture<Boolean> second = cache.buildProject(project);
+
+        cache.invalidate(project);
+        running.complete(true);
+        assertTrue(first.get());
+        assertTrue(second.get());
+        assertEquals("Concurrent requests share the build", 1, builds.get());
+        cache.buildProject(project).get();
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testInputsAreNotWalkedOnCallingThread() throws Exception {
+        List<Runnable> walks = new ArrayList<>();
+        AtomicInteger walked = new AtomicInteger();
+        cache = new ProjectBuildCache(p -> CompletableFuture.completedFuture(true), p -> {
+            walked.incrementAndGet();
+            return List.of(sources);
+        }, p -> List.of(classes), walks::add);
+
+        CompletableFuture<Boolean> build = cache.buildProject(project);
+
+        assertFalse(build.isDone());
+        assertEquals(0, walked.get());
+        walks.forEach(Runnable::run);
+        assertTrue(build.get());
+        assertEquals(1, walked.get());
+    }
+
+    private static final class TestProject implements Project {
+
+        @Override
+        public FileObject getProjectDirectory() {
+            return null;
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return Lookup.EMPTY;
+        }
+    }
+}
@@ -57,6 +57,8 @@ export const extCommands = {
     openJshellInProject: appendPrefixToCommand("jshell.project"),
     notebookChangeProjectContext: appendPrefixToCommand("notebook.change.project"),
     resetNotebookSession: appendPrefixToCommand("notebook.restart.kernel"),
+    runNotebookCellDependents: appendPrefixToCommand("notebook.cell.run.dependents"),
+    showNotebookCellOmittedOutput: appendPrefixToCommand("notebook.cell.output.omitted"),
 }
 
 export const builtInCommands = {
@@ -91,8 +93,12 @@ export const nbCommands = {
     javaProjectPackages: appendPrefixToCommand('java.get.project.packages'),
     openStackTrace: appendPrefixToCommand('open.stacktrace'),
     executeNotebookCell: appendPrefixToCommand("jshell.execute.cell"),
+    executeNotebookCells: appendPrefixToCommand("jshell.execute.cells"),
     interruptNotebookCellExecution: appendPrefixToCommand("jshell.interrupt.cell"),
     openJshellInProject: appendPrefixToCommand("jshell.project.open"),
     createNotebookProjectContext: appendPrefixToCommand("notebook.project.context"),
-    resetNotebookSession: appendPrefixToCommand("notebook.reset.session")
+    resetNotebookSession: appendPrefixToCommand("notebook.reset.session"),
+    notebookDownstreamCells: appendPrefixToCommand("notebook.cells.downstream"),
+    notebookCellOutput: appendPrefixToCommand("notebook.cell.output"),
+    notebookCompletionResolve: appendPrefixToCommand("notebook.completion.resolve")
 }
\ No newline at end of file
@@ -2,7 +2,7 @@ import * as os from 'os';
 import * as path from 'path';
 import * as fs from 'fs';
 import { LOGGER } from '../logger';
-import { commands, ConfigurationTarget, Uri, window, workspace } from 'vscode';
+import { commands, ConfigurationTarget, NotebookCell, NotebookCellKind, NotebookRange, Uri, window, workspace } from 'vscode';
 import { FileUtils, isError } from '../utils';
 import { extCommands, nbCommands } from './commands';
 import { ICommand } from './types';
@@ -172,18 +172,20 @@ const restartKernel = async (ctx: INotebookToolbar) => {
     try {
         const uri: Uri = ctx.notebookEditor.notebookUri;
 
-        const yes = l10n.value("jdk.extension.cache.label.confirmation.yes")
+        const clearState = l10n.value("jdk.notebook.restart.kernel.label.clearState")
+        const fullRestart = l10n.value("jdk.notebook.restart.kernel.label.fullRestart")
+        const rebuildRestart = l10n.value("jdk.notebook.restart.kernel.label.rebuildRestart")
         const cancel = l10n.value("jdk.extension.cache.label.confirmation.cancel")
         const confirmation = await window.showWarningMessage(l10n.value("jdk.notebook.restart.kernel.msg.consent"),
-            yes, cancel);
+            clearState, fullRestart, rebuildRestart, cancel);
 
-        if (confirmation === yes) {
+        if (confirmation === clearState || confirmation === fullRestart || confirmation === rebuildRestart) {
             let client: LanguageClient = await globalState.getClientPromise().client;
             if (!(await isNbCommandRegistered(nbCommands.resetNotebookSession))) {
                 throw new Error(`Language Server for ${client?.name} doesn't support notebook restart kernel`);
             }
 
-            await commands.executeCommand<null>(nbCommands.resetNotebookSession, uri.toString());
+            await commands.executeCommand<null>(nbCommands.resetNotebookSession, uri.toString(), confirmation === clearState, confirmation === rebuildRestart);
             notebookKernel.resetKernelCounter(uri);
             window.showInformationMessage(l10n.value("jdk.notebook.restart.kernel.msg.success"));
         }
@@ -193,6 +195,85 @@ const restartKernel = async (ctx: INotebookToolbar) => {
     }
 }
 
+const runCellWithDependents = async (cell?: NotebookCell) => {
+    try {
+        if (!cell) {
+            return;
+        }
+        const notebook = cell.notebook;
+        let client: LanguageClient = await globalState.getClientPromise().client;
+        if (!(await isNbCommandRegistered(nbCommands.notebookDownstreamCells))) {
+            throw l10n.value("jdk.extension.error_msg.doesntSupportNotebookCellExecution", { client: client?.name });
+        }
+
+        const cellUris = await commands.executeCommand<string[]>(nbCommands.notebookDownstreamCells,
+            notebook.uri.toString(), cell.document.uri.toString());
+        const indexes = new Map(notebook.getCells()
+            .filter(c => c.kind === NotebookCellKind.Code)
+            .map(c => [c.document.uri.toString(), c.index]));
+        const ranges = (cellUris?.length ? cellUris : [cell.document.uri.toString()])
+            .map(uri => indexes.get(uri))
+            .filter((index): index is number => index !== undefined)
+            .map(index => new NotebookRange(index, index + 1));
+
+        await commands.executeCommand('notebook.cell.execute', { ranges, document: notebook.uri });
+    } catch (error) {
+        LOGGER.error(`Error occurred while running dependent cells: ${isError(error) ? error.message : error}`);
+        window.showErrorMessage(l10n.value("jdk.notebook.run.dependents.error_msg.failed"));
+    }
+}
+
+type CellOutputPage = {
+    offset: number,
+    totalLength: number,
+    data: number[]
+}
+
+const OUTPUT_PAGE_SIZE = 1024 * 1024;
+
+const showOmittedCellOutput = async (cell?: NotebookCell) => {
+    try {
+        if (!cell) {
+            return;
+        }
+        let client: LanguageClient = await globalState.getClientPromise().client;
+        if (!(await isNbCommandRegistered(nbCommands.notebookCellOutput))) {
+            throw l10n.value("jdk.extension.error_msg.doesntSupportNotebookCellExecution", { client: client?.name });
+        }
+
+        let shown = false;
+        for (const isError of [false, true]) {
+            let offset = 0;
+            while (true) {
+                const page = await commands.executeCommand<CellOutputPage | null>(nbCommands.notebookCellOutput,
+                    cell.notebook.uri.toString(), cell.document.uri.toString(), isError, offset, OUTPUT_PAGE_SIZE);
+                if (!page?.data?.length) {
+                    break;
+                }
+                shown = true;
+                const content = new TextDecoder().decode(Uint8Array.from(page.data));
+                await window.showTextDocument(await workspace.openTextDocument({ content }), { preview: false });
+
+                offset = page.offset + page.data.length;
+                if (offset >= page.totalLength) {
+                    break;
+                }
+                const nextPage = l10n.value("jdk.notebook.cell.output.label.nextPage");
+                const choice = await window.showInformationMessage(
+                    l10n.value("jdk.notebook.cell.output.msg.page", { offset, totalLength: page.totalLength }), nextPage);
+                if (choice !== nextPage) {
+                    break;
+                }
+            }
+        }
+        if (!shown) {
+            window.showInformationMessage(l10n.value("jdk.notebook.cell.output.msg.none"));
+        }
+    } catch (error) {
+        LOGGER.error(`Error occurred while fetching omitted cell output: ${isError(error) ? error.message : error}`);
+        window.showErrorMessage(l10n.value("jdk.notebook.cell.output.error_msg.failed"));
+    }
+}
 
 export const registerNotebookCommands: ICommand[] = [
     {
@@ -210,5 +291,13 @@ export const registerNotebookCommands: ICommand[] = [
     {
         command: extCommands.resetNotebookSession,
         handler: restartKernel
+    },
+    {
+        command: extCommands.runNotebookCellDependents,
+        handler: runCellWithDependents
+    },
+    {
+        command: extCommands.showNotebookCellOmittedOutput,
+        handler: showOmittedCellOutput
     }
 ];
\ No newline at end of file
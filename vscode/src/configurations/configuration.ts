@@ -36,8 +36,17 @@ export const configKeys = {
     notebookAddModules: "notebook.addmodules",
     notebookEnablePreview: "notebook.enablePreview",
     notebookImplicitImports: "notebook.implicitImports",
+    notebookStartupSnippets: "notebook.startupSnippets",
     notebookProjectMapping: "notebook.projects.mapping",
     notebookVmOptions: "notebook.vmOptions",
+    notebookKernelPoolSize: "notebook.kernelPoolSize",
+    notebookKernelPoolIdleTimeout: "notebook.kernelPoolIdleTimeout",
+    notebookKernelPoolMaxMemory: "notebook.kernelPoolMaxMemory",
+    notebookCellOutputLimit: "notebook.cellOutputLimit",
+    notebookKernelHibernationTimeout: "notebook.kernelHibernationTimeout",
+    notebookMaxLiveKernels: "notebook.maxLiveKernels",
+    notebookCompletionLimit: "notebook.completionLimit",
+    notebookExecutionEngine: "notebook.executionEngine",
     telemetryEnabled: 'telemetry.enabled',
     mavenUserSettings: 'maven.userSettings'
 };
@@ -65,8 +74,17 @@ export const userConfigsListenedByServer = [
     appendPrefixToCommand(configKeys.notebookAddModules),
     appendPrefixToCommand(configKeys.notebookEnablePreview),
     appendPrefixToCommand(configKeys.notebookImplicitImports),
+    appendPrefixToCommand(configKeys.notebookStartupSnippets),
     appendPrefixToCommand(configKeys.notebookProjectMapping),
     appendPrefixToCommand(configKeys.notebookVmOptions),
+    appendPrefixToCommand(configKeys.notebookKernelPoolSize),
+    appendPrefixToCommand(configKeys.notebookKernelPoolIdleTimeout),
+    appendPrefixToCommand(configKeys.notebookKernelPoolMaxMemory),
+    appendPrefixToCommand(configKeys.notebookCellOutputLimit),
+    appendPrefixToCommand(configKeys.notebookKernelHibernationTimeout),
+    appendPrefixToCommand(configKeys.notebookMaxLiveKernels),
+    appendPrefixToCommand(configKeys.notebookCompletionLimit),
+    appendPrefixToCommand(configKeys.notebookExecutionEngine),
     appendPrefixToCommand(configKeys.projectJdkHome),
     appendPrefixToCommand(configKeys.runConfigVmOptions),
     appendPrefixToCommand(configKeys.runConfigCwd),
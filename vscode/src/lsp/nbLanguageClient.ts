@@ -14,9 +14,9 @@
   limitations under the License.
 */
 import { LanguageClient, LanguageClientOptions, ServerOptions } from 'vscode-languageclient/node';
-import { CloseAction, CloseHandlerResult, ConfigurationParams, ConfigurationRequest, DidChangeConfigurationSignature, DocumentSelector, ErrorAction, ErrorHandlerResult, LSPAny, Message, RevealOutputChannelOn } from "vscode-languageclient";
+import { CloseAction, CloseHandlerResult, CompletionItem as ProtocolCompletionItem, ConfigurationParams, ConfigurationRequest, DidChangeConfigurationSignature, DocumentSelector, ErrorAction, ErrorHandlerResult, LSPAny, Message, ResolveCompletionItemSignature, RevealOutputChannelOn } from "vscode-languageclient";
 import { createTreeViewService, TreeViewService } from "../views/projects";
-import { CancellationToken, OutputChannel, workspace } from "vscode";
+import { CancellationToken, commands, CompletionItem, OutputChannel, workspace } from "vscode";
 import { extConstants } from "../constants";
 import { ConfigurationValueResolver } from '../configurations/configurationValueResolver/configurationValueResolver';
 import { userConfigsListenedByServer } from '../configurations/configuration';
@@ -26,6 +26,8 @@ import { globalState } from '../globalState';
 import { Telemetry } from '../telemetry/telemetry';
 import { ResolveConfigType } from '../configurations/configurationValueResolver/types';
 import { extractSettingsInformation } from '../configurations/configurationValueResolver/utils';
+import { nbCommands } from '../commands/commands';
+import { isNbCommandRegistered } from '../commands/utils';
 
 export class NbLanguageClient extends LanguageClient {
     private _treeViewService: TreeViewService;
@@ -73,6 +75,22 @@ export class NbLanguageClient extends LanguageClient {
                 }
             },
             middleware: {
+                resolveCompletionItem: async (item: CompletionItem, token: CancellationToken, next: ResolveCompletionItemSignature) => {
+                    // the server does not route completionItem/resolve to
+                    // notebook cells, their items are resolved by a command
+                    const protocolItem = client?.code2ProtocolConverter.asCompletionItem(item);
+                    if (!client || !protocolItem?.data?.notebookCellUri || !(await isNbCommandRegistered(nbCommands.notebookCompletionResolve))) {
+                        return next(item, token);
+                    }
+                    const resolved = await commands.executeCommand<ProtocolCompletionItem>(nbCommands.notebookCompletionResolve,
+                        protocolItem.label, protocolItem.data);
+                    if (resolved && !token.isCancellationRequested) {
+                        const converted = client.protocol2CodeConverter.asCompletionItem(resolved);
+                        item.detail = converted.detail;
+                        item.documentation = converted.documentation;
+                    }
+                    return item;
+                },
                 workspace: {
                     configuration: async (params: ConfigurationParams, token: CancellationToken, next: ConfigurationRequest.HandlerSignature) => {
                         const rawValues = await next(params, token) as LSPAny[];
@@ -38,7 +38,8 @@ export class CodeCellExecution {
     constructor(
         private controllerId: string,
         private notebookId: string,
-        private cell: NotebookCell
+        private cell: NotebookCell,
+        private executionOrder?: number
     ) { }
 
     public queued = async (controller: NotebookController | undefined) => {
@@ -149,4 +150,10 @@ export class CodeCellExecution {
     public getControllerId = () => this.controllerId;
 
     public getNotebookId = () => this.notebookId;
+
+    public getExecutionOrder = () => this.executionOrder;
+
+    public setExecutionOrder = (executionOrder: number) => {
+        this.executionOrder = executionOrder;
+    }
 }
\ No newline at end of file
@@ -71,23 +71,63 @@ export class IJNBKernel implements Disposable {
     controller: NotebookController
   ): Promise<void> {
     const notebookId = notebook.uri.toString();
+    const batchExecution = cells.length > 1 && await isNbCommandRegistered(nbCommands.executeNotebookCells);
+    let codeCells: NotebookCell[] = [];
 
     for (const cell of cells) {
+      if (cell.document.languageId === supportLanguages.JAVA) {
+        if (batchExecution) {
+          codeCells.push(cell);
+        } else {
+          await this.handleCodeCellExecution(notebookId, cell, controller);
+        }
+        continue;
+      }
+      if (codeCells.length) {
+        await this.handleCodeCellsExecution(notebookId, codeCells, controller);
+        codeCells = [];
+      }
       if (cell.document.languageId === supportLanguages.MARKDOWN) {
         await this.handleMarkdownCellExecution(notebookId, cell, controller);
-      } else if (cell.document.languageId === supportLanguages.JAVA) {
-        await this.handleCodeCellExecution(notebookId, cell, controller);
       } else {
         await this.handleUnkownLanguageTypeExecution(notebookId, cell, controller);
       }
     }
+    if (codeCells.length) {
+      await this.handleCodeCellsExecution(notebookId, codeCells, controller);
+    }
+  }
+
+  private handleCodeCellsExecution = async (notebookId: string, cells: NotebookCell[], controller: NotebookController) => {
+    const cellSources: [string, string][] = [];
+    for (const cell of cells) {
+      const cellId = cell.document.uri.toString();
+      cellSources.push([cellId, cell.document.getText()]);
+      this.cellControllerIdMap.set(cellId,
+        new CodeCellExecution(controller.id, notebookId, cell));
+    }
+    try {
+      // continues after cells with errors, as executing the cells one by
+      // one does
+      const response = await commands.executeCommand<boolean>(nbCommands.executeNotebookCells,
+        notebookId,
+        cellSources,
+        true);
+
+      if (!response) {
+        LOGGER.log(`Some notebook cells completed with errors: ${notebookId}`);
+      }
+    } catch (error) {
+      LOGGER.error(isError(error) ? error.message : String(error));
+    } finally {
+      cellSources.forEach(([cellId]) => this.cellControllerIdMap.delete(cellId));
+    }
   }
 
   private handleCodeCellExecution = async (notebookId: string, cell: NotebookCell, controller: NotebookController) => {
     const cellId = cell.document.uri.toString();
     const sourceCode = cell.document.getText();
-    const codeCellExecution = new CodeCellExecution(controller.id, notebookId, cell);
-    this.getIncrementedExecutionCounter(notebookId);
+    const codeCellExecution = new CodeCellExecution(controller.id, notebookId, cell, this.getIncrementedExecutionCounter(notebookId));
     try {
       this.cellControllerIdMap.set(cellId, codeCellExecution);
       const client: LanguageClient = await globalState.getClientPromise().client;
@@ -124,7 +164,10 @@ export class IJNBKernel implements Disposable {
         break;
       case NotebookCellExecutionResult.STATUS.EXECUTING:
         const { outputStream, errorStream, diagnostics, errorDiagnostics, metadata } = params;
-        await codeCellExecution.executing(outputStream, errorStream, diagnostics, errorDiagnostics, metadata, this.getExecutionCounter(codeCellExecution.getNotebookId()));
+        if (codeCellExecution.getExecutionOrder() === undefined) {
+          codeCellExecution.setExecutionOrder(this.getIncrementedExecutionCounter(codeCellExecution.getNotebookId()));
+        }
+        await codeCellExecution.executing(outputStream, errorStream, diagnostics, errorDiagnostics, metadata, codeCellExecution.getExecutionOrder());
         break;
       case NotebookCellExecutionResult.STATUS.SUCCESS:
         codeCellExecution.executionCompleted(true);
@@ -155,10 +198,6 @@ export class IJNBKernel implements Disposable {
     return next;
   }
 
-  private getExecutionCounter = (notebookId: string) => {
-    return IJNBKernel.executionCounter.get(notebookId);
-  }
-
   private handleMarkdownCellExecution = async (notebookId: string, cell: NotebookCell, controller: NotebookController) => {
     const exec = controller.createNotebookCellExecution(cell);
     const mimeType = 'text/markdown';